@@ -0,0 +1,109 @@
+package ratingbench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * BenchData class: Deterministic benchmark dataset in the data.csv schema
+ * Courses and professors are picked either uniformly or with Zipf-distributed
+ * popularity ("zipf": a few courses get most of the ratings)
+ */
+public final class BenchData {
+    static final String[] WORDS = {
+        "Introduction", "Advanced", "Data", "Structures", "Java", "Programming", "Calculus",
+        "Physics", "English", "Composition", "Systems", "Networks", "Algorithms", "Theory",
+        "Statistics", "Chemistry", "Biology", "History", "Design", "Analysis"
+    };
+    static final String[] COMMENT_WORDS = {
+        "great", "clear", "helpful", "hard", "fair", "boring", "engaging", "heavy", "homework",
+        "lectures", "exams", "examples", "office", "hours", "explanation", "fast", "slow", "organized"
+    };
+
+    final String[] courseIds;           // Course ID per course
+    final String[] courseNames;         // Course name per course
+    final String[] professorNames;      // Professor name per professor
+    final double[] courseCdf;           // Cumulative popularity of courses
+    final double[] professorCdf;        // Cumulative popularity of professors
+    final SplittableRandom random;
+
+    /**
+     * Constructor
+     * @param ratings number of ratings the dataset will hold (sizes the entity counts)
+     * @param skew "uniform" or "zipf"
+     * @param seed random seed
+     */
+    public BenchData(int ratings, String skew, long seed) {
+        this.random = new SplittableRandom(seed);
+        int courses = Math.max(10, ratings / 50);
+        int professors = Math.max(5, ratings / 100);
+
+        courseIds = new String[courses];
+        courseNames = new String[courses];
+        for (int i = 0; i < courses; i++) {
+            courseIds[i] = WORDS[i % WORDS.length].substring(0, 3).toUpperCase() + (1000 + i);
+            courseNames[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+        }
+        professorNames = new String[professors];
+        for (int i = 0; i < professors; i++) {
+            professorNames[i] = "Dr. Prof" + i;
+        }
+
+        double exponent = "zipf".equals(skew) ? 1.0 : 0.0;
+        courseCdf = cdf(courses, exponent);
+        professorCdf = cdf(professors, exponent);
+    }
+
+    private static double[] cdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private int sample(double[] cdf) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cdf.length - 1);
+    }
+
+    public int nextCourse() {
+        return sample(courseCdf);
+    }
+
+    public int nextProfessor() {
+        return sample(professorCdf);
+    }
+
+    public double nextScore() {
+        return random.nextInt(51) / 10.0;
+    }
+
+    public String nextComment() {
+        return COMMENT_WORDS[random.nextInt(COMMENT_WORDS.length)] + " " + COMMENT_WORDS[random.nextInt(COMMENT_WORDS.length)];
+    }
+
+    /**
+     * Write the dataset as CSV
+     * @param file output file
+     * @param ratings number of rating rows
+     */
+    public void writeCsv(Path file, int ratings) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("courseId,courseName,professorName,rating,comment\n");
+            for (int i = 0; i < ratings; i++) {
+                int course = nextCourse();
+                out.write(courseIds[course] + "," + courseNames[course] + "," + professorNames[nextProfessor()]
+                        + "," + nextScore() + "," + nextComment() + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ratingbench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * DatasetState class: A loaded RatingSystem shared by all benchmark threads
+ * Parameterized by dataset size, popularity skew and course index type.
+ * Query keys are drawn from the same distribution as the data, so skewed
+ * datasets also get skewed (hot-key) lookups.
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+    static final int KEYS = 4096;       // Pre-drawn query keys (power of two, used as a ring)
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int ratings;
+
+    @Param({"uniform", "zipf"})
+    public String skew;
+
+    @Param({"avl"})
+    public String index;
+
+    public RatingSystemHandle system;
+    public Path dataFile;
+    public BenchData data;
+    public String[] courseIds = new String[KEYS];
+    public String[] courseNames = new String[KEYS];
+    public String[] keywords = new String[KEYS];
+    public Object[] professors = new Object[KEYS];
+
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        // RatingSystem reports to the console; keep that cost but not the output
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        data = new BenchData(ratings, skew, 42);
+        dataFile = Files.createTempFile("ratings-" + ratings + "-" + skew, ".csv");
+        data.writeCsv(dataFile, ratings);
+
+        system = new RatingSystemHandle(index);
+        system.loadFromFile(dataFile.toString());
+
+        for (int i = 0; i < KEYS; i++) {
+            int course = data.nextCourse();
+            courseIds[i] = data.courseIds[course];
+            courseNames[i] = data.courseNames[course];
+            keywords[i] = BenchData.WORDS[i % BenchData.WORDS.length].toLowerCase();
+            professors[i] = system.searchProfessorByName(data.professorNames[data.nextProfessor()]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(originalOut);
+        Files.deleteIfExists(dataFile);
+    }
+}
@@ -0,0 +1,71 @@
+package ratingbench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FileBenchmark class: Time to load and save a whole dataset
+ * Each invocation processes the full file, so single-shot timing is used
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class FileBenchmark {
+
+    /**
+     * Output file for saves, recreated per iteration
+     */
+    @State(Scope.Thread)
+    public static class Output {
+        Path file;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws Exception {
+            file = Files.createTempFile("ratings-save", ".csv");
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public Object loadFromFile(DatasetState state) throws Throwable {
+        RatingSystemHandle fresh = new RatingSystemHandle(state.index);
+        fresh.loadFromFile(state.dataFile.toString());
+        return fresh;
+    }
+
+    @Benchmark
+    public Object loadFromFileParallel(DatasetState state) throws Throwable {
+        RatingSystemHandle fresh = new RatingSystemHandle(state.index);
+        if (!fresh.loadFromFileParallel(state.dataFile.toString())) {
+            throw new IllegalStateException("Cannot load " + state.dataFile);
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public void saveToFile(DatasetState state, Output output) throws Throwable {
+        if (!state.system.saveToFile(output.file.toString())) {
+            throw new IllegalStateException("Cannot save " + output.file);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ratingbench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NameKeyBenchmark class: Cost of one course name comparison or keyword check
+ * Compares what CourseAVLTree did per visited node before (case folding on every
+ * compareToIgnoreCase / toLowerCase call) with the keys it now precomputes per node
+ * (folded String, CollationKey, lower case name). Results are per comparison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameKeyBenchmark {
+    static final int NAMES = 1024;      // Names compared per invocation (power of two)
+
+    String[] names = new String[NAMES];             // Course names as stored
+    String[] foldedKeys = new String[NAMES];        // CourseIndex.foldCase(name)
+    String[] lowerNames = new String[NAMES];        // name.toLowerCase()
+    CollationKey[] collationKeys = new CollationKey[NAMES];
+    Collator collator;
+    String keyword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        MethodHandle foldCase = MethodHandles.publicLookup().findStatic(
+                Class.forName("CourseIndex"), "foldCase", MethodType.methodType(String.class, String.class));
+        collator = Collator.getInstance(Locale.ENGLISH);
+        collator.setStrength(Collator.SECONDARY);
+
+        // Names share their first word often, like real course names, so comparisons
+        // usually have to look past the first few characters
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = BenchData.WORDS[random.nextInt(4)] + " " + BenchData.WORDS[random.nextInt(BenchData.WORDS.length)]
+                     + " " + BenchData.WORDS[random.nextInt(BenchData.WORDS.length)];
+            foldedKeys[i] = (String) foldCase.invokeExact(names[i]);
+            lowerNames[i] = names[i].toLowerCase();
+            collationKeys[i] = collator.getCollationKey(names[i]);
+        }
+        keyword = "structures";
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int compareToIgnoreCase() {
+        int sum = 0;
+        for (int i = 0; i < NAMES; i++) {
+            sum += Integer.signum(names[i].compareToIgnoreCase(names[(i + 1) & (NAMES - 1)]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int compareFoldedKeys() {
+        int sum = 0;
+        for (int i = 0; i < NAMES; i++) {
+            sum += Integer.signum(foldedKeys[i].compareTo(foldedKeys[(i + 1) & (NAMES - 1)]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int compareCollator() {
+        int sum = 0;
+        for (int i = 0; i < NAMES; i++) {
+            sum += Integer.signum(collator.compare(names[i], names[(i + 1) & (NAMES - 1)]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int compareCollationKeys() {
+        int sum = 0;
+        for (int i = 0; i < NAMES; i++) {
+            sum += Integer.signum(collationKeys[i].compareTo(collationKeys[(i + 1) & (NAMES - 1)]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int containsToLowerCase() {
+        int hits = 0;
+        for (int i = 0; i < NAMES; i++) {
+            if (names[i].toLowerCase().contains(keyword)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public int containsPrecomputed() {
+        int hits = 0;
+        for (int i = 0; i < NAMES; i++) {
+            if (lowerNames[i].contains(keyword)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
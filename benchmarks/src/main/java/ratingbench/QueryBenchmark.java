@@ -0,0 +1,73 @@
+package ratingbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * QueryBenchmark class: Average time of the RatingSystem query and insert paths
+ * Run: java -jar benchmarks/target/benchmarks.jar -rf json -rff results.json
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class QueryBenchmark {
+
+    /**
+     * Per-thread position in the pre-drawn key ring
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            return next++ & (DatasetState.KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public void addRating(DatasetState state, Cursor cursor) throws Throwable {
+        int i = cursor.advance();
+        state.system.addRating(state.courseIds[i], state.courseNames[i], "Dr. Bench", 4.0, "benchmark rating");
+    }
+
+    @Benchmark
+    public Object searchCoursesByName(DatasetState state, Cursor cursor) throws Throwable {
+        return state.system.searchCoursesByName(state.keywords[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Object searchByExactName(DatasetState state, Cursor cursor) throws Throwable {
+        return state.system.searchByExactName(state.courseNames[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Object searchCourseById(DatasetState state, Cursor cursor) throws Throwable {
+        return state.system.searchCourseById(state.courseIds[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Object getProfessorRankingInCourse(DatasetState state, Cursor cursor) throws Throwable {
+        return state.system.getProfessorRankingInCourse(state.courseIds[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Object getOverallProfessorRanking(DatasetState state) throws Throwable {
+        return state.system.getOverallProfessorRanking();
+    }
+
+    @Benchmark
+    public void displayProfessorDetails(DatasetState state, Cursor cursor) throws Throwable {
+        state.system.displayProfessorDetails(state.professors[cursor.advance()]);
+    }
+}
@@ -0,0 +1,138 @@
+package ratingbench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * RatingSystemHandle class: Calls RatingSystem from a named package
+ * The application classes live in the default package, which Java code in a
+ * named package cannot reference, and JMH refuses benchmarks in the default
+ * package. Every operation is therefore bound once through a constant
+ * MethodHandle, which the JIT inlines like a direct call.
+ */
+public final class RatingSystemHandle {
+    private static final Class<?> RATING_SYSTEM = load("RatingSystem");
+    private static final Class<?> PROFESSOR = load("Professor");
+
+    private static final MethodHandle NEW = constructor(RATING_SYSTEM, String.class);
+    private static final MethodHandle ADD_RATING = method("addRating", void.class,
+            String.class, String.class, String.class, double.class, String.class);
+    private static final MethodHandle LOAD_FROM_FILE = method("loadFromFile", void.class, String.class);
+    private static final MethodHandle LOAD_FROM_FILE_PARALLEL = method("loadFromFileParallel", boolean.class, String.class);
+    private static final MethodHandle SAVE_TO_FILE = method("saveToFile", boolean.class, String.class);
+    private static final MethodHandle SEARCH_BY_NAME = method("searchCoursesByName", List.class, String.class);
+    private static final MethodHandle SEARCH_BY_EXACT_NAME = method("searchCourseByExactName", load("Course"), String.class);
+    private static final MethodHandle SEARCH_BY_ID = method("searchCourseById", load("Course"), String.class);
+    private static final MethodHandle SEARCH_PROFESSOR = method("searchProfessorByName", PROFESSOR, String.class);
+    private static final MethodHandle RANKING_IN_COURSE = method("getProfessorRankingInCourse", List.class, String.class);
+    private static final MethodHandle OVERALL_RANKING = method("getOverallProfessorRanking", List.class);
+    private static final MethodHandle DISPLAY_PROFESSOR = method("displayProfessorDetails", void.class, PROFESSOR);
+    private static final MethodHandle COURSE_COUNT = method("getCourseCount", int.class);
+
+    private final Object system;     // The wrapped RatingSystem
+
+    /**
+     * Create a new, empty RatingSystem
+     * @param indexType course index implementation ("avl", "bplus" or "skiplist")
+     */
+    public RatingSystemHandle(String indexType) {
+        try {
+            this.system = (Object) NEW.invokeExact(indexType);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create RatingSystem", e);
+        }
+    }
+
+    public void addRating(String courseId, String courseName, String professorName, double score, String comment) throws Throwable {
+        ADD_RATING.invokeExact(system, courseId, courseName, professorName, score, comment);
+    }
+
+    public void loadFromFile(String filename) throws Throwable {
+        LOAD_FROM_FILE.invokeExact(system, filename);
+    }
+
+    /**
+     * @return false if the file could not be read
+     */
+    public boolean loadFromFileParallel(String filename) throws Throwable {
+        return (boolean) LOAD_FROM_FILE_PARALLEL.invokeExact(system, filename);
+    }
+
+    /**
+     * @return false if the file could not be written
+     */
+    public boolean saveToFile(String filename) throws Throwable {
+        return (boolean) SAVE_TO_FILE.invokeExact(system, filename);
+    }
+
+    public Object searchCoursesByName(String keyword) throws Throwable {
+        return (Object) SEARCH_BY_NAME.invokeExact(system, keyword);
+    }
+
+    public Object searchByExactName(String courseName) throws Throwable {
+        return (Object) SEARCH_BY_EXACT_NAME.invokeExact(system, courseName);
+    }
+
+    public Object searchCourseById(String courseId) throws Throwable {
+        return (Object) SEARCH_BY_ID.invokeExact(system, courseId);
+    }
+
+    public Object searchProfessorByName(String name) throws Throwable {
+        return (Object) SEARCH_PROFESSOR.invokeExact(system, name);
+    }
+
+    public Object getProfessorRankingInCourse(String courseId) throws Throwable {
+        return (Object) RANKING_IN_COURSE.invokeExact(system, courseId);
+    }
+
+    public Object getOverallProfessorRanking() throws Throwable {
+        return (Object) OVERALL_RANKING.invokeExact(system);
+    }
+
+    public void displayProfessorDetails(Object professor) throws Throwable {
+        DISPLAY_PROFESSOR.invokeExact(system, professor);
+    }
+
+    public int getCourseCount() throws Throwable {
+        return (int) COURSE_COUNT.invokeExact(system);
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findConstructor(owner, MethodType.methodType(void.class, parameters));
+            return handle.asType(MethodType.methodType(Object.class, parameters));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Bind a RatingSystem method; receiver and application types are erased to Object
+     */
+    private static MethodHandle method(String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findVirtual(RATING_SYSTEM, name, MethodType.methodType(returnType, parameters));
+            Class<?>[] erased = new Class<?>[parameters.length + 1];
+            erased[0] = Object.class;
+            for (int i = 0; i < parameters.length; i++) {
+                erased[i + 1] = parameters[i].isPrimitive() || parameters[i] == String.class ? parameters[i] : Object.class;
+            }
+            Class<?> erasedReturn = returnType.isPrimitive() ? returnType : Object.class;
+            return handle.asType(MethodType.methodType(erasedReturn, erased));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BatchRunner class: Non-interactive batch mode
+ * Reads one command per line from a file or stdin, runs them in order against a
+ * single RatingSystem and writes one JSON object per command (JSON Lines).
+ * Reading and parsing run on a separate thread, so input I/O overlaps execution;
+ * output is buffered and only flushed at the end.
+ *
+ * Commands (blank lines and lines starting with # are skipped):
+ *   add courseId,courseName,professorName,rating,comment   (same format as a data.csv row)
+ *   course courseId              course details
+ *   search keyword               courses whose name contains the keyword
+ *   prefix text                  courses whose name starts with the text
+ *   exact courseName             course with exactly this name
+ *   professor name               professor details
+ *   comments words               ratings whose comments contain all words
+ *   rank [n]                     overall professor ranking (top n)
+ *   rank-course courseId         professor ranking within a course
+ *   save [file]                  save data (default: the data file)
+ *   freeze / thaw                switch to the compact read-only layout / back (see RatingSystem.freeze)
+ *   export courses|professors jsonl|csv file   full report of every course or professor
+ *
+ * Usage: java Main --batch commands.txt|- [data file] [output file]
+ * Exit status 1 if the data file could not be loaded or any command failed
+ * Messages such as "Loaded N rating(s)" go to stderr so stdout stays pure JSON Lines
+ */
+public class BatchRunner {
+    private static final int BATCH_SIZE = 1024;         // Commands handed from the reader to the executor at once
+    private static final int QUEUE_BATCHES = 8;         // Parsed batches the reader may run ahead
+    private static final List<Command> END = new ArrayList<>();     // Marks the end of the input
+
+    private final RatingSystem system;
+    private final String dataFile;          // Default file for "save"
+    private final JsonWriter json;
+    private int errors;                     // Commands that failed
+
+    /**
+     * Command class: One parsed input line
+     */
+    private static class Command {
+        final int line;         // Line number in the input (1-based)
+        final String name;      // Command name, lower case
+        final String argument;  // Rest of the line (trimmed, may be empty)
+
+        Command(int line, String name, String argument) {
+            this.line = line;
+            this.name = name;
+            this.argument = argument;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param system RatingSystem to run the commands against
+     * @param dataFile default file for the save command
+     * @param out destination of the JSON Lines output
+     */
+    public BatchRunner(RatingSystem system, String dataFile, Writer out) {
+        this.system = system;
+        this.dataFile = dataFile;
+        this.json = new JsonWriter(out);
+    }
+
+    /**
+     * Run all commands from a reader
+     * @return number of commands run
+     */
+    public int run(Reader input) throws IOException, InterruptedException {
+        BlockingQueue<List<Command>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        IOException[] readError = new IOException[1];
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader br = new BufferedReader(input, 1 << 16)) {
+                List<Command> batch = new ArrayList<>(BATCH_SIZE);
+                String line;
+                int lineNumber = 0;
+                while ((line = br.readLine()) != null) {
+                    lineNumber++;
+                    Command command = parse(lineNumber, line);
+                    if (command == null) {
+                        continue;
+                    }
+                    batch.add(command);
+                    if (batch.size() == BATCH_SIZE) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    queue.put(batch);
+                }
+            } catch (IOException e) {
+                readError[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        int count = 0;
+        List<Command> batch;
+        while ((batch = queue.take()) != END) {
+            for (Command command : batch) {
+                execute(command);
+                count++;
+            }
+        }
+        reader.join();
+        json.flush();
+
+        if (readError[0] != null) {
+            throw readError[0];
+        }
+        return count;
+    }
+
+    public int getErrorCount() {
+        return errors;
+    }
+
+    /**
+     * Parse one input line
+     * @return command, or null for blank lines and comments
+     */
+    private static Command parse(int lineNumber, String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+
+        int space = trimmed.indexOf(' ');
+        if (space < 0) {
+            return new Command(lineNumber, trimmed.toLowerCase(), "");
+        }
+        return new Command(lineNumber, trimmed.substring(0, space).toLowerCase(), trimmed.substring(space + 1).trim());
+    }
+
+    /**
+     * Run one command and write its result line
+     */
+    private void execute(Command command) throws IOException {
+        json.beginObject().field("line", command.line).field("command", command.name);
+
+        String error;
+        switch (command.name) {
+            case "add":
+                error = add(command.argument);
+                break;
+            case "course":
+                error = course(command.argument);
+                break;
+            case "search":
+                error = courses(system.searchCoursesByName(command.argument));
+                break;
+            case "prefix":
+                error = courses(system.searchCoursesByPrefix(command.argument));
+                break;
+            case "exact":
+                error = exact(command.argument);
+                break;
+            case "professor":
+                error = professor(command.argument);
+                break;
+            case "comments":
+                error = comments(command.argument);
+                break;
+            case "rank":
+                error = rank(command.argument);
+                break;
+            case "rank-course":
+                error = rankCourse(command.argument);
+                break;
+            case "save":
+                error = save(command.argument);
+                break;
+            case "export":
+                error = export(command.argument);
+                break;
+            case "freeze":
+                system.freeze();
+                error = frozen();
+                break;
+            case "thaw":
+                system.thaw();
+                error = frozen();
+                break;
+            default:
+                error = "Unknown command: " + command.name;
+        }
+
+        if (error != null) {
+            errors++;
+            json.field("ok", false).field("error", error);
+        }
+        json.endObject().newLine();
+    }
+
+    /**
+     * add courseId,courseName,professorName,rating,comment
+     * @return error message, or null on success (result fields are written to json)
+     */
+    private String add(String row) throws IOException {
+        String[] parts = row.split(",", 5);
+        if (parts.length < 5) {
+            return "Expected courseId,courseName,professorName,rating,comment";
+        }
+
+        double score;
+        try {
+            score = Double.parseDouble(parts[3].trim());
+        } catch (NumberFormatException e) {
+            return "Rating must be a number between 0 and 5";
+        }
+
+        String error = RatingSystem.validateRating(parts[0].trim(), parts[1].trim(), parts[2].trim(), score);
+        if (error != null) {
+            return error.replaceFirst("^Error: ", "");
+        }
+        RatingSystem.AddResult result = system.addRatingSilently(parts[0].trim(), parts[1].trim(), parts[2].trim(),
+                                                                 score, parts[4].trim(), System.currentTimeMillis());
+        if (result == RatingSystem.AddResult.FROZEN) {
+            return "Data is frozen (read-only)";
+        }
+        if (result == RatingSystem.AddResult.RETIRED) {
+            return "Data was just reloaded, add the rating again";
+        }
+        json.field("ok", true).field("added", result == RatingSystem.AddResult.ADDED);
+        if (result == RatingSystem.AddResult.DUPLICATE) {
+            json.field("duplicate", true);
+        }
+        return null;
+    }
+
+    private String frozen() throws IOException {
+        json.field("ok", true).field("frozen", system.isFrozen());
+        return null;
+    }
+
+    private String course(String courseId) throws IOException {
+        Course course = system.searchCourseById(courseId);
+        if (course == null) {
+            return "Course with ID " + courseId + " not found";
+        }
+        json.field("ok", true).name("course");
+        RatingJson.writeCourseDetails(json, course, system.getProfessorRankingInCourse(courseId));
+        return null;
+    }
+
+    private String courses(List<Course> courses) throws IOException {
+        json.field("ok", true).field("count", courses.size()).name("courses").beginArray();
+        for (Course course : courses) {
+            RatingJson.writeCourseSummary(json, course);
+        }
+        json.endArray();
+        return null;
+    }
+
+    private String exact(String courseName) throws IOException {
+        Course course = system.searchCourseByExactName(courseName);
+        if (course == null) {
+            return "Course named " + courseName + " not found";
+        }
+        json.field("ok", true).name("course");
+        RatingJson.writeCourseSummary(json, course);
+        return null;
+    }
+
+    private String professor(String name) throws IOException {
+        Professor professor = system.searchProfessorByName(name);
+        if (professor == null) {
+            return "Professor named " + name + " not found";
+        }
+        json.field("ok", true).name("professor");
+        RatingJson.writeProfessorDetails(json, professor);
+        return null;
+    }
+
+    private String comments(String words) throws IOException {
+        List<CommentMatch> matches = system.searchComments(words, true, 0);
+        json.field("ok", true).field("count", matches.size()).name("ratings").beginArray();
+        for (CommentMatch match : matches) {
+            json.beginObject()
+                .field("courseId", match.getCourse().getCourseId())
+                .field("courseName", match.getCourse().getCourseName())
+                .field("professor", match.getProfessor().getName())
+                .field("score", match.getRating().getScore())
+                .field("comment", match.getRating().getComment())
+                .endObject();
+        }
+        json.endArray();
+        return null;
+    }
+
+    private String rank(String top) throws IOException {
+        List<Professor> ranking = system.getOverallProfessorRanking();
+        if (!top.isEmpty()) {
+            int n;
+            try {
+                n = Integer.parseInt(top);
+            } catch (NumberFormatException e) {
+                return "rank takes a whole number";
+            }
+            if (n > 0 && n < ranking.size()) {
+                ranking = ranking.subList(0, n);
+            }
+        }
+
+        json.field("ok", true).name("professors").beginArray();
+        for (Professor professor : ranking) {
+            RatingJson.writeProfessorSummary(json, professor);
+        }
+        json.endArray();
+        return null;
+    }
+
+    private String rankCourse(String courseId) throws IOException {
+        if (system.searchCourseById(courseId) == null) {
+            return "Course with ID " + courseId + " not found";
+        }
+        json.field("ok", true).field("courseId", courseId).name("professors").beginArray();
+        for (CourseProfessor cp : system.getProfessorRankingInCourse(courseId)) {
+            RatingJson.writeCourseProfessor(json, cp);
+        }
+        json.endArray();
+        return null;
+    }
+
+    /**
+     * export courses|professors jsonl|csv file
+     */
+    private String export(String argument) throws IOException {
+        String[] parts = argument.split("\\s+", 3);
+        if (parts.length < 3) {
+            return "Expected courses|professors jsonl|csv file";
+        }
+
+        ReportExporter.Report report;
+        ReportExporter.Format format;
+        try {
+            report = ReportExporter.Report.valueOf(parts[0].toUpperCase());
+            format = ReportExporter.Format.valueOf(parts[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return "Expected courses|professors jsonl|csv file";
+        }
+
+        int count = system.exportReport(parts[2], report, format);
+        if (count < 0) {
+            return "Could not write " + parts[2];
+        }
+        json.field("ok", true).field("file", parts[2]).field("count", count);
+        return null;
+    }
+
+    private String save(String file) throws IOException {
+        String target = file.isEmpty() ? dataFile : file;
+        if (!system.saveToFile(target)) {
+            return "Could not write " + target;
+        }
+        json.field("ok", true).field("file", target);
+        return null;
+    }
+
+    /**
+     * Entry point for "java Main --batch ..."
+     * Exit status: 0 if the data file loaded and every command succeeded, 1 otherwise
+     * (the commands still run after a failed load), 2 for a usage error
+     * @param args commands file (or - for stdin), optional data file, optional output file
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java Main --batch commands.txt|- [data file] [output file]");
+            System.exit(2);
+            return;
+        }
+
+        String dataFile = args.length > 1 ? args[1] : "data.csv";
+        PrintStream stdout = System.out;
+        System.setOut(System.err);      // Keep stdout for the JSON Lines output
+        long start = System.nanoTime();
+        boolean failed = false;
+
+        try {
+            RatingSystem system = new RatingSystem();
+            failed = !system.loadFromFileParallel(dataFile);
+
+            OutputStream outStream = args.length > 2 ? new FileOutputStream(args[2]) : stdout;
+            Reader input = args[0].equals("-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : new FileReader(args[0], StandardCharsets.UTF_8);
+
+            Writer out = new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8), 1 << 16);
+            BatchRunner runner = new BatchRunner(system, dataFile, out);
+            int count = runner.run(input);
+            if (args.length > 2) {
+                out.close();
+            }
+
+            System.err.printf("Batch finished: %d command(s), %d error(s) in %.2f s%n",
+                              count, runner.getErrorCount(), (System.nanoTime() - start) / 1e9);
+            failed |= runner.getErrorCount() > 0;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = true;
+        } finally {
+            System.setOut(stdout);
+        }
+        if (failed) {
+            System.exit(1);     // Lets scripts detect a failed load or command
+        }
+    }
+}
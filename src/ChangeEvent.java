@@ -0,0 +1,73 @@
+/**
+ * ChangeEvent class: One change published by a RatingSystem's ChangeFeed
+ * Sequence numbers start at 1 and grow by one per event, so a subscriber that
+ * remembers the last number it handled can resume right after it.
+ * Removing a course or a professor also removes all of its ratings;
+ * no separate RATING_REMOVED events are published for those
+ */
+public class ChangeEvent {
+
+    /**
+     * Type class: What changed
+     */
+    public enum Type {
+        RATING_ADDED, RATING_REMOVED, COURSE_CREATED, COURSE_REMOVED, PROFESSOR_CREATED, PROFESSOR_REMOVED
+    }
+
+    private final long sequence;            // Position in the feed (1, 2, 3, ...)
+    private final Type type;                // What changed
+    private final String courseId;          // Course of the change (null for professor events)
+    private final String courseName;        // Course name (null for professor events)
+    private final String professorName;     // Professor of the change (null for course events)
+    private final Rating rating;            // Rating added or removed (null for other events)
+
+    public ChangeEvent(long sequence, Type type, String courseId, String courseName,
+                       String professorName, Rating rating) {
+        this.sequence = sequence;
+        this.type = type;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.professorName = professorName;
+        this.rating = rating;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public String getProfessorName() {
+        return professorName;
+    }
+
+    public Rating getRating() {
+        return rating;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('#').append(sequence).append(' ').append(type);
+        if (courseId != null) {
+            sb.append(" [").append(courseId).append("] ").append(courseName);
+        }
+        if (professorName != null) {
+            sb.append(courseId != null ? " / " : " ").append(professorName);
+        }
+        if (rating != null) {
+            sb.append(": ").append(rating);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,417 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ChangeFeed class: Ordered stream of the changes made to one RatingSystem
+ * Every added or removed rating, course and professor becomes a ChangeEvent with
+ * the next sequence number. The newest events are kept in a ring (RETAINED,
+ * -Drating.feedRetain=<n>, default 65536), which serves two kinds of readers:
+ *   - subscribers: subscribe() gives a Subscription that receives events in
+ *     batches (poll); it may start at an older sequence number to resume
+ *   - stateless readers: read(from, max, wait), e.g. GET /changes of the HTTP API
+ * A subscription is a bounded queue: it holds at most its capacity of unread
+ * events. Each subscription only keeps a cursor into the shared ring, so
+ * publishing costs the same with one subscriber or many. When a subscriber
+ * falls capacity events behind, its Backpressure policy decides what happens.
+ *
+ * A reload replaces the RatingSystem and with it the feed; getFeedId() tells
+ * feeds apart, so a mirror that sees a new ID knows to copy everything again.
+ * All methods hold the feed's lock. Publishers are RatingSystem writers (holding
+ * its write lock); subscribers never touch the RatingSystem's lock. Waiting readers
+ * and writers wait on Conditions of that ReentrantLock rather than on a monitor,
+ * so a long poll on a virtual thread does not pin its carrier thread
+ */
+public class ChangeFeed {
+    /** Events kept for resuming subscribers and read(), -Drating.feedRetain=<n> */
+    public static final int RETAINED = Math.max(1, Integer.getInteger("rating.feedRetain", 65536));
+
+    /**
+     * Backpressure class: What happens when a subscriber's queue is full
+     */
+    public enum Backpressure {
+        /** The writer waits until the subscriber reads (no event is lost, but the RatingSystem stays write-locked meanwhile) */
+        BLOCK,
+        /** The oldest unread events are skipped and counted (see Subscription.getDropped) */
+        DROP_OLDEST,
+        /** The subscription is closed; the subscriber can resume from getNextSequence() */
+        DISCONNECT
+    }
+
+    private final long feedId;                  // Random ID of this feed (changes on reload)
+    private final ChangeEvent[] retained;       // Ring of the newest events, slot = sequence mod length
+    private long nextSequence = 1;              // Sequence number of the next event
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();   // An event was published or a subscription closed
+    private final Condition consumed = lock.newCondition();    // A subscriber read or closed (room for BLOCK writers)
+
+    public ChangeFeed() {
+        this(RETAINED);
+    }
+
+    /**
+     * Constructor
+     * @param retained number of newest events kept
+     */
+    public ChangeFeed(int retained) {
+        this.feedId = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+        this.retained = new ChangeEvent[retained];
+    }
+
+    /**
+     * Subscription class: One subscriber's position in the feed
+     * Read events with poll(); remember getNextSequence() to resume later
+     */
+    public class Subscription implements AutoCloseable {
+        private final int capacity;                 // Most unread events held
+        private final Backpressure backpressure;    // Policy when capacity is reached
+        private long cursor;                        // Sequence number of the next event to deliver
+        private long dropped;                       // Events skipped by DROP_OLDEST
+        private boolean closed;                     // Closed by close() or by DISCONNECT
+        private boolean overflowed;                 // True if DISCONNECT closed it
+
+        private Subscription(long cursor, int capacity, Backpressure backpressure) {
+            this.cursor = cursor;
+            this.capacity = capacity;
+            this.backpressure = backpressure;
+        }
+
+        /**
+         * Take the next batch of events, waiting for one if there is none yet
+         * @param maxEvents largest batch
+         * @param timeoutMillis longest wait (0 = do not wait)
+         * @return events in sequence order; empty after the timeout or once closed
+         */
+        public List<ChangeEvent> poll(int maxEvents, long timeoutMillis) throws InterruptedException {
+            lock.lock();
+            try {
+                awaitEvents(this, cursor, timeoutMillis);
+                if (closed) {
+                    return Collections.emptyList();
+                }
+                List<ChangeEvent> batch = copy(cursor, maxEvents);
+                cursor += batch.size();
+                if (!batch.isEmpty()) {
+                    consumed.signalAll();   // A writer may wait for room (BLOCK)
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sequence number of the next event this subscription will deliver
+         * (pass it to subscribe() to resume after a restart or a DISCONNECT)
+         */
+        public long getNextSequence() {
+            lock.lock();
+            try {
+                return cursor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Number of unread events
+         */
+        public int getBacklog() {
+            lock.lock();
+            try {
+                return (int) (nextSequence - cursor);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Number of events skipped because the queue was full (DROP_OLDEST)
+         */
+        public long getDropped() {
+            lock.lock();
+            try {
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Check if the subscription was closed because its queue was full (DISCONNECT)
+         */
+        public boolean isOverflowed() {
+            lock.lock();
+            try {
+                return overflowed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stop receiving events (wakes a poll() in progress and any writer waiting for room)
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closeSubscription(this, false);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the events published from now on
+     * @param capacity most unread events held (at most the number of retained events)
+     * @param backpressure what to do when the subscriber falls capacity events behind
+     */
+    public Subscription subscribe(int capacity, Backpressure backpressure) {
+        lock.lock();
+        try {
+            return subscribe(nextSequence, capacity, backpressure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subscribe starting at an earlier event (resume)
+     * The events from fromSequence on that are already published are delivered first;
+     * if there are more than capacity of them, the policy applies at the next change
+     * @param fromSequence sequence number of the first event to deliver
+     * @throws IllegalArgumentException if those events are no longer retained, or the capacity is invalid
+     */
+    public Subscription subscribe(long fromSequence, int capacity, Backpressure backpressure) {
+        lock.lock();
+        try {
+            if (capacity < 1 || capacity > retained.length) {
+                throw new IllegalArgumentException("Capacity must be between 1 and " + retained.length + ": " + capacity);
+            }
+            checkRetained(fromSequence);
+
+            Subscription subscription = new Subscription(fromSequence, capacity, backpressure);
+            subscriptions.add(subscription);
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read retained events without subscribing (long polling)
+     * @param fromSequence sequence number of the first event to return
+     * @param maxEvents largest batch
+     * @param waitMillis longest wait when there is no event yet (0 = do not wait)
+     * @return events in sequence order, empty if none arrived in time
+     * @throws IllegalArgumentException if the events are no longer retained
+     */
+    public List<ChangeEvent> read(long fromSequence, int maxEvents, long waitMillis)
+            throws InterruptedException {
+        lock.lock();
+        try {
+            checkRetained(fromSequence);
+            awaitEvents(null, fromSequence, waitMillis);
+            checkRetained(fromSequence);        // Older events may have been overwritten meanwhile
+            return copy(fromSequence, maxEvents);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFeedId() {
+        return feedId;
+    }
+
+    /**
+     * Sequence number the next event will get (1 for a new feed)
+     */
+    public long getNextSequence() {
+        lock.lock();
+        try {
+            return nextSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the oldest event still retained (= getNextSequence() if none)
+     */
+    public long getOldestSequence() {
+        lock.lock();
+        try {
+            return Math.max(1, nextSequence - retained.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRetainedCapacity() {
+        return retained.length;
+    }
+
+    /**
+     * Number of open subscriptions
+     */
+    public int getSubscriptionCount() {
+        lock.lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- Publishing (called by RatingSystem under its write lock) ----
+
+    void ratingAdded(CourseProfessor cp, Rating rating) {
+        publish(ChangeEvent.Type.RATING_ADDED, cp.getCourse(), cp.getProfessor().getName(), rating);
+    }
+
+    void ratingRemoved(CourseProfessor cp, Rating rating) {
+        publish(ChangeEvent.Type.RATING_REMOVED, cp.getCourse(), cp.getProfessor().getName(), rating);
+    }
+
+    void courseCreated(Course course) {
+        publish(ChangeEvent.Type.COURSE_CREATED, course, null, null);
+    }
+
+    void courseRemoved(Course course) {
+        publish(ChangeEvent.Type.COURSE_REMOVED, course, null, null);
+    }
+
+    void professorCreated(Professor professor) {
+        publish(ChangeEvent.Type.PROFESSOR_CREATED, null, professor.getName(), null);
+    }
+
+    void professorRemoved(Professor professor) {
+        publish(ChangeEvent.Type.PROFESSOR_REMOVED, null, professor.getName(), null);
+    }
+
+    private void publish(ChangeEvent.Type type, Course course, String professorName, Rating rating) {
+        lock.lock();
+        try {
+            makeRoom();
+
+            long sequence = nextSequence;
+            retained[slot(sequence)] = new ChangeEvent(sequence, type,
+                    course == null ? null : course.getCourseId(),
+                    course == null ? null : course.getCourseName(), professorName, rating);
+            nextSequence = sequence + 1;
+
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply each subscription's policy if one more event would overflow its queue
+     */
+    private void makeRoom() {
+        boolean blocked = true;
+        while (blocked) {
+            blocked = false;
+            for (Subscription subscription : new ArrayList<>(subscriptions)) {
+                long backlog = nextSequence - subscription.cursor;
+                if (backlog < subscription.capacity) {
+                    continue;
+                }
+
+                switch (subscription.backpressure) {
+                    case DROP_OLDEST:
+                        long skip = backlog - subscription.capacity + 1;
+                        subscription.cursor += skip;
+                        subscription.dropped += skip;
+                        break;
+                    case DISCONNECT:
+                        closeSubscription(subscription, true);
+                        break;
+                    default:
+                        blocked = true;
+                        break;
+                }
+            }
+
+            if (blocked) {
+                try {
+                    consumed.await();   // Until a BLOCK subscriber reads or closes
+                } catch (InterruptedException e) {
+                    // The writer must not wait forever: give up on the subscribers that block it
+                    Thread.currentThread().interrupt();
+                    for (Subscription subscription : new ArrayList<>(subscriptions)) {
+                        if (nextSequence - subscription.cursor >= subscription.capacity) {
+                            closeSubscription(subscription, true);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private void closeSubscription(Subscription subscription, boolean overflowed) {
+        if (subscription.closed) {
+            return;
+        }
+        subscription.closed = true;
+        subscription.overflowed = overflowed;
+        subscriptions.remove(subscription);
+        published.signalAll();      // Wakes its poll()
+        consumed.signalAll();       // and any writer waiting for it
+    }
+
+    /**
+     * Wait until an event at or after a sequence number exists (caller holds the lock)
+     * @param subscription subscription that waits (null for read()); stops waiting once it is closed
+     */
+    private void awaitEvents(Subscription subscription, long fromSequence, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (fromSequence >= nextSequence && (subscription == null || !subscription.closed)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return;
+            }
+            published.await(remaining, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkRetained(long fromSequence) {
+        long oldest = getOldestSequence();
+        if (fromSequence < oldest || fromSequence > nextSequence) {
+            throw new IllegalArgumentException("Events from " + fromSequence + " are not available (retained: "
+                                               + oldest + " to " + (nextSequence - 1) + ")");
+        }
+    }
+
+    private List<ChangeEvent> copy(long fromSequence, int maxEvents) {
+        int count = (int) Math.min(maxEvents, nextSequence - fromSequence);
+        List<ChangeEvent> batch = new ArrayList<>(Math.max(0, count));
+        for (int i = 0; i < count; i++) {
+            batch.add(retained[slot(fromSequence + i)]);
+        }
+        return batch;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % retained.length);
+    }
+}
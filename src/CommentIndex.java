@@ -0,0 +1,286 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posting list class: Compressed list of document IDs for one word
+ * IDs are stored in increasing order as varint-encoded gaps (delta encoding),
+ * so most postings take a single byte
+ */
+class PostingList {
+    byte[] data;            // Varint-encoded gaps between document IDs
+    int length;             // Number of used bytes in data
+    int count;              // Number of documents in this list
+    int lastDoc;            // Last document ID added (base for the next gap)
+
+    public PostingList() {
+        this.data = new byte[4];
+        this.length = 0;
+        this.count = 0;
+        this.lastDoc = -1;
+    }
+
+    /**
+     * Append a document ID (IDs must arrive in increasing order)
+     * A word repeated in the same comment is only stored once
+     */
+    public void add(int doc) {
+        if (doc == lastDoc) {
+            return;
+        }
+
+        int gap = doc - lastDoc;
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));    // A trimmed list may be tiny
+        }
+
+        // Varint: 7 bits per byte, high bit set on all but the last byte
+        while ((gap & ~0x7F) != 0) {
+            data[length++] = (byte) ((gap & 0x7F) | 0x80);
+            gap >>>= 7;
+        }
+        data[length++] = (byte) gap;
+
+        lastDoc = doc;
+        count++;
+    }
+
+    /**
+     * Decode all document IDs in increasing order
+     */
+    public int[] decode() {
+        int[] docs = new int[count];
+        int pos = 0;
+        int doc = -1;
+
+        for (int i = 0; i < count; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            doc += gap;
+            docs[i] = doc;
+        }
+
+        return docs;
+    }
+
+    /**
+     * Release unused capacity once the list is no longer growing quickly
+     */
+    public void trim() {
+        if (data.length > length) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+}
+
+/**
+ * CommentIndex class: Inverted index over rating comments
+ * Maps every word to a compressed posting list of rating documents,
+ * supports AND / OR keyword queries filtered by rating score.
+ * Deleted ratings keep their postings until the next reload; search() skips them.
+ * Documents point to a pair and a rating sequence number rather than the Rating
+ * itself, so spilled rating lists (see RatingSpillStore) can leave memory
+ */
+public class CommentIndex {
+    private Map<String, PostingList> postings;      // Word -> posting list
+    private CourseProfessor[] docOwners;            // Document ID -> course-professor pair
+    private int[] docSequences;                     // Document ID -> rating sequence number within its pair
+    private int docCount;                           // Number of indexed ratings
+
+    public CommentIndex() {
+        this.postings = new HashMap<>();
+        this.docOwners = new CourseProfessor[16];
+        this.docSequences = new int[16];
+        this.docCount = 0;
+    }
+
+    /**
+     * Index the comment of a newly added rating
+     * @param cp course-professor pair the rating belongs to
+     * @param rating rating object
+     */
+    public void add(CourseProfessor cp, Rating rating) {
+        add(cp, rating, tokenize(rating.getComment()));
+    }
+
+    /**
+     * Index a rating whose comment was already tokenized (see tokenize())
+     * @param cp course-professor pair the rating belongs to
+     * @param rating rating object
+     * @param words words of the comment
+     */
+    public void add(CourseProfessor cp, Rating rating, List<String> words) {
+        if (docCount == docSequences.length) {
+            int newCapacity = docSequences.length * 2;
+            docOwners = Arrays.copyOf(docOwners, newCapacity);
+            docSequences = Arrays.copyOf(docSequences, newCapacity);
+        }
+
+        int doc = docCount++;
+        docOwners[doc] = cp;
+        docSequences[doc] = rating.getSequence();
+
+        for (String word : words) {
+            postings.computeIfAbsent(word, w -> new PostingList()).add(doc);
+        }
+    }
+
+    /**
+     * Search comments
+     * @param words query words
+     * @param matchAll true: every word must appear (AND); false: any word (OR)
+     * @param minScore only return ratings with at least this score
+     * @return matches, most matched words first, then by rating score from high to low
+     */
+    public List<CommentMatch> search(List<String> words, boolean matchAll, double minScore) {
+        List<CommentMatch> results = new ArrayList<>();
+
+        List<PostingList> lists = new ArrayList<>();
+        for (String word : words) {
+            PostingList list = postings.get(word.toLowerCase());
+            if (list != null) {
+                lists.add(list);
+            } else if (matchAll) {
+                return results;     // A missing word can never be matched by every comment
+            }
+        }
+        if (lists.isEmpty()) {
+            return results;
+        }
+
+        if (matchAll) {
+            // AND: intersect starting from the shortest list, so candidates shrink fastest
+            lists.sort((a, b) -> Integer.compare(a.count, b.count));
+            int[] candidates = lists.get(0).decode();
+            for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+                candidates = intersect(candidates, lists.get(i).decode());
+            }
+
+            for (int doc : candidates) {
+                addMatch(results, doc, lists.size(), minScore);
+            }
+        } else {
+            // OR: count how many query words each document matched
+            Map<Integer, Integer> hits = new HashMap<>();
+            for (PostingList list : lists) {
+                for (int doc : list.decode()) {
+                    hits.merge(doc, 1, Integer::sum);
+                }
+            }
+
+
+            for (Map.Entry<Integer, Integer> entry : hits.entrySet()) {
+                addMatch(results, entry.getKey(), entry.getValue(), minScore);
+            }
+        }
+
+        results.sort((a, b) -> {
+            if (a.getMatchedWords() != b.getMatchedWords()) {
+                return Integer.compare(b.getMatchedWords(), a.getMatchedWords());
+            }
+            return Double.compare(b.getRating().getScore(), a.getRating().getScore());
+        });
+        return results;
+    }
+
+    private void addMatch(List<CommentMatch> results, int doc, int matchedWords, double minScore) {
+        CourseProfessor owner = docOwners[doc];
+        if (owner.isRemoved()) {
+            return;
+        }
+        Rating rating = owner.findRating(docSequences[doc]);     // null if deleted
+        if (rating != null && rating.getScore() >= minScore) {
+            results.add(new CommentMatch(owner, rating, matchedWords));
+        }
+    }
+
+    /**
+     * Intersect two increasing document ID arrays
+     */
+    private int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                result[k++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Split text into lower case words (letters and digits only)
+     * @param text text to split
+     * @return list of words
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Release unused capacity in all posting lists (e.g., after a bulk load)
+     */
+    public void trim() {
+        for (PostingList list : postings.values()) {
+            list.trim();
+        }
+    }
+
+    /**
+     * Get number of indexed ratings
+     */
+    public int size() {
+        return docCount;
+    }
+
+    /**
+     * Estimate the heap bytes of the index (words, posting lists, document arrays)
+     */
+    public long estimateBytes() {
+        long bytes = 8L * docOwners.length;     // Owner reference and sequence per document slot
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            bytes += 120 + entry.getKey().length() + entry.getValue().data.length;    // Map entry, word, PostingList and array headers
+        }
+        return bytes;
+    }
+
+    /**
+     * Get number of distinct words
+     */
+    public int getWordCount() {
+        return postings.size();
+    }
+}
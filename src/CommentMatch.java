@@ -0,0 +1,46 @@
+/**
+ * CommentMatch class: One result of a comment search
+ * Holds the matching rating together with its course and professor
+ */
+public class CommentMatch {
+    private CourseProfessor courseProfessor;    // Course-professor pair the rating belongs to
+    private Rating rating;                      // Matching rating
+    private int matchedWords;                   // Number of query words found in the comment
+
+    /**
+     * Constructor
+     * @param courseProfessor course-professor pair
+     * @param rating matching rating
+     * @param matchedWords number of matched query words
+     */
+    public CommentMatch(CourseProfessor courseProfessor, Rating rating, int matchedWords) {
+        this.courseProfessor = courseProfessor;
+        this.rating = rating;
+        this.matchedWords = matchedWords;
+    }
+
+    public Course getCourse() {
+        return courseProfessor.getCourse();
+    }
+
+    public Professor getProfessor() {
+        return courseProfessor.getProfessor();
+    }
+
+    public Rating getRating() {
+        return rating;
+    }
+
+    public int getMatchedWords() {
+        return matchedWords;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %s - %s: %s",
+                           getCourse().getCourseId(),
+                           getCourse().getCourseName(),
+                           getProfessor().getName(),
+                           rating);
+    }
+}
@@ -0,0 +1,514 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * CompressedFiles class: Reading and writing data files that may be compressed
+ * newReader() looks at the first bytes of a file, not its name:
+ *   - plain text: read directly
+ *   - gzip: decompressed by GZIPInputStream on its own thread, so decompression
+ *     overlaps parsing on the reading thread
+ *   - BGZF (block gzip, as written by bgzip and by newWriter): a sequence of gzip
+ *     members of at most 64 KB each that store their own size, so the blocks are
+ *     decompressed in parallel on the common ForkJoinPool and handed to the reader
+ *     in order. Any gzip tool reads BGZF files as well
+ *   - zstd: detected, but the JDK has no zstd decoder; reported as an IOException
+ * newWriter() writes BGZF when the file name ends with ".gz" (blocks compressed
+ * in parallel, written in order), otherwise plain text.
+ *
+ * Decompressed data waits in a bounded queue, so a slow reader stops the
+ * decompression instead of buffering the file. All text is UTF-8
+ */
+public class CompressedFiles {
+    private static final int BUFFER_SIZE = 1 << 16;             // Bytes per file buffer / gzip chunk
+    private static final int BLOCK_INPUT = 0xff00;              // Uncompressed bytes per BGZF block (as bgzip)
+    private static final int BLOCK_HEADER = 18;                 // gzip header with the BC extra field
+    private static final int BLOCK_FOOTER = 8;                  // CRC32 and ISIZE
+    private static final int MAX_BLOCK = 1 << 16;               // BSIZE is 16 bits
+    private static final int QUEUED_CHUNKS = 2 * ForkJoinPool.getCommonPoolParallelism() + 4;
+
+    /** Empty BGZF block that marks the end of a file */
+    private static final byte[] EOF_BLOCK = {
+        31, -117, 8, 4, 0, 0, 0, 0, 0, -1, 6, 0, 66, 67, 2, 0, 27, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final CompletableFuture<byte[]> END = CompletableFuture.completedFuture(new byte[0]);
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<Deflater> DEFLATERS =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    /**
+     * Compression class: Formats recognized by newReader()
+     */
+    public enum Compression {
+        NONE, GZIP, BGZF, ZSTD
+    }
+
+    private CompressedFiles() {
+    }
+
+    /**
+     * Find out how a file is compressed from its first bytes
+     */
+    public static Compression detect(String filename) throws IOException {
+        byte[] head = new byte[16];
+        int length;
+        try (InputStream in = new FileInputStream(filename)) {
+            length = in.readNBytes(head, 0, head.length);
+        }
+        return detect(head, length);
+    }
+
+    private static Compression detect(byte[] head, int length) {
+        if (length >= 4 && (head[0] & 0xff) == 0x28 && (head[1] & 0xff) == 0xb5
+                && (head[2] & 0xff) == 0x2f && (head[3] & 0xff) == 0xfd) {
+            return Compression.ZSTD;
+        }
+        if (length < 2 || (head[0] & 0xff) != 0x1f || (head[1] & 0xff) != 0x8b) {
+            return Compression.NONE;
+        }
+        // BGZF: FEXTRA set and the first extra subfield is "BC" with 2 bytes of data
+        if (length >= 16 && (head[3] & 4) != 0 && head[12] == 'B' && head[13] == 'C' && head[14] == 2 && head[15] == 0) {
+            return Compression.BGZF;
+        }
+        return Compression.GZIP;
+    }
+
+    /**
+     * Open a data file for reading, decompressing it if needed
+     */
+    public static BufferedReader newReader(String filename) throws IOException {
+        return newReader(filename, new AtomicLong());
+    }
+
+    /**
+     * Open a data file for reading, decompressing it if needed
+     * @param fileBytesRead counts the bytes read from the file itself (compressed bytes
+     *                      for a compressed file), for progress against the file size
+     */
+    public static BufferedReader newReader(String filename, AtomicLong fileBytesRead) throws IOException {
+        Compression compression = detect(filename);
+        InputStream file = new CountingInputStream(new FileInputStream(filename), fileBytesRead);
+        InputStream in;
+        switch (compression) {
+            case GZIP:
+                in = new DecompressedInputStream(file, false);
+                break;
+            case BGZF:
+                in = new DecompressedInputStream(file, true);
+                break;
+            case ZSTD:
+                file.close();
+                throw new IOException(filename + " is zstd-compressed, which the JDK cannot read; "
+                                      + "decompress it or recompress it with gzip / bgzip");
+            default:
+                in = file;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Open a file for writing; a name ending in ".gz" is written BGZF-compressed
+     */
+    public static Writer newWriter(String filename) throws IOException {
+        OutputStream out = new FileOutputStream(filename);
+        if (filename.endsWith(".gz")) {
+            out = new BgzfOutputStream(out);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * CountingInputStream class: Counts the bytes read through it
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * DecompressedInputStream class: Data decompressed by a separate thread
+     * The thread reads the file and queues decompressed chunks in file order: for gzip
+     * it inflates them itself; for BGZF it only splits the file into blocks and queues
+     * a future per block, inflated on the ForkJoinPool. Errors reach the reader with
+     * the chunk where they happened
+     */
+    private static class DecompressedInputStream extends InputStream {
+        private final BlockingQueue<CompletableFuture<byte[]>> queue = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        private final Thread producer;
+        private byte[] chunk = new byte[0];     // Chunk being read
+        private int position;                   // Next byte of chunk
+        private boolean ended;
+
+        DecompressedInputStream(InputStream file, boolean blocked) {
+            this.producer = new Thread(() -> produce(file, blocked), blocked ? "bgzf-reader" : "gzip-reader");
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        private void produce(InputStream file, boolean blocked) {
+            Throwable failure;
+            try (InputStream in = file) {
+                if (blocked) {
+                    splitBlocks(new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE)));
+                } else {
+                    inflateStream(new GZIPInputStream(in, BUFFER_SIZE));
+                }
+                queue.put(END);
+                return;
+            } catch (EOFException e) {
+                // GZIPInputStream gives no message when the file ends inside the gzip header
+                failure = e.getMessage() != null ? e
+                        : new EOFException("Truncated gzip file: it ends in the middle of the header");
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                return;     // The reader closed the stream
+            }
+
+            // Wait for room like any chunk: the reader blocks in take() until the error arrives
+            try {
+                queue.put(CompletableFuture.failedFuture(failure));
+            } catch (InterruptedException e) {
+                // The reader closed the stream
+            }
+        }
+
+        private void inflateStream(InputStream in) throws IOException, InterruptedException {
+            while (true) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n = in.readNBytes(buffer, 0, buffer.length);
+                if (n > 0) {
+                    queue.put(CompletableFuture.completedFuture(n == buffer.length ? buffer : Arrays.copyOf(buffer, n)));
+                }
+                if (n < buffer.length) {
+                    return;
+                }
+            }
+        }
+
+        private void splitBlocks(DataInputStream in) throws IOException, InterruptedException {
+            byte[] header = new byte[12];
+            while (true) {
+                int n = in.readNBytes(header, 0, header.length);
+                if (n == 0) {
+                    return;
+                }
+                if (n < header.length) {
+                    throw truncated();
+                }
+                if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || (header[3] & 4) == 0) {
+                    throw new IOException("Not a BGZF block");
+                }
+
+                byte[] extra = new byte[(header[10] & 0xff) | (header[11] & 0xff) << 8];
+                readBlockPart(in, extra);
+                int blockSize = -1;
+                for (int i = 0; i + 4 <= extra.length; i += 4 + ((extra[i + 2] & 0xff) | (extra[i + 3] & 0xff) << 8)) {
+                    if (extra[i] == 'B' && extra[i + 1] == 'C' && extra[i + 2] == 2 && i + 6 <= extra.length) {
+                        blockSize = ((extra[i + 4] & 0xff) | (extra[i + 5] & 0xff) << 8) + 1;
+                    }
+                }
+                if (blockSize < 0) {
+                    throw new IOException("Not a BGZF block (no BC field)");
+                }
+                if (blockSize < header.length + extra.length + BLOCK_FOOTER) {
+                    throw new IOException("Corrupt BGZF block: block size " + blockSize + " is too small");
+                }
+
+                byte[] body = new byte[blockSize - header.length - extra.length];
+                readBlockPart(in, body);
+                queue.put(CompletableFuture.supplyAsync(() -> inflateBlock(body)));
+            }
+        }
+
+        /**
+         * Read the rest of a block; the file must not end before it
+         */
+        private static void readBlockPart(DataInputStream in, byte[] bytes) throws IOException {
+            if (in.readNBytes(bytes, 0, bytes.length) < bytes.length) {
+                throw truncated();
+            }
+        }
+
+        private static IOException truncated() {
+            return new EOFException("Truncated BGZF file: it ends in the middle of a block");
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /**
+         * Make sure there is an unread byte in chunk
+         * @return false at the end of the data
+         */
+        private boolean fill() throws IOException {
+            while (position == chunk.length) {
+                if (ended) {
+                    return false;
+                }
+                CompletableFuture<byte[]> next;
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+                }
+                if (next == END) {
+                    ended = true;
+                    return false;
+                }
+                try {
+                    chunk = next.join();
+                } catch (CompletionException e) {
+                    ended = true;
+                    Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                    throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            ended = true;
+            producer.interrupt();   // Stops it if it waits for room in the queue; it closes the file
+            queue.clear();
+        }
+    }
+
+    /**
+     * Inflate one BGZF block body (compressed data, CRC32, ISIZE) and check its CRC
+     */
+    private static byte[] inflateBlock(byte[] body) {
+        int compressed = body.length - BLOCK_FOOTER;
+        int crc = readInt(body, compressed);
+        byte[] data = new byte[readInt(body, compressed + 4)];
+
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(body, 0, compressed);
+        try {
+            int n = 0;
+            while (n < data.length && !inflater.finished()) {
+                int inflated = inflater.inflate(data, n, data.length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != data.length) {
+                throw new EOFException("BGZF block is shorter than its recorded size");
+            }
+        } catch (DataFormatException | EOFException e) {
+            throw new UncheckedIOException(new IOException("Corrupt BGZF block: " + e.getMessage(), e));
+        }
+
+        CRC32 check = new CRC32();
+        check.update(data);
+        if ((int) check.getValue() != crc) {
+            throw new UncheckedIOException(new IOException("BGZF block CRC mismatch"));
+        }
+        return data;
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8 | (b[offset + 2] & 0xff) << 16 | (b[offset + 3] & 0xff) << 24;
+    }
+
+    /**
+     * BgzfOutputStream class: Writes BGZF, compressing blocks in parallel
+     * Full blocks are compressed on the common ForkJoinPool; at most QUEUED_CHUNKS are
+     * in flight, and they are written in order. close() adds the end-of-file block
+     */
+    private static class BgzfOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private byte[] buffer = new byte[BLOCK_INPUT];
+        private int length;                     // Used part of buffer
+        private boolean closed;
+
+        BgzfOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == buffer.length) {
+                submitBlock();
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (length == buffer.length) {
+                    submitBlock();
+                }
+                int n = Math.min(len, buffer.length - length);
+                System.arraycopy(b, off, buffer, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Write all data so far (a partly filled block becomes a short block)
+         */
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeOldest();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flush();
+                out.write(EOF_BLOCK);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void submitBlock() throws IOException {
+            byte[] data = buffer;
+            int size = length;
+            pending.add(CompletableFuture.supplyAsync(() -> deflateBlock(data, size)));
+            buffer = new byte[BLOCK_INPUT];     // The task owns the old one now
+            length = 0;
+            if (pending.size() > QUEUED_CHUNKS) {
+                writeOldest();
+            }
+        }
+
+        private void writeOldest() throws IOException {
+            try {
+                out.write(pending.poll().join());
+            } catch (CompletionException e) {
+                throw new IOException("Could not compress block", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Compress one BGZF block: gzip header with the BC field, raw deflate data, CRC32, ISIZE
+     */
+    private static byte[] deflateBlock(byte[] data, int length) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+
+        byte[] block = new byte[MAX_BLOCK];
+        int compressed = 0;
+        int room = MAX_BLOCK - BLOCK_HEADER - BLOCK_FOOTER;
+        while (!deflater.finished() && compressed < room) {
+            compressed += deflater.deflate(block, BLOCK_HEADER + compressed, room - compressed);
+        }
+        if (!deflater.finished()) {
+            throw new IllegalStateException("BGZF block does not fit in 64 KB");
+        }
+
+        int size = BLOCK_HEADER + compressed + BLOCK_FOOTER;
+        System.arraycopy(EOF_BLOCK, 0, block, 0, BLOCK_HEADER);
+        block[16] = (byte) (size - 1);          // BSIZE = block size - 1
+        block[17] = (byte) ((size - 1) >>> 8);
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(block, BLOCK_HEADER + compressed, (int) crc.getValue());
+        writeInt(block, BLOCK_HEADER + compressed + 4, length);
+        return Arrays.copyOf(block, size);
+    }
+
+    private static void writeInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+        b[offset + 2] = (byte) (value >>> 16);
+        b[offset + 3] = (byte) (value >>> 24);
+    }
+}
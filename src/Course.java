@@ -8,7 +8,10 @@ import java.util.List;
 public class Course {
     private String courseId;                            // Course ID
     private String courseName;                          // Course name
+    private String lowerCaseName;                       // Course name in lower case (keyword search of the course indexes)
     private List<CourseProfessor> professorList;        // All professors and their ratings for this course
+    private RatingWindow ratingWindow;                  // Ratings per day over recent days (all professors)
+    private RollupGroup[] rollupGroups;                 // Groups of this course in the rating rollup, one per RatingRollup.Key
 
     /**
      * Constructor
@@ -18,7 +21,9 @@ public class Course {
     public Course(String courseId, String courseName) {
         this.courseId = courseId;
         this.courseName = courseName;
+        this.lowerCaseName = courseName.toLowerCase();
         this.professorList = new ArrayList<>();
+        this.ratingWindow = new RatingWindow();
     }
 
     public String getCourseId() {
@@ -35,12 +40,55 @@ public class Course {
 
     public void setCourseName(String courseName) {
         this.courseName = courseName;
+        this.lowerCaseName = courseName.toLowerCase();
+    }
+
+    /**
+     * Get the course name in lower case (computed once, not on every keyword search)
+     */
+    public String getLowerCaseName() {
+        return lowerCaseName;
     }
 
     public List<CourseProfessor> getProfessorList() {
         return professorList;
     }
 
+    /**
+     * Get ratings per day over the last RatingWindow.DAYS days (updated by CourseProfessor.addRating)
+     */
+    public RatingWindow getRatingWindow() {
+        return ratingWindow;
+    }
+
+    RollupGroup[] getRollupGroups() {
+        return rollupGroups;
+    }
+
+    void setRollupGroups(RollupGroup[] rollupGroups) {
+        this.rollupGroups = rollupGroups;
+    }
+
+    /**
+     * Compact the professor list into an exact-size immutable list and every rating list into columns (frozen mode)
+     */
+    public void freeze() {
+        professorList = List.copyOf(professorList);
+        for (CourseProfessor cp : professorList) {
+            cp.freeze();
+        }
+    }
+
+    /**
+     * Turn the professor list and every rating list back into growable lists
+     */
+    public void thaw() {
+        professorList = new ArrayList<>(professorList);
+        for (CourseProfessor cp : professorList) {
+            cp.thaw();
+        }
+    }
+
     /**
      * Get or create CourseProfessor object
      * If the professor already exists in the list, return existing object; otherwise create new object and add to list
@@ -62,6 +110,15 @@ public class Course {
         return newCp;
     }
 
+    /**
+     * Remove a professor-course relationship (O(number of professors of this course))
+     * @param courseProfessor relationship to remove
+     */
+    public void removeCourseProfessor(CourseProfessor courseProfessor) {
+        professorList.remove(courseProfessor);
+        ratingWindow.removeAll(courseProfessor.getRatingWindow());
+    }
+
     /**
      * Calculate overall average rating for this course
      * @return average rating
@@ -75,15 +132,25 @@ public class Course {
         int totalCount = 0;
 
         for (CourseProfessor cp : professorList) {
-            for (Rating rating : cp.getRatings()) {
-                totalScore += rating.getScore();
-                totalCount++;
-            }
+            totalScore += cp.getTotalScore();
+            totalCount += cp.getRatingCount();
         }
 
         return totalCount > 0 ? totalScore / totalCount : 0.0;
     }
 
+    /**
+     * Count all ratings of this course
+     * @return number of ratings
+     */
+    public int getRatingCount() {
+        int count = 0;
+        for (CourseProfessor cp : professorList) {
+            count += cp.getRatingCount();
+        }
+        return count;
+    }
+
     @Override
     public String toString() {
         return String.format("[%s] %s - Average: %.2f", 
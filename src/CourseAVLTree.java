@@ -1,17 +1,31 @@
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
 
 /**
  * AVL tree node class
+ * Sort keys are computed once on insert, so comparisons never fold case again
  */
 class AVLNode {
-    Course course;          // Stored course object
-    AVLNode left;           // Left child node
-    AVLNode right;          // Right child node
-    int height;             // Node height
-
-    public AVLNode(Course course) {
+    Course course;                  // Stored course object
+    String key;                     // Case-folded course name (sort key without a collator)
+    CollationKey collationKey;      // Sort key with a collator, otherwise null
+    String lowerName;               // Lower case course name for keyword search
+    AVLNode left;                   // Left child node
+    AVLNode right;                  // Right child node
+    int height;                     // Node height
+
+    public AVLNode(Course course, String key, CollationKey collationKey) {
         this.course = course;
+        this.key = key;
+        this.collationKey = collationKey;
+        this.lowerName = course.getLowerCaseName();
         this.left = null;
         this.right = null;
         this.height = 1;
@@ -20,13 +34,50 @@ class AVLNode {
 
 /**
  * CourseAVLTree class: Uses AVL tree to store courses
- * Sorted by course name alphabetically, supports fast lookup
+ * Sorted by course name alphabetically, supports fast lookup.
+ * By default names are compared case-insensitively by their case-folded form,
+ * which gives the same order as compareToIgnoreCase (and the other indexes).
+ * With -Drating.collation=<language tag> (e.g. "de", "fr-CA") names are ordered
+ * by that locale's Collator instead, ignoring case but not accents
  */
-public class CourseAVLTree {
+public class CourseAVLTree implements CourseIndex {
+    static final String COLLATION = System.getProperty("rating.collation", "");     // Only the AVL tree supports it (see CourseIndex.create)
+
     private AVLNode root;
+    private final Collator collator;    // Locale-aware ordering, null = case folding
+    private boolean deleted;            // Set by deleteNode: true if the course was found and removed
 
+    /**
+     * Constructor
+     * Uses the collation configured by the "rating.collation" system property (default: none)
+     */
     public CourseAVLTree() {
+        this(COLLATION.isEmpty() ? null : Locale.forLanguageTag(COLLATION));
+    }
+
+    /**
+     * Constructor
+     * @param collationLocale order names with this locale's Collator, or null for case folding
+     */
+    public CourseAVLTree(Locale collationLocale) {
         this.root = null;
+        if (collationLocale == null) {
+            this.collator = null;
+        } else {
+            this.collator = Collator.getInstance(collationLocale);
+            this.collator.setStrength(Collator.SECONDARY);      // Ignore case differences
+        }
+    }
+
+    private CollationKey collationKey(String name) {
+        return collator == null ? null : collator.getCollationKey(name);
+    }
+
+    /**
+     * Compare a search key with a node's key (no allocation)
+     */
+    private static int compare(String key, CollationKey collationKey, AVLNode node) {
+        return collationKey != null ? collationKey.compareTo(node.collationKey) : key.compareTo(node.key);
     }
 
     /**
@@ -92,114 +143,176 @@ public class CourseAVLTree {
      * Insert course
      * Sorted by course name in lexicographic order
      */
+    @Override
     public void insert(Course course) {
-        root = insertNode(root, course);
+        String name = course.getCourseName();
+        root = insertNode(root, new AVLNode(course, CourseIndex.foldCase(name), collationKey(name)));
     }
 
-    private AVLNode insertNode(AVLNode node, Course course) {
+    private AVLNode insertNode(AVLNode node, AVLNode fresh) {
         // Standard BST insertion
         if (node == null) {
-            return new AVLNode(course);
+            return fresh;
         }
 
-        int cmp = course.getCourseName().compareToIgnoreCase(node.course.getCourseName());
-        
+        int cmp = compare(fresh.key, fresh.collationKey, node);
+
         if (cmp < 0) {
-            node.left = insertNode(node.left, course);
+            node.left = insertNode(node.left, fresh);
         } else if (cmp > 0) {
-            node.right = insertNode(node.right, course);
+            node.right = insertNode(node.right, fresh);
         } else {
             // Same course name, do not insert
             return node;
         }
 
-        // Update height
-        updateHeight(node);
+        // Update height and fix the Left-Left / Right-Right / Left-Right / Right-Left cases
+        return rebalance(node);
+    }
 
-        // Get balance factor
+    /**
+     * Rebalance a node whose subtrees changed height by at most one (after an insert or delete)
+     * The case is chosen from the child's balance factor, so no names are compared
+     */
+    private AVLNode rebalance(AVLNode node) {
+        updateHeight(node);
         int balance = getBalance(node);
 
-        // Left-Left case
-        if (balance > 1 && course.getCourseName().compareToIgnoreCase(node.left.course.getCourseName()) < 0) {
+        if (balance > 1) {
+            // Left-Right case
+            if (getBalance(node.left) < 0) {
+                node.left = rotateLeft(node.left);
+            }
+            // Left-Left case
             return rotateRight(node);
         }
 
-        // Right-Right case
-        if (balance < -1 && course.getCourseName().compareToIgnoreCase(node.right.course.getCourseName()) > 0) {
+        if (balance < -1) {
+            // Right-Left case
+            if (getBalance(node.right) > 0) {
+                node.right = rotateRight(node.right);
+            }
+            // Right-Right case
             return rotateLeft(node);
         }
 
-        // Left-Right case
-        if (balance > 1 && course.getCourseName().compareToIgnoreCase(node.left.course.getCourseName()) > 0) {
-            node.left = rotateLeft(node.left);
-            return rotateRight(node);
+        return node;
+    }
+
+    /**
+     * Delete course, O(log n) with rebalancing on the way back up
+     */
+    @Override
+    public boolean delete(Course course) {
+        String name = course.getCourseName();
+        deleted = false;
+        root = deleteNode(root, course, CourseIndex.foldCase(name), collationKey(name));
+        return deleted;
+    }
+
+    private AVLNode deleteNode(AVLNode node, Course course, String key, CollationKey collationKey) {
+        if (node == null) {
+            return null;
         }
 
-        // Right-Left case
-        if (balance < -1 && course.getCourseName().compareToIgnoreCase(node.right.course.getCourseName()) < 0) {
-            node.right = rotateRight(node.right);
-            return rotateLeft(node);
+        int cmp = compare(key, collationKey, node);
+
+        if (cmp < 0) {
+            node.left = deleteNode(node.left, course, key, collationKey);
+        } else if (cmp > 0) {
+            node.right = deleteNode(node.right, course, key, collationKey);
+        } else {
+            if (node.course != course) {
+                // Another course with the same name is stored here
+                return node;
+            }
+            deleted = true;
+
+            // Zero or one child: replace the node by its child
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+
+            // Two children: take over the inorder successor, then delete it from the right subtree
+            AVLNode successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.course = successor.course;
+            node.key = successor.key;
+            node.collationKey = successor.collationKey;
+            node.lowerName = successor.lowerName;
+            node.right = deleteMin(node.right);
         }
 
-        return node;
+        return rebalance(node);
+    }
+
+    /**
+     * Remove the leftmost node of a subtree
+     */
+    private AVLNode deleteMin(AVLNode node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
     }
 
     /**
      * Search by course name keyword
-     * Utilizes AVL tree ordering for optimized lookup
+     * Traverses the whole tree (a keyword can appear anywhere in a name)
      */
+    @Override
     public List<Course> searchByName(String keyword) {
         List<Course> results = new ArrayList<>();
         String lowerKeyword = keyword.toLowerCase();
-        searchByNameHelper(root, lowerKeyword, results);
+        int visited = searchByNameHelper(root, lowerKeyword, results);
+        RatingSystemMetrics.SEARCH_BY_NAME.addNodesScanned(visited);
         return results;
     }
 
-    private void searchByNameHelper(AVLNode node, String keyword, List<Course> results) {
+    /**
+     * @return number of nodes visited
+     */
+    private int searchByNameHelper(AVLNode node, String keyword, List<Course> results) {
         if (node == null) {
-            return;
+            return 0;
         }
 
-        String courseName = node.course.getCourseName().toLowerCase();
-        
-        // If current course name contains keyword, add to results
-        if (courseName.contains(keyword)) {
+        // A keyword may appear anywhere in a name, so name ordering cannot prune
+        // subtrees: visit every node, inorder so results stay sorted by name
+        int visited = 1 + searchByNameHelper(node.left, keyword, results);
+
+        if (node.lowerName.contains(keyword)) {
             results.add(node.course);
         }
 
-        // Prune using AVL tree ordering
-        // If keyword is less than current node course name, may be in left subtree
-        if (keyword.compareTo(courseName) <= 0 || courseName.contains(keyword) || keyword.length() < courseName.length()) {
-            searchByNameHelper(node.left, keyword, results);
-        }
-        
-        // If keyword is greater than current node course name, may be in right subtree
-        if (keyword.compareTo(courseName) >= 0 || courseName.contains(keyword) || keyword.length() < courseName.length()) {
-            searchByNameHelper(node.right, keyword, results);
-        }
+        return visited + searchByNameHelper(node.right, keyword, results);
     }
 
     /**
      * Search by exact course name
      */
+    @Override
     public Course searchByExactName(String courseName) {
-        return searchByExactNameHelper(root, courseName);
-    }
-
-    private Course searchByExactNameHelper(AVLNode node, String courseName) {
-        if (node == null) {
-            return null;
+        String key = CourseIndex.foldCase(courseName);
+        CollationKey collationKey = collationKey(courseName);
+        AVLNode node = root;
+        int visited = 0;
+
+        while (node != null) {
+            visited++;
+            int cmp = compare(key, collationKey, node);
+
+            if (cmp == 0) {
+                break;
+            }
+            node = cmp < 0 ? node.left : node.right;
         }
 
-        int cmp = courseName.compareToIgnoreCase(node.course.getCourseName());
-        
-        if (cmp == 0) {
-            return node.course;
-        } else if (cmp < 0) {
-            return searchByExactNameHelper(node.left, courseName);
-        } else {
-            return searchByExactNameHelper(node.right, courseName);
-        }
+        RatingSystemMetrics.SEARCH_BY_EXACT_NAME.addNodesScanned(visited);
+        return node == null ? null : node.course;
     }
 
     /**
@@ -232,6 +345,7 @@ public class CourseAVLTree {
     /**
      * Inorder traversal to get all courses (sorted by name)
      */
+    @Override
     public List<Course> getAllCoursesSorted() {
         List<Course> courses = new ArrayList<>();
         inorderTraversal(root, courses);
@@ -246,40 +360,118 @@ public class CourseAVLTree {
         }
     }
 
+    /**
+     * Name order of this tree: by its collator if it has one
+     */
+    @Override
+    public Comparator<Course> nameOrder() {
+        if (collator == null) {
+            return CourseIndex.super.nameOrder();
+        }
+        Collator copy = (Collator) collator.clone();     // Collators are not meant to be shared across threads
+        return (a, b) -> copy.compare(a.getCourseName(), b.getCourseName());
+    }
+
+    /**
+     * Frozen copy that keeps this tree's sort keys, so it stays in collation order
+     */
+    @Override
+    public CourseIndex freeze() {
+        List<AVLNode> nodes = new ArrayList<>();
+        collectNodes(root, nodes);
+
+        int n = nodes.size();
+        Course[] courses = new Course[n];
+        String[] keys = new String[n];
+        CollationKey[] collationKeys = collator == null ? null : new CollationKey[n];
+        String[] lowerNames = new String[n];
+        for (int i = 0; i < n; i++) {
+            AVLNode node = nodes.get(i);
+            courses[i] = node.course;
+            keys[i] = node.key;
+            if (collationKeys != null) {
+                collationKeys[i] = node.collationKey;
+            }
+            lowerNames[i] = node.lowerName;
+        }
+        return new FrozenCourseIndex(courses, keys, collationKeys, collator, lowerNames);
+    }
+
+    private void collectNodes(AVLNode node, List<AVLNode> nodes) {
+        if (node != null) {
+            collectNodes(node.left, nodes);
+            nodes.add(node);
+            collectNodes(node.right, nodes);
+        }
+    }
+
+    /**
+     * Inorder traversal that stops as soon as the visitor returns false
+     * Iterative, so only the path to the current node is kept (O(log n) extra space)
+     */
+    @Override
+    public void scanSorted(Predicate<Course> visitor) {
+        Deque<AVLNode> path = new ArrayDeque<>();
+        AVLNode node = root;
+
+        while (node != null || !path.isEmpty()) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            if (!visitor.test(node.course)) {
+                return;
+            }
+            node = node.right;
+        }
+    }
+
     /**
      * Search all courses by first letter
+     * Folded first letters are ordered like the keys, so subtrees outside the letter
+     * are pruned; a collator orders differently, so then every node is visited
      */
+    @Override
     public List<Course> searchByFirstLetter(char letter) {
         List<Course> results = new ArrayList<>();
-        char lowerLetter = Character.toLowerCase(letter);
-        searchByFirstLetterHelper(root, lowerLetter, results);
+        int visited = searchByFirstLetterHelper(root, CourseIndex.foldChar(letter), results);
+        RatingSystemMetrics.SEARCH_BY_FIRST_LETTER.addNodesScanned(visited);
         return results;
     }
 
-    private void searchByFirstLetterHelper(AVLNode node, char letter, List<Course> results) {
+    /**
+     * @return number of nodes visited
+     */
+    private int searchByFirstLetterHelper(AVLNode node, char letter, List<Course> results) {
         if (node == null) {
-            return;
+            return 0;
+        }
+        int visited = 1;
+
+        char firstChar = node.key.charAt(0);
+        boolean prune = collator == null;
+
+        // Prune using AVL tree ordering
+        if (letter <= firstChar || !prune) {
+            visited += searchByFirstLetterHelper(node.left, letter, results);
         }
 
-        char firstChar = Character.toLowerCase(node.course.getCourseName().charAt(0));
-        
-        // If first letter matches, add to results
+        // If first letter matches, add to results (inorder, so results stay sorted by name)
         if (firstChar == letter) {
             results.add(node.course);
         }
 
-        // Prune using AVL tree ordering
-        if (letter <= firstChar) {
-            searchByFirstLetterHelper(node.left, letter, results);
-        }
-        if (letter >= firstChar) {
-            searchByFirstLetterHelper(node.right, letter, results);
+        if (letter >= firstChar || !prune) {
+            visited += searchByFirstLetterHelper(node.right, letter, results);
         }
+        return visited;
     }
 
     /**
      * Get number of courses in tree
      */
+    @Override
     public int size() {
         return sizeHelper(root);
     }
@@ -294,6 +486,7 @@ public class CourseAVLTree {
     /**
      * Check if tree is empty
      */
+    @Override
     public boolean isEmpty() {
         return root == null;
     }
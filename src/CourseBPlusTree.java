@@ -0,0 +1,467 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * B+ tree node class
+ * Internal nodes hold separator keys and children; leaves hold courses and
+ * are linked left to right for range scans
+ */
+class BPlusNode {
+    boolean leaf;           // True for leaf nodes
+    int count;              // Number of keys in use
+    String[] keys;          // Leaf: case-folded course names; internal: first key of each right subtree
+    Course[] courses;       // Leaf only: courses, same order as keys
+    BPlusNode[] children;   // Internal only: count + 1 children
+    BPlusNode next;         // Leaf only: next leaf to the right
+
+    public BPlusNode(boolean leaf) {
+        this.leaf = leaf;
+        this.count = 0;
+        // One extra slot so a node may overflow briefly before it is split
+        this.keys = new String[CourseBPlusTree.MAX_KEYS + 1];
+        if (leaf) {
+            this.courses = new Course[CourseBPlusTree.MAX_KEYS + 1];
+        } else {
+            this.children = new BPlusNode[CourseBPlusTree.MAX_KEYS + 2];
+        }
+    }
+}
+
+/**
+ * CourseBPlusTree class: Uses a B+ tree to store courses
+ * Sorted by course name alphabetically (case-insensitive). Wide nodes keep the
+ * tree shallow and each node's keys contiguous in memory; linked leaves make
+ * sorted traversal and first-letter range scans a sequential walk.
+ * Deletion keeps every node but the root at least half full: an underfull
+ * node borrows from a sibling or is merged into it, and a root left with a
+ * single child is removed, so the tree shrinks as it grows.
+ * Keys are case-folded names (CourseIndex.foldCase), folded once per insert or
+ * lookup instead of on every comparison; no collation (see CourseIndex.create)
+ */
+public class CourseBPlusTree implements CourseIndex {
+    static final int MAX_KEYS = 64;     // Maximum keys per node
+    static final int MIN_KEYS = MAX_KEYS / 2;   // Minimum keys per node except the root
+
+    private BPlusNode root;
+    private int size;
+    private boolean inserted;           // Set by insertNode: false if the name already existed
+    private String promoted;            // Set by the split methods: separator key for the new right node
+
+    public CourseBPlusTree() {
+        this.root = new BPlusNode(true);
+        this.size = 0;
+    }
+
+    /**
+     * Compare case-folded names (same order as the AVL tree without a collator)
+     */
+    private static int compare(String a, String b) {
+        return a.compareTo(b);
+    }
+
+    /**
+     * Find the child to descend into for a key
+     * Child i holds keys in [keys[i - 1], keys[i])
+     */
+    private static int childIndex(BPlusNode node, String key) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(node.keys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the first key position in a leaf that is not less than the key
+     */
+    private static int lowerBound(BPlusNode leaf, String key) {
+        int low = 0;
+        int high = leaf.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(leaf.keys[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Insert course
+     * Sorted by course name in lexicographic order
+     */
+    @Override
+    public void insert(Course course) {
+        inserted = false;
+        BPlusNode right = insertNode(root, course, CourseIndex.foldCase(course.getCourseName()));
+
+        // Root was split: grow the tree by one level
+        if (right != null) {
+            BPlusNode newRoot = new BPlusNode(false);
+            newRoot.keys[0] = promoted;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        if (inserted) {
+            size++;
+        }
+    }
+
+    /**
+     * Insert into a subtree
+     * @return new right sibling if the node was split, otherwise null
+     */
+    private BPlusNode insertNode(BPlusNode node, Course course, String key) {
+        if (node.leaf) {
+            int pos = lowerBound(node, key);
+            if (pos < node.count && compare(node.keys[pos], key) == 0) {
+                // Same course name, do not insert
+                return null;
+            }
+
+            System.arraycopy(node.keys, pos, node.keys, pos + 1, node.count - pos);
+            System.arraycopy(node.courses, pos, node.courses, pos + 1, node.count - pos);
+            node.keys[pos] = key;
+            node.courses[pos] = course;
+            node.count++;
+            inserted = true;
+
+            return node.count > MAX_KEYS ? splitLeaf(node) : null;
+        }
+
+        int index = childIndex(node, key);
+        BPlusNode right = insertNode(node.children[index], course, key);
+        if (right == null) {
+            return null;
+        }
+
+        // Add separator and new child right after the child that was split
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+        node.keys[index] = promoted;
+        node.children[index + 1] = right;
+        node.count++;
+
+        return node.count > MAX_KEYS ? splitInternal(node) : null;
+    }
+
+    /**
+     * Split a full leaf, moving the upper half into a new right leaf
+     */
+    private BPlusNode splitLeaf(BPlusNode leaf) {
+        BPlusNode right = new BPlusNode(true);
+        int half = leaf.count / 2;
+        int moved = leaf.count - half;
+
+        System.arraycopy(leaf.keys, half, right.keys, 0, moved);
+        System.arraycopy(leaf.courses, half, right.courses, 0, moved);
+        for (int i = half; i < leaf.count; i++) {
+            leaf.keys[i] = null;
+            leaf.courses[i] = null;
+        }
+        right.count = moved;
+        leaf.count = half;
+
+        right.next = leaf.next;
+        leaf.next = right;
+        promoted = right.keys[0];
+        return right;
+    }
+
+    /**
+     * Split a full internal node; the middle key moves up to the parent
+     */
+    private BPlusNode splitInternal(BPlusNode node) {
+        BPlusNode right = new BPlusNode(false);
+        int mid = node.count / 2;
+        int moved = node.count - mid - 1;
+        promoted = node.keys[mid];
+
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, moved);
+        System.arraycopy(node.children, mid + 1, right.children, 0, moved + 1);
+        for (int i = mid; i < node.count; i++) {
+            node.keys[i] = null;
+            node.children[i + 1] = null;
+        }
+        right.count = moved;
+        node.count = mid;
+        return right;
+    }
+
+    /**
+     * Find the leaf that would contain a key
+     */
+    private BPlusNode findLeaf(String key) {
+        BPlusNode node = root;
+        while (!node.leaf) {
+            node = node.children[childIndex(node, key)];
+        }
+        return node;
+    }
+
+    /**
+     * Leftmost leaf (start of the sorted leaf chain)
+     */
+    private BPlusNode firstLeaf() {
+        BPlusNode node = root;
+        while (!node.leaf) {
+            node = node.children[0];
+        }
+        return node;
+    }
+
+    /**
+     * Delete course, O(log n)
+     * Underfull nodes on the path are rebalanced; a root left with one child is removed
+     */
+    @Override
+    public boolean delete(Course course) {
+        if (!deleteNode(root, course, CourseIndex.foldCase(course.getCourseName()))) {
+            return false;
+        }
+        if (!root.leaf && root.count == 0) {
+            root = root.children[0];
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Delete from a subtree, rebalancing the child it descended into if that became underfull
+     * @return false if the course was not found
+     */
+    private boolean deleteNode(BPlusNode node, Course course, String key) {
+        if (node.leaf) {
+            int pos = lowerBound(node, key);
+            if (pos == node.count || node.courses[pos] != course) {
+                return false;
+            }
+            System.arraycopy(node.keys, pos + 1, node.keys, pos, node.count - pos - 1);
+            System.arraycopy(node.courses, pos + 1, node.courses, pos, node.count - pos - 1);
+            node.count--;
+            node.keys[node.count] = null;
+            node.courses[node.count] = null;
+            return true;
+        }
+
+        int index = childIndex(node, key);
+        if (!deleteNode(node.children[index], course, key)) {
+            return false;
+        }
+        if (node.children[index].count < MIN_KEYS) {
+            rebalance(node, index);
+        }
+        return true;
+    }
+
+    /**
+     * Fix an underfull child: borrow one entry from a sibling that has more than
+     * MIN_KEYS, otherwise merge the child with a sibling
+     */
+    private void rebalance(BPlusNode parent, int index) {
+        BPlusNode child = parent.children[index];
+        BPlusNode left = index > 0 ? parent.children[index - 1] : null;
+        BPlusNode right = index < parent.count ? parent.children[index + 1] : null;
+
+        if (left != null && left.count > MIN_KEYS) {
+            borrowFromLeft(parent, index - 1, left, child);
+        } else if (right != null && right.count > MIN_KEYS) {
+            borrowFromRight(parent, index, child, right);
+        } else if (left != null) {
+            merge(parent, index - 1, left, child);
+        } else if (right != null) {
+            merge(parent, index, child, right);
+        }
+    }
+
+    /**
+     * Move the last entry of left to the front of right
+     * @param sep index of the separator between left and right in the parent
+     */
+    private void borrowFromLeft(BPlusNode parent, int sep, BPlusNode left, BPlusNode right) {
+        System.arraycopy(right.keys, 0, right.keys, 1, right.count);
+        if (right.leaf) {
+            System.arraycopy(right.courses, 0, right.courses, 1, right.count);
+            right.keys[0] = left.keys[left.count - 1];
+            right.courses[0] = left.courses[left.count - 1];
+            left.courses[left.count - 1] = null;
+            parent.keys[sep] = right.keys[0];
+        } else {
+            // The separator comes down, the last key of left goes up
+            System.arraycopy(right.children, 0, right.children, 1, right.count + 1);
+            right.keys[0] = parent.keys[sep];
+            right.children[0] = left.children[left.count];
+            left.children[left.count] = null;
+            parent.keys[sep] = left.keys[left.count - 1];
+        }
+        left.keys[left.count - 1] = null;
+        left.count--;
+        right.count++;
+    }
+
+    /**
+     * Move the first entry of right to the end of left
+     * @param sep index of the separator between left and right in the parent
+     */
+    private void borrowFromRight(BPlusNode parent, int sep, BPlusNode left, BPlusNode right) {
+        if (left.leaf) {
+            left.keys[left.count] = right.keys[0];
+            left.courses[left.count] = right.courses[0];
+            System.arraycopy(right.courses, 1, right.courses, 0, right.count - 1);
+            right.courses[right.count - 1] = null;
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            parent.keys[sep] = right.keys[0];
+        } else {
+            // The separator comes down, the first key of right goes up
+            left.keys[left.count] = parent.keys[sep];
+            left.children[left.count + 1] = right.children[0];
+            parent.keys[sep] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.count);
+            right.children[right.count] = null;
+        }
+        right.keys[right.count - 1] = null;
+        right.count--;
+        left.count++;
+    }
+
+    /**
+     * Append right to left and remove right and its separator from the parent
+     * Both together fit in one node: one of them is underfull, the other has at most MIN_KEYS
+     * @param sep index of the separator between left and right in the parent
+     */
+    private void merge(BPlusNode parent, int sep, BPlusNode left, BPlusNode right) {
+        if (left.leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            System.arraycopy(right.courses, 0, left.courses, left.count, right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            // The separator comes down between the two halves
+            left.keys[left.count] = parent.keys[sep];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+
+        System.arraycopy(parent.keys, sep + 1, parent.keys, sep, parent.count - sep - 1);
+        System.arraycopy(parent.children, sep + 2, parent.children, sep + 1, parent.count - sep - 1);
+        parent.count--;
+        parent.keys[parent.count] = null;
+        parent.children[parent.count + 1] = null;
+    }
+
+    /**
+     * Search by course name keyword
+     * A keyword can appear anywhere in a name, so the leaf chain is scanned
+     */
+    @Override
+    public List<Course> searchByName(String keyword) {
+        List<Course> results = new ArrayList<>();
+        String lowerKeyword = keyword.toLowerCase();
+
+        for (BPlusNode leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (leaf.courses[i].getLowerCaseName().contains(lowerKeyword)) {
+                    results.add(leaf.courses[i]);
+                }
+            }
+        }
+        RatingSystemMetrics.SEARCH_BY_NAME.addNodesScanned(size);
+        return results;
+    }
+
+    /**
+     * Search by exact course name
+     */
+    @Override
+    public Course searchByExactName(String courseName) {
+        String key = CourseIndex.foldCase(courseName);
+        BPlusNode leaf = findLeaf(key);
+        int pos = lowerBound(leaf, key);
+        if (pos < leaf.count && compare(leaf.keys[pos], key) == 0) {
+            return leaf.courses[pos];
+        }
+        return null;
+    }
+
+    /**
+     * Search all courses by first letter
+     * Descends to the first candidate, then scans right along the leaf chain
+     */
+    @Override
+    public List<Course> searchByFirstLetter(char letter) {
+        List<Course> results = new ArrayList<>();
+        char folded = CourseIndex.foldChar(letter);
+        String start = String.valueOf(folded);
+
+        BPlusNode leaf = findLeaf(start);
+        int pos = lowerBound(leaf, start);
+        while (leaf != null) {
+            for (; pos < leaf.count; pos++) {
+                if (leaf.keys[pos].charAt(0) != folded) {
+                    return results;
+                }
+                results.add(leaf.courses[pos]);
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return results;
+    }
+
+    /**
+     * Get all courses sorted by name (walks the leaf chain)
+     */
+    @Override
+    public List<Course> getAllCoursesSorted() {
+        List<Course> courses = new ArrayList<>(size);
+        for (BPlusNode leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                courses.add(leaf.courses[i]);
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Walk the leaf chain until the visitor returns false
+     */
+    @Override
+    public void scanSorted(Predicate<Course> visitor) {
+        for (BPlusNode leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (!visitor.test(leaf.courses[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get number of courses in tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if tree is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * CourseIndex interface: Course storage sorted by course name (case-insensitive)
+ * RatingSystem uses it for all name-based lookups; courses with the same name
+ * (ignoring case) are only stored once. Implementations:
+ *   - "avl"      CourseAVLTree       (self-balancing binary tree, the default)
+ *   - "bplus"    CourseBPlusTree     (wide nodes, linked leaves for range scans)
+ *   - "skiplist" CourseSkipList      (concurrent skip list)
+ *   - FrozenCourseIndex             (read-only sorted arrays, built by freeze())
+ * Names are compared by their case-folded form (foldCase), computed once per name.
+ * Only the AVL tree can order by a locale's Collator (-Drating.collation): create()
+ * refuses the other types then, so every index of a run orders names the same way
+ */
+public interface CourseIndex {
+
+    /**
+     * Insert course (ignored if a course with the same name already exists)
+     */
+    void insert(Course course);
+
+    /**
+     * Delete course (only if it is the course stored under its name)
+     * @return true if the course was removed
+     */
+    boolean delete(Course course);
+
+    /**
+     * Search by course name keyword (case-insensitive, anywhere in the name)
+     * @return matching courses sorted by name
+     */
+    List<Course> searchByName(String keyword);
+
+    /**
+     * Search by exact course name (case-insensitive)
+     * @return course, null if not found
+     */
+    Course searchByExactName(String courseName);
+
+    /**
+     * Search all courses by first letter (case-insensitive)
+     * @return matching courses sorted by name
+     */
+    List<Course> searchByFirstLetter(char letter);
+
+    /**
+     * Get all courses sorted by name
+     */
+    List<Course> getAllCoursesSorted();
+
+    /**
+     * Visit courses in name order until the visitor returns false
+     * Lets a caller that needs only the first few matches stop early
+     * (the default walks a full getAllCoursesSorted() copy)
+     * @param visitor called for each course; returns false to stop
+     */
+    default void scanSorted(Predicate<Course> visitor) {
+        for (Course course : getAllCoursesSorted()) {
+            if (!visitor.test(course)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get number of courses
+     */
+    int size();
+
+    /**
+     * Check if index is empty
+     */
+    boolean isEmpty();
+
+    /**
+     * Order of the sorted results of this index, for merging the results of several
+     * indexes (see ShardedRatingSystem): case-insensitive by name unless the index
+     * orders by a collator
+     */
+    default Comparator<Course> nameOrder() {
+        return (a, b) -> a.getCourseName().compareToIgnoreCase(b.getCourseName());
+    }
+
+    /**
+     * Build a read-only copy (see RatingSystem.freeze()) that orders and finds
+     * courses exactly like this index
+     */
+    default CourseIndex freeze() {
+        return new FrozenCourseIndex(getAllCoursesSorted());
+    }
+
+    /**
+     * Fold a name for case-insensitive comparison
+     * key(a).compareTo(key(b)) has the same sign as a.compareToIgnoreCase(b),
+     * but folding is done once per name instead of on every comparison
+     * @return folded name (the name itself if it is already folded)
+     */
+    static String foldCase(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (foldChar(c) != c) {
+                char[] folded = name.toCharArray();
+                for (int j = i; j < folded.length; j++) {
+                    folded[j] = foldChar(folded[j]);
+                }
+                return new String(folded);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Fold one character the way compareToIgnoreCase does
+     */
+    static char foldChar(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Create an empty index
+     * @param type "avl", "bplus" or "skiplist"
+     * @return new index
+     * @throws IllegalArgumentException for an unknown type, or for "bplus" / "skiplist"
+     *         when -Drating.collation is set (they only order by case folding)
+     */
+    static CourseIndex create(String type) {
+        String lowerType = type.toLowerCase();
+        if (!lowerType.equals("avl") && !CourseAVLTree.COLLATION.isEmpty()) {
+            throw new IllegalArgumentException("Course index type " + type + " does not support -Drating.collation="
+                                               + CourseAVLTree.COLLATION + ", use -Drating.index=avl");
+        }
+        switch (lowerType) {
+            case "avl":
+                return new CourseAVLTree();
+            case "bplus":
+                return new CourseBPlusTree();
+            case "skiplist":
+                return new CourseSkipList();
+            default:
+                throw new IllegalArgumentException("Unknown course index type: " + type);
+        }
+    }
+}
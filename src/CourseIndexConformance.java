@@ -0,0 +1,329 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * CourseIndexConformance class: One conformance suite for every CourseIndex
+ * Runs the same random sequence of operations on each implementation and
+ * checks every answer against a reference model (a TreeMap keyed by the
+ * case-folded name, i.e. compareToIgnoreCase order):
+ *   - insert (new names, and other spellings of stored names, which are ignored)
+ *   - delete (stored courses, and courses that only share a stored name, which are not removed)
+ *   - exact, keyword and first-letter search, prefix scans through scanSorted
+ *     (stopping early), inorder traversal, size and isEmpty
+ * FrozenCourseIndex is built from each final mutable index and checked with the
+ * same read operations; its insert and delete must throw.
+ * The AVL tree is tested with case folding: with -Drating.collation it orders
+ * names by that locale instead, which the model does not follow. A collated AVL
+ * tree is checked against its own frozen copy instead, which must keep its order.
+ *
+ * Usage: java CourseIndexConformance [operations] [seed]
+ * Prints PASS or the first mismatch per implementation; exit status 1 on any failure
+ */
+public class CourseIndexConformance {
+    private static final String LETTERS = "abcdeABCDE éÉ";      // Few letters: many shared prefixes and case variants
+    private static final int FULL_CHECK_INTERVAL = 500;         // Operations between full comparisons
+
+    private final Random random;
+    private final TreeMap<String, Course> model = new TreeMap<>();  // Folded name -> stored course
+    private final List<Course> created = new ArrayList<>();         // Every course built so far
+    private int nextId;
+
+    private CourseIndexConformance(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Run the operations on one index
+     * @throws IllegalStateException at the first answer that differs from the model
+     */
+    private void run(CourseIndex index, int operations) {
+        for (int op = 1; op <= operations; op++) {
+            int kind = random.nextInt(100);
+            if (kind < 40) {
+                Course course = newCourse();
+                index.insert(course);
+                model.putIfAbsent(key(course), course);
+            } else if (kind < 60) {
+                Course course = pickCreated();
+                if (course != null) {
+                    boolean expected = model.get(key(course)) == course;
+                    check(index.delete(course) == expected, "delete(" + course.getCourseName() + ") != " + expected);
+                    if (expected) {
+                        model.remove(key(course));
+                    }
+                }
+            } else {
+                checkRead(index);
+            }
+            if (op % FULL_CHECK_INTERVAL == 0) {
+                checkAll(index);
+            }
+        }
+        checkAll(index);
+    }
+
+    /**
+     * Check one random read operation
+     */
+    private void checkRead(CourseIndex index) {
+        String name = randomName();
+        switch (random.nextInt(5)) {
+            case 0:
+                check(index.searchByExactName(name) == model.get(CourseIndex.foldCase(name)),
+                      "searchByExactName(" + name + ")");
+                break;
+            case 1:
+                String keyword = name.substring(0, 1 + random.nextInt(Math.min(3, name.length())));
+                checkSame(index.searchByName(keyword), expectedKeyword(keyword), "searchByName(" + keyword + ")");
+                break;
+            case 2:
+                char letter = name.charAt(0);
+                checkSame(index.searchByFirstLetter(letter), expectedFirstLetter(letter),
+                          "searchByFirstLetter(" + letter + ")");
+                break;
+            case 3:
+                String prefix = name.substring(0, Math.min(2, name.length()));
+                int limit = 1 + random.nextInt(5);
+                checkSame(scanPrefix(index, prefix, limit), expectedPrefix(prefix, limit),
+                          "scanSorted prefix " + prefix + " limit " + limit);
+                break;
+            default:
+                check(index.size() == model.size(), "size() " + index.size() + " != " + model.size());
+                check(index.isEmpty() == model.isEmpty(), "isEmpty()");
+        }
+    }
+
+    /**
+     * Compare everything: traversal, size and a search for every stored name
+     */
+    private void checkAll(CourseIndex index) {
+        checkSame(index.getAllCoursesSorted(), new ArrayList<>(model.values()), "getAllCoursesSorted()");
+        check(index.size() == model.size(), "size() " + index.size() + " != " + model.size());
+        check(index.isEmpty() == model.isEmpty(), "isEmpty()");
+        for (Course course : model.values()) {
+            check(index.searchByExactName(course.getCourseName().toUpperCase()) == course,
+                  "searchByExactName(" + course.getCourseName().toUpperCase() + ")");
+        }
+    }
+
+    /**
+     * Check a frozen copy of the model: the same reads, and no writes
+     */
+    private void checkFrozen(CourseIndex frozen, int reads) {
+        checkAll(frozen);
+        for (int i = 0; i < reads; i++) {
+            checkRead(frozen);
+        }
+        try {
+            frozen.insert(newCourse());
+            check(false, "insert() on a frozen index did not throw");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            frozen.delete(model.isEmpty() ? newCourse() : model.firstEntry().getValue());
+            check(false, "delete() on a frozen index did not throw");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Fill an AVL tree that uses a collator and check that its frozen copy answers
+     * every read exactly like the tree (same collation order, not case folding)
+     */
+    private void checkCollatedFreeze(Locale locale, int courses, int reads) {
+        CourseAVLTree tree = new CourseAVLTree(locale);
+        for (int i = 0; i < courses; i++) {
+            tree.insert(newCourse());
+        }
+        CourseIndex frozen = tree.freeze();
+
+        checkSame(frozen.getAllCoursesSorted(), tree.getAllCoursesSorted(), "getAllCoursesSorted()");
+        check(frozen.size() == tree.size(), "size() " + frozen.size() + " != " + tree.size());
+        for (Course course : tree.getAllCoursesSorted()) {
+            String name = course.getCourseName().toUpperCase();
+            check(frozen.searchByExactName(name) == course, "searchByExactName(" + name + ")");
+        }
+        for (int i = 0; i < reads; i++) {
+            String name = randomName();
+            check(frozen.searchByExactName(name) == tree.searchByExactName(name), "searchByExactName(" + name + ")");
+            checkSame(frozen.searchByFirstLetter(name.charAt(0)), tree.searchByFirstLetter(name.charAt(0)),
+                      "searchByFirstLetter(" + name.charAt(0) + ")");
+            checkSame(frozen.searchByName(name.substring(0, 1)), tree.searchByName(name.substring(0, 1)),
+                      "searchByName(" + name.substring(0, 1) + ")");
+        }
+    }
+
+    private List<Course> expectedKeyword(String keyword) {
+        List<Course> expected = new ArrayList<>();
+        for (Course course : model.values()) {
+            if (course.getCourseName().toLowerCase().contains(keyword.toLowerCase())) {
+                expected.add(course);
+            }
+        }
+        return expected;
+    }
+
+    private List<Course> expectedFirstLetter(char letter) {
+        List<Course> expected = new ArrayList<>();
+        for (Course course : model.values()) {
+            if (Character.toLowerCase(course.getCourseName().charAt(0)) == Character.toLowerCase(letter)) {
+                expected.add(course);
+            }
+        }
+        return expected;
+    }
+
+    private List<Course> expectedPrefix(String prefix, int limit) {
+        List<Course> expected = new ArrayList<>();
+        for (Course course : model.values()) {
+            if (expected.size() < limit && course.getCourseName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                expected.add(course);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * First courses starting with a prefix, found the way RatingSystem's prefix queries
+     * use scanSorted: walk in name order and stop once enough were found
+     */
+    private static List<Course> scanPrefix(CourseIndex index, String prefix, int limit) {
+        List<Course> found = new ArrayList<>();
+        index.scanSorted(course -> {
+            if (course.getCourseName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                found.add(course);
+            }
+            return found.size() < limit;
+        });
+        return found;
+    }
+
+    private Course newCourse() {
+        String name;
+        if (!model.isEmpty() && random.nextInt(4) == 0) {
+            Map.Entry<String, Course> stored = model.ceilingEntry(CourseIndex.foldCase(randomName()));
+            name = respell((stored == null ? model.firstEntry() : stored).getValue().getCourseName());
+        } else {
+            name = randomName();
+        }
+        Course course = new Course("C" + nextId++, name);
+        created.add(course);
+        return course;
+    }
+
+    private Course pickCreated() {
+        return created.isEmpty() ? null : created.get(random.nextInt(created.size()));
+    }
+
+    /**
+     * The same name with the case of some letters swapped
+     */
+    private String respell(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (random.nextBoolean()) {
+                chars[i] = Character.isUpperCase(chars[i]) ? Character.toLowerCase(chars[i])
+                                                           : Character.toUpperCase(chars[i]);
+            }
+        }
+        return new String(chars);
+    }
+
+    private String randomName() {
+        int length = 1 + random.nextInt(6);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            char c = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            name.append(i == 0 && c == ' ' ? 'a' : c);      // Names do not start with a space
+        }
+        return name.toString();
+    }
+
+    private static String key(Course course) {
+        return CourseIndex.foldCase(course.getCourseName());
+    }
+
+    private static void checkSame(List<Course> actual, List<Course> expected, String what) {
+        boolean same = actual.size() == expected.size();
+        for (int i = 0; same && i < actual.size(); i++) {
+            same = actual.get(i) == expected.get(i);
+        }
+        check(same, what + ": got " + names(actual) + ", expected " + names(expected));
+    }
+
+    private static List<String> names(List<Course> courses) {
+        List<String> names = new ArrayList<>();
+        for (Course course : courses) {
+            names.add(course.getCourseName());
+        }
+        return names;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * Run the suite on every implementation
+     * @return true if all passed
+     */
+    public static boolean runAll(int operations, long seed) {
+        Map<String, Supplier<CourseIndex>> implementations = new LinkedHashMap<>();
+        implementations.put("avl", () -> new CourseAVLTree((Locale) null));
+        implementations.put("bplus", () -> CourseIndex.create("bplus"));
+        implementations.put("skiplist", () -> CourseIndex.create("skiplist"));
+
+        boolean passed = true;
+        for (Map.Entry<String, Supplier<CourseIndex>> entry : implementations.entrySet()) {
+            CourseIndexConformance suite = new CourseIndexConformance(seed);
+            CourseIndex index = entry.getValue().get();
+            String result = "PASS";
+            try {
+                suite.run(index, operations);
+                suite.checkFrozen(index.freeze(), operations / 10);
+            } catch (RuntimeException e) {
+                result = "FAIL: " + e.getMessage();
+                passed = false;
+            }
+            System.out.printf("%-9s (+ frozen) %d operation(s), %d course(s) left: %s%n",
+                              entry.getKey(), operations, suite.model.size(), result);
+        }
+
+        CourseIndexConformance suite = new CourseIndexConformance(seed);
+        String result = "PASS";
+        try {
+            suite.checkCollatedFreeze(Locale.GERMAN, operations / 10, operations / 10);
+        } catch (RuntimeException e) {
+            result = "FAIL: " + e.getMessage();
+            passed = false;
+        }
+        System.out.printf("%-9s (+ frozen) %d course(s), collation de: %s%n", "avl", operations / 10, result);
+        return passed;
+    }
+
+    public static void main(String[] args) {
+        int operations;
+        long seed;
+        try {
+            operations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+            seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: java CourseIndexConformance [operations] [seed]");
+            System.exit(2);
+            return;
+        }
+        if (!runAll(operations, seed)) {
+            System.exit(1);
+        }
+    }
+}
@@ -23,9 +23,30 @@ public class CourseProfessor {
     /** The professor object */
     private Professor professor;
 
-    /** All student ratings for this professor in this course */
+    /** All student ratings for this professor in this course (null while spilled to disk) */
     private List<Rating> ratingList;
 
+    /** Number of ratings, kept apart from ratingList (which may be spilled) */
+    private int ratingCount;
+
+    /** Sequence number given to the last added rating (see Rating.getSequence) */
+    private int lastSequence;
+
+    /** Spill store of a memory-bounded RatingSystem (null: the list always stays in memory) */
+    private RatingSpillStore spillStore;
+
+    /** Running sum of all rating scores (keeps the average O(1)) */
+    private double ratingSum;
+
+    /** Deleted ratings still in ratingList (removed from it in bulk, see removeRating) */
+    private int removedCount;
+
+    /** True once this pair was unlinked from its course and professor */
+    private boolean removed;
+
+    /** Ratings per day over the last RatingWindow.DAYS days */
+    private RatingWindow ratingWindow;
+
     /**
      * Constructor
      * @param course    course object
@@ -37,6 +58,7 @@ public class CourseProfessor {
         this.course = course;
         this.professor = professor;
         this.ratingList = new ArrayList<>();
+        this.ratingWindow = new RatingWindow();
     }
 
     /**
@@ -55,20 +77,164 @@ public class CourseProfessor {
         return professor;
     }
 
+    /**
+     * Get ratings per day of this professor in this course (recent days only)
+     */
+    public RatingWindow getRatingWindow() {
+        return ratingWindow;
+    }
+
+    /**
+     * Give a rating the next sequence number of this pair (if it has none yet)
+     * The ingest pipeline numbers ratings in file order before its appenders add them
+     */
+    void assignSequence(Rating rating) {
+        if (rating.getSequence() == 0) {
+            rating.setSequence(++lastSequence);
+        }
+    }
+
     /**
      * Add a rating for this professor in this course
+     * A timestamped rating is also added to the daily windows of this pair,
+     * the course and the professor
      * @param rating rating object
      */
     public void addRating(Rating rating) {
-        ratingList.add(rating);
+        assignSequence(rating);
+        if (spillStore != null) {
+            spillStore.add(this, rating);
+        } else {
+            ratingList.add(rating);
+        }
+        ratingCount++;
+        ratingSum += rating.getScore();
+        if (rating.hasTimestamp()) {
+            ratingWindow.add(rating);
+            course.getRatingWindow().add(rating);
+            professor.getRatingWindow().add(rating);
+        }
+    }
+
+    /**
+     * Delete a rating of this professor in this course
+     * The rating is only marked as removed and the running sum adjusted, so this is O(1);
+     * once half of the list are removed ratings the list is compacted in one pass
+     * (amortized O(1) per deletion). Rating order is kept
+     * @param rating rating object (from getRatings() of this pair)
+     * @return false if the rating is not one of this pair's or was already removed
+     */
+    public boolean removeRating(Rating rating) {
+        List<Rating> list = ratings();
+        Rating live = find(list, rating.getSequence());     // Same rating, possibly read back from disk
+        if (live == null || live.isRemoved()) {
+            return false;
+        }
+        rating = live;
+
+        rating.markRemoved();
+        ratingCount--;
+        ratingSum -= rating.getScore();
+        if (rating.hasTimestamp()) {
+            ratingWindow.remove(rating);
+            course.getRatingWindow().remove(rating);
+            professor.getRatingWindow().remove(rating);
+        }
+        if (spillStore != null) {
+            spillStore.removed(this, rating);
+        }
+        removedCount++;
+        if (removedCount * 2 >= list.size()) {
+            list.removeIf(Rating::isRemoved);
+            removedCount = 0;
+            if (list.isEmpty()) {
+                ratingSum = 0.0;    // No rounding error left behind
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find a live rating by its sequence number (used by the comment index)
+     * @return rating, null if it was removed
+     */
+    public Rating findRating(int sequence) {
+        Rating rating = find(ratings(), sequence);
+        return rating == null || rating.isRemoved() ? null : rating;
+    }
+
+    /**
+     * Binary search by sequence number (ratings are kept in the order they were numbered)
+     */
+    private static Rating find(List<Rating> list, int sequence) {
+        int low = 0;
+        int high = list.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midSequence = list.get(mid).getSequence();
+            if (midSequence < sequence) {
+                low = mid + 1;
+            } else if (midSequence > sequence) {
+                high = mid - 1;
+            } else {
+                return list.get(mid);
+            }
+        }
+        return null;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Mark this pair as unlinked (its ratings are no longer part of the data)
+     */
+    public void markRemoved() {
+        this.removed = true;
+    }
+
+    /**
+     * Store the rating list as read-only columns (frozen mode, see FrozenRatings)
+     * Lists of a memory-bounded system are left alone: the spill store may
+     * replace them at any time, and spilled lists are compact already
+     */
+    public void freeze() {
+        if (spillStore != null) {
+            return;
+        }
+        ratingList = new FrozenRatings(getRatings());
+        removedCount = 0;
+    }
+
+    /**
+     * Turn the rating list back into a growable list (leaving frozen mode)
+     */
+    public void thaw() {
+        if (spillStore != null) {
+            return;
+        }
+        ratingList = new ArrayList<>(ratingList);
     }
 
     /**
      * Get all ratings
-     * @return list of Rating
+     * A spilled list is read back from disk first (see RatingSpillStore)
+     * @return list of Rating (a filtered copy while deleted ratings wait to be compacted)
      */
     public List<Rating> getRatings() {
-        return ratingList;
+        List<Rating> list = ratings();
+        if (removedCount == 0) {
+            return list;
+        }
+
+        List<Rating> live = new ArrayList<>(list.size() - removedCount);
+        for (Rating rating : list) {
+            if (!rating.isRemoved()) {
+                live.add(rating);
+            }
+        }
+        return live;
     }
 
     /**
@@ -76,21 +242,73 @@ public class CourseProfessor {
      * @return average rating (returns 0.0 if no ratings)
      */
     public double getAverageRating() {
-        if (ratingList.isEmpty()) return 0.0;
+        int count = getRatingCount();
+        if (count == 0) return 0.0;
 
-        double sum = 0;
-        for (Rating r : ratingList) {
-            sum += r.getScore();
-        }
+        return ratingSum / count;
+    }
 
-        return sum / ratingList.size();
+    /**
+     * Return the sum of all rating scores for this professor in this course
+     */
+    public double getTotalScore() {
+        return ratingSum;
     }
 
     /**
      * Return the count of all ratings for this professor in this course
      */
     public int getRatingCount() {
-        return ratingList.size();
+        return ratingCount;
+    }
+
+    /**
+     * The rating list, read back from disk if it was spilled
+     */
+    private List<Rating> ratings() {
+        return spillStore == null ? ratingList : spillStore.load(this);
+    }
+
+    // ---- Used by RatingSpillStore, under its lock ----
+
+    /**
+     * Put this pair under a spill store (once, when it is created)
+     */
+    void attachSpillStore(RatingSpillStore store) {
+        if (spillStore == null) {
+            spillStore = store;
+            store.register(this);
+        }
+    }
+
+    /**
+     * Leave the spill store (the pair was deleted): keep the list in memory from now on
+     */
+    void detachSpillStore(List<Rating> ratings) {
+        ratingList = ratings;
+        spillStore = null;
+    }
+
+    /**
+     * The rating list if it is in memory, null if spilled
+     */
+    List<Rating> residentRatings() {
+        return ratingList;
+    }
+
+    /**
+     * Drop the in-memory list after it was written to disk (deleted ratings are not written)
+     */
+    void spillRatings() {
+        ratingList = null;
+        removedCount = 0;
+    }
+
+    /**
+     * Put a list read back from disk in place
+     */
+    void reloadRatings(List<Rating> ratings) {
+        ratingList = ratings;
     }
 
     /**
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * CourseSkipList class: Uses a concurrent skip list to store courses
+ * Sorted by course name alphabetically (case-insensitive). Backed by the JDK's
+ * lock-free ConcurrentSkipListMap, so lookups and scans never block each other.
+ * Keys are case-folded names (CourseIndex.foldCase), folded once per insert or
+ * lookup instead of on every comparison; no collation (see CourseIndex.create)
+ */
+public class CourseSkipList implements CourseIndex {
+    private ConcurrentSkipListMap<String, Course> courses;     // Case-folded course name -> course
+    private AtomicInteger count;                                // Number of courses (the map's size() is O(n))
+
+    public CourseSkipList() {
+        this.courses = new ConcurrentSkipListMap<>();
+        this.count = new AtomicInteger();
+    }
+
+    /**
+     * Insert course
+     * Sorted by course name in lexicographic order
+     */
+    @Override
+    public void insert(Course course) {
+        // Same course name, do not insert
+        if (courses.putIfAbsent(CourseIndex.foldCase(course.getCourseName()), course) == null) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Delete course
+     */
+    @Override
+    public boolean delete(Course course) {
+        if (courses.remove(CourseIndex.foldCase(course.getCourseName()), course)) {
+            count.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Search by course name keyword
+     * A keyword can appear anywhere in a name, so the bottom level is scanned
+     */
+    @Override
+    public List<Course> searchByName(String keyword) {
+        List<Course> results = new ArrayList<>();
+        String lowerKeyword = keyword.toLowerCase();
+
+        for (Course course : courses.values()) {
+            if (course.getLowerCaseName().contains(lowerKeyword)) {
+                results.add(course);
+            }
+        }
+        RatingSystemMetrics.SEARCH_BY_NAME.addNodesScanned(courses.size());
+        return results;
+    }
+
+    /**
+     * Search by exact course name
+     */
+    @Override
+    public Course searchByExactName(String courseName) {
+        return courses.get(CourseIndex.foldCase(courseName));
+    }
+
+    /**
+     * Search all courses by first letter
+     * Jumps to the first candidate, then walks right while the letter matches
+     */
+    @Override
+    public List<Course> searchByFirstLetter(char letter) {
+        List<Course> results = new ArrayList<>();
+        char folded = CourseIndex.foldChar(letter);
+
+        for (Map.Entry<String, Course> entry : courses.tailMap(String.valueOf(folded)).entrySet()) {
+            if (entry.getKey().charAt(0) != folded) {
+                break;
+            }
+            results.add(entry.getValue());
+        }
+        return results;
+    }
+
+    /**
+     * Get all courses sorted by name
+     */
+    @Override
+    public List<Course> getAllCoursesSorted() {
+        return new ArrayList<>(courses.values());
+    }
+
+    /**
+     * Walk the bottom level until the visitor returns false
+     */
+    @Override
+    public void scanSorted(Predicate<Course> visitor) {
+        for (Course course : courses.values()) {
+            if (!visitor.test(course)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get number of courses
+     */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * Check if skip list is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return courses.isEmpty();
+    }
+}
@@ -0,0 +1,497 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * CsvExternalSort class: Merge rating CSV files that need not fit in memory
+ * Reads one or more files in the courseId,courseName,professorName,rating,[timestamp,]comment
+ * schema and writes one file sorted by course name (case-insensitive, like the
+ * course index), course ID and professor. Every course's rows, and within it every
+ * professor's rows, come out together, so the loaders read the result in one
+ * streaming pass. Rows of a pair keep their input order (files in the order given).
+ *
+ *   1. run generation: rows are collected until the memory budget is used,
+ *      sorted and written to a temporary run file
+ *   2. merge: the runs are merged with a priority queue (k-way merge), at most
+ *      MERGE_FAN_IN at a time; with more runs, intermediate passes merge them first
+ * Input that fits in the budget is sorted in memory without temporary files.
+ *
+ * Duplicate entities are merged: a course ID keeps the name it has in its first row
+ * (like RatingSystem, which keeps the first name it sees), so a course named
+ * differently by two exports ends up as one course. With dropDuplicates, ratings
+ * identical in every field (course ID, professor, score, time, comment) are written
+ * once. Invalid rows are skipped and counted. All input is read before the output is
+ * opened, so the output may replace one of the inputs. Inputs may be
+ * gzip / BGZF compressed and an output named *.gz is compressed (see CompressedFiles).
+ *
+ * Usage: java CsvExternalSort output.csv input.csv [input.csv ...] [-memoryMB n] [-dedup] [-tmp dir]
+ */
+public class CsvExternalSort {
+    public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+    private static final int MERGE_FAN_IN = 64;             // Runs merged at once (open files)
+    private static final int ROW_OVERHEAD_BYTES = 96;       // Heap estimate per row besides its strings
+    private static final int BUFFER_SIZE = 1 << 16;         // Bytes of each file buffer
+
+    private final long memoryBytes;                     // Budget for the rows of one run
+    private final Path tempDirectory;                   // Where run files are created
+    private final boolean dropDuplicates;               // Write identical ratings once
+    private final Map<String, CourseName> courseNames;  // Course ID -> name of its first row
+    private boolean timestamped;                        // True if any input has the timestamp column
+    private long order;                                 // Input position of the next row
+
+    private long rowsRead;                  // Valid rows read
+    private long rowsSkipped;               // Invalid rows
+    private long rowsWritten;               // Rows in the output
+    private long duplicatesDropped;         // Identical ratings left out
+    private long rowsRenamed;               // Rows whose course name was replaced by the first one
+    private int runs;                       // Run files written (intermediate merges included)
+    private int mergePasses;                // Merge passes (intermediate ones and the final one)
+
+    /**
+     * CourseName class: The name a course ID keeps, with its sort key
+     */
+    private static class CourseName {
+        final String name;
+        final String key;       // Case-folded name (CourseIndex.foldCase)
+
+        CourseName(String name) {
+            this.name = name;
+            this.key = CourseIndex.foldCase(name);
+        }
+    }
+
+    /**
+     * Row class: One rating row and its sort key
+     */
+    private static class Row implements Comparable<Row> {
+        final CourseName course;
+        final String courseId;
+        final String professorName;
+        final double score;
+        final long timestamp;       // 0 = unknown
+        final String comment;
+        final long order;           // Input position: keeps the rows of a pair in input order
+
+        Row(CourseName course, String courseId, String professorName, double score, long timestamp,
+            String comment, long order) {
+            this.course = course;
+            this.courseId = courseId;
+            this.professorName = professorName;
+            this.score = score;
+            this.timestamp = timestamp;
+            this.comment = comment;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Row other) {
+            int cmp = course.key.compareTo(other.course.key);
+            if (cmp == 0) {
+                cmp = course.name.compareTo(other.course.name);     // Same name in another case
+            }
+            if (cmp == 0) {
+                cmp = courseId.compareTo(other.courseId);
+            }
+            if (cmp == 0) {
+                cmp = professorName.compareTo(other.professorName);
+            }
+            return cmp != 0 ? cmp : Long.compare(order, other.order);
+        }
+
+        long estimateBytes() {
+            return ROW_OVERHEAD_BYTES + 2L * (courseId.length() + professorName.length() + comment.length());
+        }
+    }
+
+    /**
+     * RunReader class: Reads the rows of one run file in order
+     */
+    private class RunReader implements Comparable<RunReader> {
+        private final DataInputStream in;
+        private final long rows;        // Rows in the run
+        private long remaining;         // Rows not read yet
+        private Row current;            // Next row to merge
+
+        RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+            this.rows = in.readLong();
+            this.remaining = rows;
+            advance();
+        }
+
+        void advance() throws IOException {
+            current = null;
+            if (remaining > 0) {
+                current = readRow(in);
+                remaining--;
+            }
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+    /**
+     * MergeIterator class: Rows of several runs in sorted order (k-way merge)
+     */
+    private class MergeIterator implements Iterator<Row>, AutoCloseable {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> queue = new PriorityQueue<>();
+        private long count;             // Rows of all runs
+
+        MergeIterator(List<Path> runFiles) throws IOException {
+            try {
+                for (Path run : runFiles) {
+                    RunReader reader = new RunReader(run);
+                    readers.add(reader);
+                    count += reader.rows;
+                    if (reader.current != null) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Row next() {
+            RunReader reader = queue.poll();
+            if (reader == null) {
+                throw new NoSuchElementException();
+            }
+            Row row = reader.current;
+            try {
+                reader.advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (reader.current != null) {
+                queue.add(reader);
+            }
+            return row;
+        }
+
+        @Override
+        public void close() {
+            for (RunReader reader : readers) {
+                try {
+                    reader.in.close();
+                } catch (IOException e) {
+                    // Run files are deleted anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor
+     * @param memoryBytes estimated bytes of rows held in memory at once
+     * @param tempDirectory where run files are created
+     * @param dropDuplicates write ratings that are identical in every field once
+     */
+    public CsvExternalSort(long memoryBytes, Path tempDirectory, boolean dropDuplicates) {
+        this.memoryBytes = memoryBytes;
+        this.tempDirectory = tempDirectory;
+        this.dropDuplicates = dropDuplicates;
+        this.courseNames = new HashMap<>();
+    }
+
+    /**
+     * Sort and merge input files into one output file
+     * @param inputs CSV files, in the order their rows are kept within a pair
+     * @param output sorted CSV file (header with the timestamp column if any input has one)
+     */
+    public void sort(List<String> inputs, String output) throws IOException {
+        List<Path> runFiles = new ArrayList<>();
+        try {
+            List<Row> buffer = new ArrayList<>();
+            long bufferBytes = 0;
+            for (String input : inputs) {
+                try (BufferedReader br = CompressedFiles.newReader(input)) {
+                    String header = br.readLine();
+                    int columns = header != null && RatingSystem.hasTimestampColumn(header) ? 6 : 5;
+                    if (columns == 6) {
+                        timestamped = true;
+                    }
+
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        Row row = parseRow(line, columns);
+                        if (row == null) {
+                            continue;
+                        }
+                        buffer.add(row);
+                        bufferBytes += row.estimateBytes();
+                        if (bufferBytes >= memoryBytes) {
+                            Collections.sort(buffer);
+                            runFiles.add(writeRun(buffer.iterator(), buffer.size()));
+                            buffer.clear();
+                            bufferBytes = 0;
+                        }
+                    }
+                }
+            }
+
+            Collections.sort(buffer);
+            if (runFiles.isEmpty()) {
+                writeOutput(buffer.iterator(), output);        // Fits in memory: no run files
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                runFiles.add(writeRun(buffer.iterator(), buffer.size()));
+            }
+            buffer = null;
+
+            // Intermediate passes until one merge can take all runs
+            while (runFiles.size() > MERGE_FAN_IN) {
+                List<Path> group = new ArrayList<>(runFiles.subList(0, MERGE_FAN_IN));
+                try (MergeIterator merged = new MergeIterator(group)) {
+                    runFiles.add(writeRun(merged, merged.count));
+                }
+                runFiles.subList(0, MERGE_FAN_IN).clear();
+                deleteAll(group);
+                mergePasses++;
+            }
+
+            try (MergeIterator merged = new MergeIterator(runFiles)) {
+                writeOutput(merged, output);
+            }
+            mergePasses++;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            deleteAll(runFiles);
+        }
+    }
+
+    /**
+     * Parse one input row
+     * @return row, or null for a row that is not a rating (ignored) or invalid (counted)
+     */
+    private Row parseRow(String line, int columns) {
+        String[] parts = line.split(",", columns);      // Limit split so commas in comments do not affect parsing
+        if (parts.length < columns) {
+            return null;
+        }
+
+        String courseId = parts[0].trim();
+        String courseName = parts[1].trim();
+        String professorName = parts[2].trim();
+        double score;
+        long timestamp;
+        try {
+            score = Double.parseDouble(parts[3].trim());
+            timestamp = columns == 6 ? Rating.parseTimestamp(parts[4].trim()) : 0;
+        } catch (NumberFormatException e) {
+            rowsSkipped++;
+            return null;
+        }
+        if (RatingSystem.validateRating(courseId, courseName, professorName, score) != null) {
+            rowsSkipped++;
+            return null;
+        }
+
+        CourseName course = courseNames.get(courseId);
+        if (course == null) {
+            course = new CourseName(courseName);
+            courseNames.put(courseId, course);
+        } else if (!course.name.equals(courseName)) {
+            rowsRenamed++;
+        }
+        rowsRead++;
+        return new Row(course, courseId, professorName, score, timestamp, parts[columns - 1].trim(), order++);
+    }
+
+    /**
+     * Write sorted rows to a new run file
+     */
+    private Path writeRun(Iterator<Row> rows, long count) throws IOException {
+        Path run = Files.createTempFile(tempDirectory, "sort-run-", ".bin");
+        run.toFile().deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+            out.writeLong(count);
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                writeString(out, row.courseId);
+                writeString(out, row.professorName);
+                out.writeDouble(row.score);
+                out.writeLong(row.timestamp);
+                writeString(out, row.comment);
+                out.writeLong(row.order);
+            }
+        }
+        runs++;
+        return run;
+    }
+
+    private Row readRow(DataInputStream in) throws IOException {
+        String courseId = readString(in);
+        String professorName = readString(in);
+        double score = in.readDouble();
+        long timestamp = in.readLong();
+        String comment = readString(in);
+        long position = in.readLong();
+        return new Row(courseNames.get(courseId), courseId, professorName, score, timestamp, comment, position);
+    }
+
+    /**
+     * Write the sorted rows as CSV (same row format as RatingSystem.saveToFile)
+     */
+    private void writeOutput(Iterator<Row> rows, String output) throws IOException {
+        try (Writer out = CompressedFiles.newWriter(output)) {
+            out.write(timestamped ? RatingSystem.CSV_HEADER_TIMESTAMP : RatingSystem.CSV_HEADER);
+            out.write('\n');
+
+            Row pair = null;                            // First row of the current course-professor pair
+            Set<String> seen = new HashSet<>();         // Ratings of the current pair (dropDuplicates)
+            StringBuilder sb = new StringBuilder();
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (dropDuplicates) {
+                    if (pair == null || !row.courseId.equals(pair.courseId)
+                            || !row.professorName.equals(pair.professorName)) {
+                        pair = row;
+                        seen.clear();
+                    }
+                    if (!seen.add(row.score + "," + row.timestamp + "," + row.comment)) {
+                        duplicatesDropped++;
+                        continue;
+                    }
+                }
+
+                sb.setLength(0);
+                sb.append(row.courseId).append(',').append(row.course.name).append(',')
+                  .append(row.professorName).append(',').append(row.score).append(',');
+                if (timestamped) {
+                    sb.append(Rating.formatTimestamp(row.timestamp)).append(',');
+                }
+                sb.append(row.comment).append('\n');
+                out.append(sb);
+                rowsWritten++;
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteAll(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Deleted on exit anyway
+            }
+        }
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getDuplicatesDropped() {
+        return duplicatesDropped;
+    }
+
+    /**
+     * Number of rows whose course name differed from the first name of their course ID
+     */
+    public long getRowsRenamed() {
+        return rowsRenamed;
+    }
+
+    /**
+     * Number of run files written (0 if the input fit in memory)
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * Number of merge passes (0 if the input fit in memory, 1 for up to MERGE_FAN_IN runs)
+     */
+    public int getMergePasses() {
+        return mergePasses;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        long memoryBytes = DEFAULT_MEMORY_BYTES;
+        boolean dropDuplicates = false;
+        Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-memoryMB") && i + 1 < args.length) {
+                memoryBytes = Long.parseLong(args[++i]) << 20;
+            } else if (args[i].equals("-dedup")) {
+                dropDuplicates = true;
+            } else if (args[i].equals("-tmp") && i + 1 < args.length) {
+                tempDirectory = Paths.get(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() < 2) {
+            System.out.println("Usage: java CsvExternalSort output.csv input.csv [input.csv ...] [-memoryMB n] [-dedup] [-tmp dir]");
+            System.out.println("  -memoryMB  memory for sorting runs (default " + (DEFAULT_MEMORY_BYTES >> 20) + ")");
+            System.out.println("  -dedup     write ratings identical in every field once");
+            System.out.println("  -tmp       directory for run files (default: the temp directory)");
+            return;
+        }
+
+        long start = System.nanoTime();
+        CsvExternalSort sorter = new CsvExternalSort(memoryBytes, tempDirectory, dropDuplicates);
+        sorter.sort(files.subList(1, files.size()), files.get(0));
+        System.out.printf("Sorted %d rating(s) from %d file(s) in %.1f s: %s%n", sorter.getRowsWritten(),
+                          files.size() - 1, (System.nanoTime() - start) / 1e9, files.get(0));
+        System.out.printf("  runs %d, merge passes %d, skipped %d invalid, dropped %d duplicate(s), "
+                          + "renamed %d course row(s)%n", sorter.getRuns(), sorter.getMergePasses(),
+                          sorter.getRowsSkipped(), sorter.getDuplicatesDropped(), sorter.getRowsRenamed());
+    }
+}
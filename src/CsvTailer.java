@@ -0,0 +1,241 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * CsvTailer class: Incremental ingestion of rows appended to a CSV file
+ * Remembers the byte offset of the last complete line it read, so every poll
+ * only parses the newly appended lines. A partial last line is left for the
+ * next poll. Truncation (file shrank) and rotation (file replaced) are detected
+ * and reported to the caller instead of being ingested twice.
+ * Only plain CSV files can be tailed: byte offsets into a compressed file do not
+ * point at lines (see CompressedFiles), so those are refused with an IOException
+ */
+public class CsvTailer {
+    /** Returned by poll() when the file was truncated or replaced */
+    public static final int RESET = -1;
+
+    private static final int CHUNK_SIZE = 64 * 1024;    // Bytes read per channel read
+
+    private final Path path;                            // File being tailed
+    private long offset;                                // Byte offset just after the last consumed line
+    private Object fileKey;                             // Identity of the file at offset (inode), may be null
+    private long rowsIngested;                          // Total rows added to a RatingSystem
+    private long rowsSkipped;                           // Total invalid rows
+    private long rowsDuplicate;                         // Total rows dropped as duplicates (see RatingDeduplicator)
+    private int columns;                                // 6 if the header has the timestamp column, else 5
+
+    /**
+     * Constructor: start tailing from the beginning of the file
+     * @param filename file to tail
+     */
+    public CsvTailer(String filename) {
+        this.path = Paths.get(filename);
+        this.offset = 0;
+        this.fileKey = null;
+        this.columns = 5;
+    }
+
+    /**
+     * Read all complete lines appended since the last poll and add them as ratings
+     * @param target RatingSystem receiving the new ratings
+     * @return number of rows ingested, or RESET if the file was truncated or rotated
+     *         (the offset then moves to the end of the new file; the caller should
+     *         reload fully, since the rewritten content may repeat old rows)
+     */
+    public int poll(RatingSystem target) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return 0;   // File temporarily missing (e.g., in the middle of a rotation)
+        }
+
+        long size = attrs.size();
+        Object key = attrs.fileKey();
+        if (size < offset || (offset > 0 && key != null && fileKey != null && !key.equals(fileKey))) {
+            offset = size;
+            fileKey = key;
+            readHeader();       // The new file may use the other format
+            return RESET;
+        }
+        fileKey = key;
+        if (size == offset) {
+            return 0;
+        }
+        if (offset == 0) {
+            checkPlain();       // Reading from the start, e.g. a reload after a rotation
+        }
+
+        int rows = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            byte[] pending = new byte[0];               // Bytes of a line that spans two chunks
+            long position = offset;
+
+            while (position < size) {
+                buffer.clear();
+                int n = channel.read(buffer, position);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+
+                byte[] bytes = buffer.array();
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+
+                    String line;
+                    if (pending.length > 0) {
+                        byte[] joined = Arrays.copyOf(pending, pending.length + i - lineStart);
+                        System.arraycopy(bytes, lineStart, joined, pending.length, i - lineStart);
+                        line = new String(joined, StandardCharsets.UTF_8);
+                        offset += joined.length + 1;
+                        pending = new byte[0];
+                    } else {
+                        line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                        offset += i - lineStart + 1;
+                    }
+
+                    if (ingestLine(target, line)) {
+                        rows++;
+                    }
+                    lineStart = i + 1;
+                }
+
+                // Keep the unterminated rest for the next chunk (or the next poll)
+                if (lineStart < n) {
+                    int oldLength = pending.length;
+                    pending = Arrays.copyOf(pending, oldLength + n - lineStart);
+                    System.arraycopy(bytes, lineStart, pending, oldLength, n - lineStart);
+                }
+            }
+        }
+
+        rowsIngested += rows;
+        return rows;
+    }
+
+    /**
+     * Parse one CSV line and add it to the target
+     * Format: courseId,courseName,professorName,rating,[timestamp,]comment (as given by the header)
+     * @return true if a rating was added
+     */
+    private boolean ingestLine(RatingSystem target, String line) {
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+
+        String[] parts = line.split(",", columns);
+        if (parts[0].trim().equals("courseId")) {
+            columns = RatingSystem.hasTimestampColumn(line) ? 6 : 5;
+            return false;   // Header
+        }
+        if (parts.length < columns) {
+            return false;   // Incomplete row
+        }
+
+        try {
+            double score = Double.parseDouble(parts[3].trim());
+            long timestamp = columns == 6 ? Rating.parseTimestamp(parts[4].trim()) : 0;
+            RatingSystem.AddResult result = target.addRatingSilently(parts[0].trim(), parts[1].trim(),
+                    parts[2].trim(), score, parts[columns - 1].trim(), timestamp);
+            if (result == RatingSystem.AddResult.ADDED) {
+                return true;
+            }
+            if (result == RatingSystem.AddResult.DUPLICATE) {
+                rowsDuplicate++;
+                return false;   // Already ingested, not invalid
+            }
+        } catch (NumberFormatException e) {
+            // Counted as skipped below
+        }
+
+        rowsSkipped++;
+        return false;
+    }
+
+    /**
+     * Skip everything currently in the file (e.g., after we rewrote it ourselves)
+     */
+    public void skipToEnd() throws IOException {
+        checkPlain();
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        offset = attrs.size();
+        fileKey = attrs.fileKey();
+        readHeader();
+    }
+
+    /**
+     * Check if a file is compressed (gzip, BGZF or zstd), so it cannot be tailed
+     * @return false for a plain file, or if the file cannot be read (yet)
+     */
+    public static boolean isCompressed(String filename) {
+        try {
+            return CompressedFiles.detect(filename) != CompressedFiles.Compression.NONE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void checkPlain() throws IOException {
+        if (isCompressed(path.toString())) {
+            throw new IOException(path + " is compressed, only plain CSV files can be tailed");
+        }
+    }
+
+    /**
+     * Take the row format from the header of the file (when tailing does not start at its beginning)
+     */
+    private void readHeader() throws IOException {
+        if (isCompressed(path.toString())) {
+            return;     // Replaced by a compressed file: refused by the reload that follows (poll from the start)
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header != null && header.startsWith("courseId")) {
+                columns = RatingSystem.hasTimestampColumn(header) ? 6 : 5;
+            }
+        } catch (NoSuchFileException e) {
+            // Replaced again, the next poll will notice
+        }
+    }
+
+    /**
+     * Get the byte offset just after the last consumed line
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getRowsIngested() {
+        return rowsIngested;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getRowsDuplicate() {
+        return rowsDuplicate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Tailing %s at byte %d (%d row(s) ingested, %d skipped, %d duplicate, file key %s)",
+                             path, offset, rowsIngested, rowsSkipped, rowsDuplicate, Objects.toString(fileKey, "n/a"));
+    }
+}
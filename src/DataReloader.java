@@ -0,0 +1,419 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * DataReloader class: Zero-downtime reloading of the data file
+ * A new RatingSystem is built in the background while the current one keeps
+ * serving queries, then swapped in atomically. Optionally watches the data
+ * file and reloads automatically when it changes, or tails it and ingests
+ * only the rows appended since the last poll.
+ * A reload never replaces the data with a failed load, and never drops
+ * changes that are not saved yet: it is skipped instead.
+ */
+public class DataReloader {
+    private final String filename;                          // Data file to (re)load
+    private final AtomicReference<RatingSystem> current;    // RatingSystem currently serving queries
+    private final Supplier<RatingSystem> factory;           // Creates the RatingSystem of each reload
+    private final ScheduledExecutorService reloadExecutor;  // Single background thread for reloads, tail polls and saves
+    private final AtomicBoolean reloading;                  // True while a reload is in progress
+    private volatile long knownModified;                    // Last-modified time of the file we last loaded or saved
+    private volatile Thread watchThread;                    // File watcher thread (null when not watching)
+    private CsvTailer tailer;                               // Tail position (only used on the background thread)
+    private volatile ScheduledFuture<?> tailTask;           // Periodic tail poll (null when not tailing)
+    private volatile long savedSequence = -1;               // Change feed position matching the file (-1: not loaded yet)
+
+    /**
+     * Constructor
+     * @param filename data file
+     * @param initial RatingSystem to serve until the first reload finishes
+     */
+    public DataReloader(String filename, RatingSystem initial) {
+        this(filename, initial, RatingSystem::new);
+    }
+
+    /**
+     * Constructor
+     * @param filename data file
+     * @param initial RatingSystem to serve until the first reload finishes
+     * @param factory creates the empty RatingSystem each reload loads into
+     */
+    public DataReloader(String filename, RatingSystem initial, Supplier<RatingSystem> factory) {
+        this.filename = filename;
+        this.current = new AtomicReference<>(initial);
+        this.factory = factory;
+        this.reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "data-reloader");
+            t.setDaemon(true);
+            return t;
+        });
+        this.reloading = new AtomicBoolean(false);
+        this.knownModified = new File(filename).lastModified();
+    }
+
+    /**
+     * Get the RatingSystem currently serving queries
+     */
+    public RatingSystem current() {
+        return current.get();
+    }
+
+    /**
+     * Load the data file into the current RatingSystem in the background
+     * Used at startup: queries are answered from the rows loaded so far instead
+     * of waiting for the whole file. Later reloads, tail polls and saves run
+     * after the load on the same background thread
+     * @return progress of the load
+     */
+    public LoadProgress loadInBackground() {
+        LoadProgress progress = current().loadInBackground(filename, reloadExecutor);
+        reloadExecutor.execute(this::markSaved);    // After the load: same thread
+        return progress;
+    }
+
+    /**
+     * Get the data file
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Check if the current data has changes that are not in the data file
+     * (ratings added or deleted since the last load, reload or save)
+     */
+    public boolean hasUnsavedChanges() {
+        long saved = savedSequence;
+        return saved >= 0 && current().getChangeFeed().getNextSequence() != saved;
+    }
+
+    /**
+     * Remember that the current data matches the data file
+     */
+    private void markSaved() {
+        savedSequence = current().getChangeFeed().getNextSequence();
+    }
+
+    /**
+     * Save the current RatingSystem if it has unsaved changes, then stop it from
+     * accepting writes (before the data is unloaded): later writes through a kept
+     * reference are refused as RETIRED instead of being lost.
+     * A write that slips in between the save and the retire is saved on the next try
+     * @return false if the save failed (the system is not retired and keeps its changes)
+     */
+    boolean saveAndRetire() {
+        do {
+            if (hasUnsavedChanges() && !save()) {
+                return false;
+            }
+        } while (!current().retire(savedSequence));
+        return true;
+    }
+
+    /**
+     * Start reloading the data file in the background
+     * The current RatingSystem keeps serving until the new one is fully loaded
+     * @return false if a reload is already in progress
+     */
+    public boolean reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) {
+            return false;
+        }
+
+        reloadExecutor.execute(() -> {
+            try {
+                reload();
+            } finally {
+                reloading.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Build a new RatingSystem from the file and swap it in
+     * Nothing is swapped if the file could not be read, or if the current data has
+     * changes that are not in the file (they would be lost): save them first
+     * @return true if the new data was swapped in
+     */
+    private boolean reload() {
+        if (hasUnsavedChanges()) {
+            System.out.println("\nReload skipped: the current data has unsaved changes, save them first.");
+            return false;
+        }
+        long modified = new File(filename).lastModified();
+        long start = System.nanoTime();
+
+        RatingSystem fresh = factory.get();
+        CsvTailer freshTailer = null;
+        if (isTailing()) {
+            // Load through a new tailer so tailing resumes exactly where this load stopped
+            freshTailer = new CsvTailer(filename);
+            try {
+                freshTailer.poll(fresh);
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage() + ", keeping the current data.");
+                return false;
+            }
+        } else if (!fresh.loadFromFileParallel(filename)) {     // Not published yet, so holding the write lock is free
+            System.out.println("Reload failed, keeping the current data.");
+            return false;
+        }
+        if (current().isFrozen()) {
+            fresh.freeze();     // Reloaded data stays read-only, like the data it replaces
+        }
+        long loaded = System.nanoTime();
+
+        // Writes accepted while the file was loading are not in fresh: keep the old data then
+        if (!current().retire(savedSequence)) {
+            System.out.println("\nReload skipped: data was changed while reloading, save it first.");
+            return false;
+        }
+        if (freshTailer != null) {
+            tailer = freshTailer;
+        }
+        current.set(fresh);
+        long swapped = System.nanoTime();
+        knownModified = modified;
+        markSaved();
+
+        System.out.printf("%nReload finished: %d course(s) loaded in %.1f ms, swap took %.3f ms%n",
+                          fresh.getCourseCount(),
+                          (loaded - start) / 1_000_000.0,
+                          (swapped - loaded) / 1_000_000.0);
+        return true;
+    }
+
+    /**
+     * Save the current RatingSystem to the data file
+     * Our own save is remembered so the file watcher does not reload it again
+     * @return false if the file could not be written: the data still counts as unsaved
+     */
+    public boolean save() {
+        // Never overwrite the file with partly loaded data
+        LoadProgress progress = current().getLoadProgress();
+        if (progress != null) {
+            System.out.println("Waiting for data to finish loading...");
+            try {
+                progress.awaitDone();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        if (!isTailing()) {
+            long sequence = current().getChangeFeed().getNextSequence();
+            if (!current().saveToFile(filename)) {
+                return false;
+            }
+            knownModified = new File(filename).lastModified();
+            savedSequence = sequence;
+            return true;
+        }
+
+        // While tailing, save on the background thread so no poll reads a half-written
+        // file, then skip over our own rewrite
+        try {
+            return reloadExecutor.submit(() -> {
+                pollTail();
+                long sequence = current().getChangeFeed().getNextSequence();
+                if (!current().saveToFile(filename)) {
+                    return false;
+                }
+                knownModified = new File(filename).lastModified();
+                savedSequence = sequence;
+                tailer.skipToEnd();
+                return true;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.out.println("Error saving file: " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Check if a reload is in progress
+     */
+    public boolean isReloading() {
+        return reloading.get();
+    }
+
+    /**
+     * Start watching the data file, reloading automatically when it changes
+     * @return false if already watching or the watcher could not be started
+     */
+    public synchronized boolean startWatching() {
+        if (watchThread != null) {
+            return false;
+        }
+        stopTailing();
+
+        Path file = Paths.get(filename).toAbsolutePath();
+        WatchService watcher;
+        try {
+            watcher = file.getFileSystem().newWatchService();
+            file.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.out.println("Error watching file: " + e.getMessage());
+            return false;
+        }
+
+        Thread thread = new Thread(() -> watchLoop(watcher, file), "data-file-watcher");
+        thread.setDaemon(true);
+        watchThread = thread;
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stop watching the data file
+     */
+    public synchronized void stopWatching() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    /**
+     * Check if the data file is being watched
+     */
+    public boolean isWatching() {
+        return watchThread != null;
+    }
+
+    /**
+     * Start tailing the data file: rows appended by other programs are ingested
+     * into the current RatingSystem every interval, without a full reload
+     * @param intervalMillis poll interval in milliseconds
+     * @return false if already tailing, or if the file is compressed (see CsvTailer)
+     */
+    public synchronized boolean startTailing(long intervalMillis) {
+        if (tailTask != null) {
+            return false;
+        }
+        if (CsvTailer.isCompressed(filename)) {
+            System.out.println("Error: " + filename + " is compressed, only plain CSV files can be tailed!");
+            return false;
+        }
+        stopWatching();
+
+        // The current data came from a full load of the file, so start at its end
+        reloadExecutor.execute(() -> {
+            tailer = new CsvTailer(filename);
+            try {
+                tailer.skipToEnd();
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage());
+            }
+        });
+        tailTask = reloadExecutor.scheduleWithFixedDelay(this::pollTail,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Stop tailing the data file
+     */
+    public synchronized void stopTailing() {
+        if (tailTask != null) {
+            tailTask.cancel(false);
+            tailTask = null;
+        }
+    }
+
+    /**
+     * Check if the data file is being tailed
+     */
+    public boolean isTailing() {
+        return tailTask != null;
+    }
+
+    /**
+     * Get tailing status (position and counters), null when not tailing
+     */
+    public String getTailStatus() {
+        CsvTailer t = tailer;
+        return isTailing() && t != null ? t.toString() : null;
+    }
+
+    /**
+     * One tail poll (runs on the background thread)
+     */
+    private void pollTail() {
+        try {
+            boolean saved = !hasUnsavedChanges();
+            int rows = tailer.poll(current());
+            if (rows == CsvTailer.RESET) {
+                System.out.println("\nData file was truncated or replaced, reloading...");
+                if (!reload()) {
+                    stopTailing();
+                    System.out.println("Tailing stopped.");
+                }
+            } else if (rows > 0) {
+                knownModified = new File(filename).lastModified();
+                if (saved) {
+                    markSaved();        // The new rows came from the file
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error tailing file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Watcher loop: wait for changes to the data file and trigger reloads
+     */
+    private void watchLoop(WatchService watcher, Path file) {
+        try (WatchService ws = watcher) {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = ws.take();
+
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && file.getFileName().equals(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    // Let the writer finish, then ignore events caused by our own save
+                    TimeUnit.MILLISECONDS.sleep(200);
+                    if (new File(filename).lastModified() != knownModified) {
+                        System.out.println("\nData file changed, reloading in background...");
+                        reloadInBackground();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.out.println("File watcher stopped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the watcher and the background reload thread
+     */
+    public void shutdown() {
+        stopWatching();
+        stopTailing();
+        reloadExecutor.shutdown();
+    }
+}
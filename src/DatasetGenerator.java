@@ -0,0 +1,329 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution class: Samples ranks 0..n-1 where rank k has weight 1 / (k + 1)^exponent
+ * Exponent 0 gives a uniform distribution; around 1 a few ranks get most samples
+ */
+class ZipfDistribution {
+    private final double[] cdf;     // Cumulative probability per rank
+
+    public ZipfDistribution(int n, double exponent) {
+        this.cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    /**
+     * Draw a rank (binary search on the cumulative distribution)
+     */
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cdf.length - 1);
+    }
+}
+
+/**
+ * DatasetGenerator class: Deterministic synthetic rating datasets
+ * Produces rows in the courseId,courseName,professorName,rating,comment schema
+ * (optionally with a timestamp column before the comment).
+ * Course and professor popularity follow a Zipf distribution, names have
+ * realistic lengths and comments are drawn from a Zipf-weighted vocabulary.
+ * The same seed always produces the same dataset.
+ *
+ * Timestamps are spread over the days before the day of generation, so only
+ * they depend on when the dataset is generated.
+ *
+ * Usage: java DatasetGenerator output.csv ratings [seed] [courses] [professors] [skew] [days]
+ */
+public class DatasetGenerator {
+    private static final int PROFESSORS_PER_COURSE = 4;  // Teaching slots per course
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final String[] DEPARTMENTS = {
+        "CPS", "MATH", "ENG", "PHYS", "CHEM", "BIO", "HIST", "ECON", "PSY", "ART", "MUS", "PHIL"
+    };
+    private static final String[] SUBJECT_WORDS = {
+        "Introduction", "to", "Advanced", "Data", "Structures", "Java", "Programming", "Calculus",
+        "University", "Physics", "English", "Composition", "Operating", "Systems", "Computer",
+        "Networks", "Algorithms", "Theory", "Statistics", "Organic", "Chemistry", "Molecular",
+        "Biology", "World", "History", "Modern", "Design", "Analysis", "Linear", "Algebra",
+        "Discrete", "Mathematics", "Microeconomics", "Psychology", "Ethics", "Music", "Drawing",
+        "Databases", "Software", "Engineering", "Machine", "Learning", "Security", "Literature"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace", "Henry", "Iris", "Jack",
+        "Karen", "Leo", "Maria", "Nina", "Oscar", "Paul", "Qing", "Rosa", "Sam", "Tina", "Wei", "Yuki"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Lee", "Brown", "Wang", "Davis", "Johnson", "Martinez", "Garcia", "Chen", "Kim",
+        "Nguyen", "Patel", "Wilson", "Taylor", "Anderson", "Thomas", "Moore", "Zhang", "Lopez", "Clark"
+    };
+    // Ordered from most to least frequent (sampled with a Zipf distribution)
+    private static final String[] COMMENT_WORDS = {
+        "the", "very", "and", "good", "class", "great", "professor", "clear", "helpful", "lectures",
+        "homework", "is", "exams", "explanation", "fair", "hard", "interesting", "examples", "heavy",
+        "workload", "engaging", "office", "hours", "organized", "boring", "fast", "paced", "challenging",
+        "feedback", "labs", "recommend", "difficult", "easy", "notes", "quizzes", "projects", "grading",
+        "strict", "funny", "patient", "confusing", "slides", "textbook", "useful", "best", "worst"
+    };
+
+    private final String[] courseIds;               // Course ID per course rank
+    private final String[] courseNames;             // Course name per course rank
+    private final String[] professorNames;          // Professor name per professor rank
+    private final int[][] courseProfessors;         // Professors teaching each course (most active first)
+    private final ZipfDistribution coursePopularity;
+    private final ZipfDistribution professorPopularity;
+    private final ZipfDistribution wordFrequency;
+    private final ZipfDistribution slotFrequency;   // Which of a course's professors gets a rating
+    private final SplittableRandom random;
+
+    /**
+     * Constructor
+     * @param seed random seed (same seed, same dataset)
+     * @param courses number of distinct courses
+     * @param professors number of distinct professors
+     * @param skew Zipf exponent for course and professor popularity (0 = uniform)
+     */
+    public DatasetGenerator(long seed, int courses, int professors, double skew) {
+        this.random = new SplittableRandom(seed);
+        this.courseIds = new String[courses];
+        this.courseNames = new String[courses];
+        this.professorNames = new String[professors];
+
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0; i < courses; i++) {
+            String department = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+            courseIds[i] = department + (1000 + i);
+
+            // 2-5 words, made unique so every course gets its own name
+            String name;
+            do {
+                StringBuilder sb = new StringBuilder();
+                int words = 2 + random.nextInt(4);
+                for (int w = 0; w < words; w++) {
+                    if (w > 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(SUBJECT_WORDS[random.nextInt(SUBJECT_WORDS.length)]);
+                }
+                if (usedNames.contains(sb.toString().toLowerCase())) {
+                    sb.append(' ').append(Character.forDigit(1 + random.nextInt(9), 10))
+                      .append(random.nextInt(1000));
+                }
+                name = sb.toString();
+            } while (!usedNames.add(name.toLowerCase()));
+            courseNames[i] = name;
+        }
+
+        Set<String> usedProfessors = new HashSet<>();
+        for (int i = 0; i < professors; i++) {
+            String name = "Dr. " + FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]
+                    + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            if (!usedProfessors.add(name)) {
+                name = name + " " + i;
+                usedProfessors.add(name);
+            }
+            professorNames[i] = name;
+        }
+
+        this.coursePopularity = new ZipfDistribution(courses, skew);
+        this.professorPopularity = new ZipfDistribution(professors, skew);
+        this.wordFrequency = new ZipfDistribution(COMMENT_WORDS.length, 1.0);
+        this.slotFrequency = new ZipfDistribution(PROFESSORS_PER_COURSE, 1.0);
+
+        // Each course is taught by a few professors; popular professors teach more courses
+        this.courseProfessors = new int[courses][PROFESSORS_PER_COURSE];
+        for (int i = 0; i < courses; i++) {
+            for (int slot = 0; slot < PROFESSORS_PER_COURSE; slot++) {
+                courseProfessors[i][slot] = professorPopularity.sample(random);
+            }
+        }
+    }
+
+    /**
+     * Copy sharing the entity tables but with an independent random stream
+     * (one per load-driver thread)
+     */
+    private DatasetGenerator(DatasetGenerator source, SplittableRandom random) {
+        this.courseIds = source.courseIds;
+        this.courseNames = source.courseNames;
+        this.professorNames = source.professorNames;
+        this.courseProfessors = source.courseProfessors;
+        this.slotFrequency = source.slotFrequency;
+        this.coursePopularity = source.coursePopularity;
+        this.professorPopularity = source.professorPopularity;
+        this.wordFrequency = source.wordFrequency;
+        this.random = random;
+    }
+
+    /**
+     * Split off an independent generator over the same courses and professors
+     */
+    public DatasetGenerator split() {
+        return new DatasetGenerator(this, random.split());
+    }
+
+    /**
+     * Draw a course (popular courses are drawn more often)
+     * @return course index
+     */
+    public int nextCourse() {
+        return coursePopularity.sample(random);
+    }
+
+    /**
+     * Draw a professor teaching a course
+     * @param course course index
+     * @return professor index
+     */
+    public int nextProfessor(int course) {
+        return courseProfessors[course][slotFrequency.sample(random)];
+    }
+
+    /**
+     * Draw a professor independent of any course
+     * @return professor index
+     */
+    public int nextProfessor() {
+        return professorPopularity.sample(random);
+    }
+
+    /**
+     * Draw a rating score in 0.0-5.0, skewed towards good ratings like real reviews
+     */
+    public double nextScore() {
+        double score = 5.0 - Math.abs(random.nextDouble() + random.nextDouble() - 0.6) * 2.5;
+        return Math.max(0, Math.min(5, Math.round(score * 10) / 10.0));
+    }
+
+    /**
+     * Draw a comment of 3-15 words, occasionally containing a comma
+     */
+    public String nextComment() {
+        StringBuilder sb = new StringBuilder();
+        int words = 3 + random.nextInt(13);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(random.nextInt(20) == 0 ? ", " : " ");
+            }
+            sb.append(COMMENT_WORDS[wordFrequency.sample(random)]);
+        }
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    /**
+     * Draw a keyword that appears in course names
+     */
+    public String nextKeyword() {
+        return SUBJECT_WORDS[random.nextInt(SUBJECT_WORDS.length)].toLowerCase();
+    }
+
+    public String getCourseId(int course) {
+        return courseIds[course];
+    }
+
+    public String getCourseName(int course) {
+        return courseNames[course];
+    }
+
+    public String getProfessorName(int professor) {
+        return professorNames[professor];
+    }
+
+    public int getCourseCount() {
+        return courseIds.length;
+    }
+
+    public int getProfessorCount() {
+        return professorNames.length;
+    }
+
+    /**
+     * Write rating rows as CSV (with header)
+     * @param out destination
+     * @param ratings number of rating rows
+     */
+    public void writeCsv(Writer out, long ratings) throws IOException {
+        writeCsv(out, ratings, 0);
+    }
+
+    /**
+     * Write rating rows as CSV (with header)
+     * @param out destination
+     * @param ratings number of rating rows
+     * @param days spread rating times uniformly over this many days up to today
+     *             (timestamp column); 0 = no timestamp column
+     */
+    public void writeCsv(Writer out, long ratings, int days) throws IOException {
+        out.write((days > 0 ? RatingSystem.CSV_HEADER_TIMESTAMP : RatingSystem.CSV_HEADER) + "\n");
+        long end = RatingWindow.today() * MILLIS_PER_DAY;
+        StringBuilder line = new StringBuilder(160);
+        for (long i = 0; i < ratings; i++) {
+            int course = nextCourse();
+            line.setLength(0);
+            line.append(courseIds[course]).append(',')
+                .append(courseNames[course]).append(',')
+                .append(professorNames[nextProfessor(course)]).append(',')
+                .append(nextScore()).append(',');
+            if (days > 0) {
+                long seconds = random.nextLong(days * MILLIS_PER_DAY / 1000);
+                line.append(Rating.formatTimestamp(end - days * MILLIS_PER_DAY + seconds * 1000)).append(',');
+            }
+            line.append(nextComment()).append('\n');
+            out.append(line);
+        }
+    }
+
+    /**
+     * Write rating rows to a CSV file
+     * @param filename output file
+     * @param ratings number of rating rows
+     * @param days spread rating times over this many days up to today, 0 = no timestamp column
+     */
+    public void writeCsv(String filename, long ratings, int days) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+            writeCsv(out, ratings, days);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java DatasetGenerator output.csv ratings [seed] [courses] [professors] [skew] [days]");
+            System.out.println("  seed        random seed (default 42)");
+            System.out.println("  courses     distinct courses (default ratings / 50)");
+            System.out.println("  professors  distinct professors (default ratings / 100)");
+            System.out.println("  skew        Zipf exponent of course/professor popularity, 0 = uniform (default 1.0)");
+            System.out.println("  days        add a timestamp column, times spread over the last days days (default 0 = none)");
+            return;
+        }
+
+        long ratings = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int courses = args.length > 3 ? Integer.parseInt(args[3]) : (int) Math.max(10, ratings / 50);
+        int professors = args.length > 4 ? Integer.parseInt(args[4]) : (int) Math.max(5, ratings / 100);
+        double skew = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+        int days = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+
+        long start = System.nanoTime();
+        new DatasetGenerator(seed, courses, professors, skew).writeCsv(args[0], ratings, days);
+        System.out.printf("Generated %d rating(s) for %d course(s) and %d professor(s) in %.1f s: %s%n",
+                          ratings, courses, professors, (System.nanoTime() - start) / 1e9, args[0]);
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DatasetHost class: Many named datasets (one RatingSystem each) in one process
+ * Every dataset has its own data file and DataReloader (background loads, reloads,
+ * saves, watching and tailing), and all of them intern their strings in one shared
+ * StringDictionary, so course titles and common comments are kept once per process.
+ *
+ *   - lazy loading: a dataset is registered with its file only; the file is loaded
+ *     in the background the first time the dataset is used
+ *   - idle unloading: a dataset not used for idleUnloadMillis is saved (if it has
+ *     unsaved changes) and unloaded; it is loaded again when next used
+ *   - memory accounting: estimateMemoryBytes() per dataset (see
+ *     RatingSystem.estimateMemoryBytes) plus the dictionary; over maxBytes, the least
+ *     recently used datasets are unloaded first
+ * Pinned datasets, datasets still loading and datasets being watched or tailed are
+ * never unloaded, and the memory limit only unloads datasets unused for a whole
+ * sweep interval. A sweep runs every SWEEP_INTERVAL_MILLIS on a background thread.
+ *
+ * Unloading takes the dataset out of service before saving it: a use during the
+ * unload waits and then loads the saved file again. Callers should get the
+ * RatingSystem from the host for every operation, not keep it: writes to a
+ * RatingSystem kept past an unload are refused (AddResult.RETIRED)
+ */
+public class DatasetHost {
+    /** Idle time before a dataset is unloaded, -Drating.idleUnloadMinutes=<n> (0 = never) */
+    public static final long DEFAULT_IDLE_UNLOAD_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("rating.idleUnloadMinutes", 30));
+    /** Memory for all datasets, -Drating.hostMemoryMB=<n> (0 = unlimited) */
+    public static final long DEFAULT_MAX_BYTES = Math.max(0, Long.getLong("rating.hostMemoryMB", 0)) << 20;
+
+    private static final long SWEEP_INTERVAL_MILLIS = 30000;
+
+    private final StringDictionary dictionary;                      // Shared by all datasets
+    private final Map<String, Dataset> datasets;                    // Name -> dataset, sorted by name
+    private final long idleUnloadMillis;                            // 0 = never unload idle datasets
+    private final long maxBytes;                                    // 0 = no memory limit
+    private final ScheduledExecutorService sweeper;                 // Runs unloadIdle periodically
+    private final AtomicBoolean sweeping = new AtomicBoolean();     // True once the sweep is scheduled
+
+    /**
+     * Dataset class: One named data file and, while loaded, its RatingSystem
+     */
+    private class Dataset {
+        final String name;
+        final String filename;
+        volatile DataReloader reloader;     // null while unloaded
+        volatile long lastUsed;             // System.currentTimeMillis() of the last use
+        volatile boolean pinned;            // Never unloaded
+        volatile long estimatedBytes;       // From the last sweep or estimate (0 while unloaded)
+        volatile int loads;                 // Times loaded
+
+        Dataset(String name, String filename) {
+            this.name = name;
+            this.filename = filename;
+        }
+
+        /**
+         * Get the reloader, loading the dataset first if it is unloaded
+         */
+        DataReloader reloader() {
+            lastUsed = System.currentTimeMillis();
+            DataReloader r = reloader;
+            if (r != null) {
+                return r;
+            }
+            synchronized (this) {
+                if (reloader == null) {
+                    DataReloader fresh = new DataReloader(filename, newSystem(), DatasetHost.this::newSystem);
+                    fresh.loadInBackground();
+                    loads++;
+                    reloader = fresh;
+                }
+                return reloader;
+            }
+        }
+
+        /**
+         * Save and unload, unless the dataset is in use by a load, a watcher or a tailer
+         * The reloader is cleared first, so reloader() waits for this monitor and then
+         * loads the saved file; the old RatingSystem is retired once saved, so a write
+         * through a reference taken earlier is refused rather than lost. If the save
+         * fails, the dataset stays loaded with its changes
+         * @return false if it was kept
+         */
+        synchronized boolean unload() {
+            DataReloader r = reloader;
+            if (r == null) {
+                return true;
+            }
+            if (r.current().isLoading() || r.isReloading() || r.isWatching() || r.isTailing()) {
+                return false;
+            }
+            reloader = null;
+            if (!r.saveAndRetire()) {
+                reloader = r;
+                System.out.println("\nError: Dataset " + name + " could not be saved, so it stays loaded.");
+                return false;
+            }
+            estimatedBytes = 0;
+            r.shutdown();
+            return true;
+        }
+    }
+
+    /**
+     * Constructor: idle unloading and memory limit from the system properties
+     */
+    public DatasetHost() {
+        this(DEFAULT_IDLE_UNLOAD_MILLIS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructor
+     * @param idleUnloadMillis unload datasets not used for this long (0 = never)
+     * @param maxBytes estimated bytes of all datasets and the dictionary; least recently
+     *                 used datasets are unloaded beyond it (0 = unlimited)
+     */
+    public DatasetHost(long idleUnloadMillis, long maxBytes) {
+        this.dictionary = new StringDictionary();
+        this.datasets = new ConcurrentSkipListMap<>();
+        this.idleUnloadMillis = idleUnloadMillis;
+        this.maxBytes = maxBytes;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dataset-host");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Empty RatingSystem of a dataset (index and memory budget from the system properties)
+     */
+    private RatingSystem newSystem() {
+        return new RatingSystem(System.getProperty("rating.index", "avl"), RatingSpillStore.DEFAULT_BUDGET_BYTES,
+                                dictionary);
+    }
+
+    /**
+     * Register a dataset; its file is loaded when the dataset is first used
+     * @param name dataset name
+     * @param filename data file
+     * @return false if a dataset with this name exists
+     */
+    public boolean register(String name, String filename) {
+        if (sweeping.compareAndSet(false, true)) {
+            sweeper.scheduleWithFixedDelay(this::unloadIdle, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+                                           TimeUnit.MILLISECONDS);
+        }
+        return datasets.putIfAbsent(name, new Dataset(name, filename)) == null;
+    }
+
+    /**
+     * Check if a dataset is registered
+     */
+    public boolean contains(String name) {
+        return datasets.containsKey(name);
+    }
+
+    /**
+     * Names of all registered datasets, sorted
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(datasets.keySet());
+    }
+
+    /**
+     * Get the RatingSystem of a dataset, loading it in the background if needed
+     * Counts as a use of the dataset
+     * @return RatingSystem, null if no dataset has this name
+     */
+    public RatingSystem system(String name) {
+        DataReloader reloader = reloader(name);
+        return reloader == null ? null : reloader.current();
+    }
+
+    /**
+     * Get the DataReloader of a dataset, loading it in the background if needed
+     * @return DataReloader, null if no dataset has this name
+     */
+    public DataReloader reloader(String name) {
+        Dataset dataset = datasets.get(name);
+        return dataset == null ? null : dataset.reloader();
+    }
+
+    /**
+     * Get the data file of a dataset (null if no dataset has this name)
+     */
+    public String getFilename(String name) {
+        Dataset dataset = datasets.get(name);
+        return dataset == null ? null : dataset.filename;
+    }
+
+    /**
+     * Check if a dataset is loaded (or loading)
+     */
+    public boolean isLoaded(String name) {
+        Dataset dataset = datasets.get(name);
+        return dataset != null && dataset.reloader != null;
+    }
+
+    /**
+     * Keep a dataset loaded (e.g., the one a user is working with) or allow unloading it again
+     */
+    public void setPinned(String name, boolean pinned) {
+        Dataset dataset = datasets.get(name);
+        if (dataset != null) {
+            dataset.pinned = pinned;
+        }
+    }
+
+    /**
+     * Save (if changed) and unload a dataset now
+     * @return false if it is loading, watched or tailed, or cannot be saved, and stays loaded
+     */
+    public boolean unload(String name) {
+        Dataset dataset = datasets.get(name);
+        return dataset == null || dataset.unload();
+    }
+
+    /**
+     * Estimate the heap bytes of a dataset (0 while unloaded); not counted as a use
+     */
+    public long estimateMemoryBytes(String name) {
+        Dataset dataset = datasets.get(name);
+        DataReloader reloader = dataset == null ? null : dataset.reloader;
+        if (reloader == null) {
+            return 0;
+        }
+        dataset.estimatedBytes = reloader.current().estimateMemoryBytes();
+        return dataset.estimatedBytes;
+    }
+
+    /**
+     * Estimate the heap bytes of all loaded datasets and the shared dictionary
+     */
+    public long estimateTotalBytes() {
+        long bytes = dictionary.estimateBytes();
+        for (String name : datasets.keySet()) {
+            bytes += estimateMemoryBytes(name);
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the dictionary shared by all datasets
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Unload datasets idle for longer than idleUnloadMillis, then the least recently
+     * used ones while the estimated total is over maxBytes; for memory, only datasets
+     * unused for at least SWEEP_INTERVAL_MILLIS are unloaded (not one in active use)
+     * @return number of datasets unloaded
+     */
+    public int unloadIdle() {
+        int unloaded = 0;
+        long now = System.currentTimeMillis();
+        List<Dataset> candidates = new ArrayList<>();
+        for (Dataset dataset : datasets.values()) {
+            if (dataset.reloader == null || dataset.pinned) {
+                continue;
+            }
+            if (idleUnloadMillis > 0 && now - dataset.lastUsed > idleUnloadMillis) {
+                if (dataset.unload()) {
+                    unloaded++;
+                    System.out.println("\nDataset " + dataset.name + " unloaded after "
+                                       + (now - dataset.lastUsed) / 1000 + " s idle.");
+                }
+            } else if (now - dataset.lastUsed >= SWEEP_INTERVAL_MILLIS) {
+                candidates.add(dataset);
+            }
+        }
+
+        if (maxBytes > 0) {
+            long total = estimateTotalBytes();
+            candidates.sort((a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+            for (Dataset dataset : candidates) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                long bytes = dataset.estimatedBytes;
+                if (dataset.unload()) {
+                    unloaded++;
+                    total -= bytes;
+                    System.out.printf("%nDataset %s unloaded to stay within the memory limit (~%.1f MB freed).%n",
+                                      dataset.name, bytes / (1024.0 * 1024.0));
+                }
+            }
+        }
+        return unloaded;
+    }
+
+    /**
+     * One line per dataset: name, file, state, estimated memory and idle time
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Dataset dataset : datasets.values()) {
+            DataReloader reloader = dataset.reloader;
+            String state;
+            if (reloader == null) {
+                state = dataset.loads == 0 ? "not loaded" : "unloaded";
+            } else {
+                state = String.format("%s, ~%.1f MB, idle %d s", reloader.current().isLoading() ? "loading" : "loaded",
+                                      estimateMemoryBytes(dataset.name) / (1024.0 * 1024.0),
+                                      (now - dataset.lastUsed) / 1000);
+            }
+            lines.add(dataset.name + " (" + dataset.filename + "): " + state + (dataset.pinned ? ", in use" : ""));
+        }
+        return lines;
+    }
+
+    /**
+     * Save every loaded dataset with unsaved changes and stop all background threads
+     * A dataset that cannot be saved is kept (not retired) and reported
+     * @return false if some dataset could not be saved
+     */
+    public boolean shutdown() {
+        sweeper.shutdown();
+        boolean allSaved = true;
+        for (Dataset dataset : datasets.values()) {
+            synchronized (dataset) {
+                DataReloader reloader = dataset.reloader;
+                if (reloader == null) {
+                    continue;
+                }
+                if (!reloader.saveAndRetire()) {
+                    System.out.println("Error: Dataset " + dataset.name + " could not be saved to "
+                                       + dataset.filename + "!");
+                    allSaved = false;
+                    continue;
+                }
+                dataset.reloader = null;
+                reloader.shutdown();
+            }
+        }
+        return allSaved;
+    }
+}
@@ -0,0 +1,205 @@
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * FrozenCourseIndex class: Read-only course index built from sorted arrays
+ * Used by RatingSystem in frozen mode instead of the mutable index. Courses and their
+ * sort keys are kept in contiguous arrays in the mutable index's order, so lookups
+ * are binary searches and scans walk memory sequentially instead of chasing
+ * AVLNode pointers. Built by CourseIndex.freeze(): an AVL tree with a collator
+ * hands over its collation keys, so frozen and thawed data are ordered the same
+ */
+public class FrozenCourseIndex implements CourseIndex {
+    private final Course[] courses;             // Courses sorted by name
+    private final String[] keys;                // Case-folded names, same order as courses
+    private final CollationKey[] collationKeys; // Collation keys, same order (null without a collator)
+    private final Collator collator;            // Collator the order comes from, null = case folding
+    private final String[] lowerNames;          // Lower case course names, same order as courses
+
+    /**
+     * Constructor
+     * @param sortedCourses courses sorted by name, case-insensitive (compareToIgnoreCase order)
+     */
+    public FrozenCourseIndex(List<Course> sortedCourses) {
+        this.courses = sortedCourses.toArray(new Course[0]);
+        this.keys = new String[courses.length];
+        this.lowerNames = new String[courses.length];
+        for (int i = 0; i < courses.length; i++) {
+            keys[i] = CourseIndex.foldCase(courses[i].getCourseName());
+            lowerNames[i] = courses[i].getLowerCaseName();
+        }
+        this.collationKeys = null;
+        this.collator = null;
+    }
+
+    /**
+     * Constructor: take over the sort keys of an index (see CourseAVLTree.freeze)
+     * @param courses courses in the index's order
+     * @param keys case-folded names
+     * @param collationKeys collation keys, null without a collator
+     * @param collator collator that produced collationKeys, null without one
+     * @param lowerNames lower case names
+     */
+    FrozenCourseIndex(Course[] courses, String[] keys, CollationKey[] collationKeys, Collator collator,
+                      String[] lowerNames) {
+        this.courses = courses;
+        this.keys = keys;
+        this.collationKeys = collationKeys;
+        this.collator = collator;
+        this.lowerNames = lowerNames;
+    }
+
+    /**
+     * Frozen index is read-only
+     */
+    @Override
+    public void insert(Course course) {
+        throw new UnsupportedOperationException("Frozen course index is read-only");
+    }
+
+    /**
+     * Frozen index is read-only
+     */
+    @Override
+    public boolean delete(Course course) {
+        throw new UnsupportedOperationException("Frozen course index is read-only");
+    }
+
+    /**
+     * Search by course name keyword
+     * A keyword can appear anywhere in a name, so all names are scanned (sequentially)
+     */
+    @Override
+    public List<Course> searchByName(String keyword) {
+        List<Course> results = new ArrayList<>();
+        String lowerKeyword = keyword.toLowerCase();
+
+        for (int i = 0; i < lowerNames.length; i++) {
+            if (lowerNames[i].contains(lowerKeyword)) {
+                results.add(courses[i]);
+            }
+        }
+        RatingSystemMetrics.SEARCH_BY_NAME.addNodesScanned(lowerNames.length);
+        return results;
+    }
+
+    /**
+     * Search by exact course name (binary search)
+     */
+    @Override
+    public Course searchByExactName(String courseName) {
+        String key = CourseIndex.foldCase(courseName);
+        CollationKey collationKey = collator == null ? null : collator.getCollationKey(courseName);
+        int index = lowerBound(key, collationKey);
+        if (index < courses.length && compare(key, collationKey, index) == 0) {
+            return courses[index];
+        }
+        return null;
+    }
+
+    /**
+     * Search all courses by first letter
+     * Binary search finds the first candidate, then matches are contiguous; a
+     * collator orders differently, so then every name is checked
+     */
+    @Override
+    public List<Course> searchByFirstLetter(char letter) {
+        List<Course> results = new ArrayList<>();
+        char folded = CourseIndex.foldChar(letter);
+
+        if (collator != null) {
+            for (int i = 0; i < courses.length; i++) {
+                if (keys[i].charAt(0) == folded) {
+                    results.add(courses[i]);
+                }
+            }
+            return results;
+        }
+
+        for (int i = lowerBound(String.valueOf(folded), null); i < courses.length; i++) {
+            if (keys[i].charAt(0) != folded) {
+                break;
+            }
+            results.add(courses[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Compare a search key with the key at a position
+     */
+    private int compare(String key, CollationKey collationKey, int index) {
+        return collationKey != null ? collationKey.compareTo(collationKeys[index]) : key.compareTo(keys[index]);
+    }
+
+    /**
+     * Find the first position whose key is not less than the given key
+     */
+    private int lowerBound(String key, CollationKey collationKey) {
+        int low = 0;
+        int high = courses.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(key, collationKey, mid) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get all courses (sorted by name)
+     */
+    @Override
+    public List<Course> getAllCoursesSorted() {
+        return new ArrayList<>(Arrays.asList(courses));
+    }
+
+    /**
+     * Walk the sorted array until the visitor returns false
+     */
+    @Override
+    public void scanSorted(Predicate<Course> visitor) {
+        for (Course course : courses) {
+            if (!visitor.test(course)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Name order of this index: by the collator it was built with, if any
+     */
+    @Override
+    public Comparator<Course> nameOrder() {
+        if (collator == null) {
+            return CourseIndex.super.nameOrder();
+        }
+        Collator copy = (Collator) collator.clone();
+        return (a, b) -> copy.compare(a.getCourseName(), b.getCourseName());
+    }
+
+    /**
+     * Get number of courses
+     */
+    @Override
+    public int size() {
+        return courses.length;
+    }
+
+    /**
+     * Check if index is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return courses.length == 0;
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * FrozenRatings class: Read-only rating list stored as columns
+ * Used by CourseProfessor in frozen mode instead of a list of Rating objects.
+ * Scores, comments, timestamps and sequence numbers are kept in parallel arrays,
+ * so a rating costs 12 bytes (score + comment reference) instead of a 40-byte
+ * Rating object plus its list slot. Timestamps and sequence numbers are only
+ * stored when needed: files without timestamps have none, and sequence numbers
+ * are usually 1, 2, ... without gaps.
+ *
+ * get() builds a new Rating each time (like a list read back by RatingSpillStore),
+ * so ratings are identified by getSequence(), not by object identity
+ */
+public class FrozenRatings extends AbstractList<Rating> implements RandomAccess {
+    private final double[] scores;      // Rating scores, in sequence order
+    private final String[] comments;    // Comments, same order
+    private final long[] timestamps;    // Epoch milliseconds, same order (null: all unknown)
+    private final int[] sequences;      // Sequence numbers, same order (null: 1, 2, ..., size)
+
+    /**
+     * Constructor: copy the live ratings of a list
+     * @param ratings ratings in sequence order, none of them removed
+     */
+    public FrozenRatings(List<Rating> ratings) {
+        int size = ratings.size();
+        scores = new double[size];
+        comments = new String[size];
+        long[] times = new long[size];
+        int[] numbers = new int[size];
+        boolean timed = false;
+        boolean numbered = true;        // Sequence numbers are exactly 1, 2, ..., size
+
+        for (int i = 0; i < size; i++) {
+            Rating rating = ratings.get(i);
+            scores[i] = rating.getScore();
+            comments[i] = rating.getComment();
+            times[i] = rating.getTimestamp();
+            numbers[i] = rating.getSequence();
+            timed |= rating.hasTimestamp();
+            numbered &= numbers[i] == i + 1;
+        }
+        timestamps = timed ? times : null;
+        sequences = numbered ? null : numbers;
+    }
+
+    /**
+     * Estimate the heap bytes of the columns (comment strings not included)
+     */
+    public long estimateBytes() {
+        long bytes = 64 + 12L * scores.length;     // Object and array headers, scores and comment references
+        if (timestamps != null) {
+            bytes += 8L * timestamps.length;
+        }
+        if (sequences != null) {
+            bytes += 4L * sequences.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Rating get(int index) {
+        long timestamp = timestamps == null ? 0 : timestamps[index];
+        Rating rating = new Rating(scores[index], comments[index], timestamp);
+        rating.setSequence(sequences == null ? index + 1 : sequences[index]);
+        return rating;
+    }
+
+    @Override
+    public int size() {
+        return scores.length;
+    }
+}
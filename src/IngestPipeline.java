@@ -0,0 +1,459 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * IngestPipeline class: Multi-threaded bulk loading of a CSV file into a RatingSystem
+ * The sequential load loop is split into stages connected by bounded
+ * single-producer/single-consumer ring buffers. Rows travel in batches:
+ *
+ *   reader --> parser 0..P-1 --> resolver --+--> appender 0..A-1   (CourseProfessor.addRating)
+ *   (caller)   split, validate   (courses,  |    partitioned by course
+ *              tokenize comments  professors)+--> comment indexer
+ *
+ * Batches are dealt to the parsers round-robin and the resolver collects them
+ * in the same order, so ratings end up in file order exactly like the
+ * sequential load. All ratings of a course go to the same appender, so every
+ * CourseProfessor is only ever written by one thread; department and level
+ * totals (RatingRollup) span courses, so the resolver adds to them. When a
+ * stage falls behind, its input ring fills up and the stage before it waits
+ * (spin, yield, then park) instead of buffering without bound.
+ *
+ * With a RatingDeduplicator the resolver drops duplicates in file order. Its exact
+ * check reads the pair's list, which the appenders fill, so when the filter cannot
+ * rule a rating out the resolver first waits until the earlier ratings routed to
+ * that pair have been appended (rare: only for repeats and false positives).
+ *
+ * The caller must hold the RatingSystem's write lock for the whole run
+ */
+public class IngestPipeline {
+    private static final int BATCH_SIZE = 1024;             // Rows per batch
+    private static final int RING_CAPACITY = 16;            // Batches per ring buffer
+    private static final int SPIN_ROUNDS = 100;             // Busy-wait rounds before yielding
+    private static final int YIELD_ROUNDS = 100;            // Yield rounds before parking
+    private static final long PARK_NANOS = 50_000;          // Park time once a wait gets long
+
+    private static final String[] LINES_END = new String[0];                // End of input markers
+    private static final ParsedBatch PARSED_END = new ParsedBatch();
+    private static final AppendBatch APPEND_END = new AppendBatch();
+
+    private final RatingSystem system;
+    private final CommentIndex commentIndex;
+    private final RatingDeduplicator deduplicator;                  // Drops duplicates (null: keep them)
+    private final List<SpscRingBuffer<String[]>> lineRings;         // reader -> parser i
+    private final List<SpscRingBuffer<ParsedBatch>> parsedRings;    // parser i -> resolver
+    private final List<SpscRingBuffer<AppendBatch>> appendRings;    // resolver -> appender j
+    private final SpscRingBuffer<ParsedBatch> indexRing;            // resolver -> comment indexer
+    private final AtomicLongArray appended;                         // Ratings appended, per appender
+    private final long[] routed;                                    // Ratings routed to each appender (resolver only)
+    private final Map<CourseProfessor, Long> lastRouted;            // Pair -> its appender's routed count after its last rating
+    private final List<Thread> workers;
+    private volatile Throwable failure;                             // First error of any stage
+    private int loaded;                                             // Ratings added (written by the resolver)
+    private int skipped;                                            // Invalid rows (written by the resolver)
+    private int duplicates;                                         // Duplicates dropped (written by the resolver)
+    private long stalls;                                            // Waits on a full ring by the reader
+    private int columns;                                            // 6 if the file has the timestamp column, else 5
+
+    /**
+     * ParsedBatch class: Parsed rows from one parser
+     * The resolver fills in owners and passes the same batch on to the comment indexer
+     */
+    private static class ParsedBatch {
+        String[] courseIds = new String[BATCH_SIZE];
+        String[] courseNames = new String[BATCH_SIZE];
+        String[] professorNames = new String[BATCH_SIZE];
+        Rating[] ratings = new Rating[BATCH_SIZE];              // null for an invalid row
+        List<String>[] words = newWordLists();                  // Comment words per row
+        CourseProfessor[] owners = new CourseProfessor[BATCH_SIZE];
+        int count;                                              // Rows in the batch
+        int skipped;                                            // Invalid rows in the batch
+
+        @SuppressWarnings("unchecked")
+        private static List<String>[] newWordLists() {
+            return (List<String>[]) new List<?>[BATCH_SIZE];
+        }
+    }
+
+    /**
+     * AppendBatch class: Ratings for the courses owned by one appender
+     */
+    private static class AppendBatch {
+        CourseProfessor[] owners = new CourseProfessor[BATCH_SIZE];
+        Rating[] ratings = new Rating[BATCH_SIZE];
+        int count;
+    }
+
+    /**
+     * Constructor
+     * @param system RatingSystem to load into
+     * @param commentIndex the system's comment index
+     * @param deduplicator the system's duplicate filter (null: keep duplicates)
+     * @param parsers number of parser threads
+     * @param appenders number of appender threads
+     */
+    IngestPipeline(RatingSystem system, CommentIndex commentIndex, RatingDeduplicator deduplicator,
+                   int parsers, int appenders) {
+        if (parsers < 1 || appenders < 1) {
+            throw new IllegalArgumentException("Need at least one parser and one appender");
+        }
+
+        this.system = system;
+        this.commentIndex = commentIndex;
+        this.deduplicator = deduplicator;
+        this.lineRings = new ArrayList<>();
+        this.parsedRings = new ArrayList<>();
+        this.appendRings = new ArrayList<>();
+        this.indexRing = new SpscRingBuffer<>(RING_CAPACITY);
+        this.workers = new ArrayList<>();
+        this.appended = new AtomicLongArray(appenders);
+        this.routed = new long[appenders];
+        this.lastRouted = new HashMap<>();
+
+        for (int i = 0; i < parsers; i++) {
+            SpscRingBuffer<String[]> in = new SpscRingBuffer<>(RING_CAPACITY);
+            SpscRingBuffer<ParsedBatch> out = new SpscRingBuffer<>(RING_CAPACITY);
+            lineRings.add(in);
+            parsedRings.add(out);
+            workers.add(worker("ingest-parser-" + i, () -> parse(in, out)));
+        }
+        workers.add(worker("ingest-resolver", this::resolve));
+        for (int i = 0; i < appenders; i++) {
+            SpscRingBuffer<AppendBatch> in = new SpscRingBuffer<>(RING_CAPACITY);
+            int partition = i;
+            appendRings.add(in);
+            workers.add(worker("ingest-appender-" + i, () -> append(in, partition)));
+        }
+        workers.add(worker("ingest-indexer", this::index));
+    }
+
+    /**
+     * Load a file; the calling thread reads it while the worker threads do the rest
+     * Format: courseId,courseName,professorName,rating,[timestamp,]comment (first line is a header)
+     */
+    void run(String filename) throws IOException, InterruptedException {
+        try (BufferedReader br = CompressedFiles.newReader(filename)) {
+            // The header decides the format; read before the parsers start, so they all see it
+            columns = RatingSystem.hasTimestampColumn(br.readLine()) ? 6 : 5;
+            for (Thread worker : workers) {
+                worker.start();
+            }
+
+            int next = 0;
+            String[] lines = new String[BATCH_SIZE];
+            int count = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                lines[count++] = line;
+                if (count == BATCH_SIZE) {
+                    if (put(lineRings.get(next), lines)) {
+                        stalls++;
+                    }
+                    next = (next + 1) % lineRings.size();
+                    lines = new String[BATCH_SIZE];
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                put(lineRings.get(next), lines);    // Unused slots stay null
+            }
+            for (SpscRingBuffer<String[]> ring : lineRings) {
+                put(ring, LINES_END);
+            }
+        } catch (CancellationException e) {
+            // A stage failed, reported below
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            throw e;
+        } finally {
+            joinWorkers();
+        }
+
+        Throwable error = failure;
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Loading failed", error);
+        }
+    }
+
+    public int getLoaded() {
+        return loaded;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Number of duplicate ratings dropped
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Number of times the reader found a parser's ring full and had to wait
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Check if the file had the timestamp column
+     */
+    public boolean isTimestamped() {
+        return columns == 6;
+    }
+
+    /**
+     * Parser stage: split, validate, build Rating objects and tokenize comments
+     */
+    private void parse(SpscRingBuffer<String[]> in, SpscRingBuffer<ParsedBatch> out) {
+        String[] lines;
+        while ((lines = take(in)) != LINES_END) {
+            ParsedBatch batch = new ParsedBatch();
+            for (String line : lines) {
+                if (line == null) {
+                    break;
+                }
+                parseLine(line, batch);
+            }
+            put(out, batch);
+        }
+        put(out, PARSED_END);
+    }
+
+    private void parseLine(String line, ParsedBatch batch) {
+        String[] parts = line.split(",", columns);
+        if (parts.length < columns) {
+            return;     // Not a rating row, ignored like in the sequential load
+        }
+
+        int row = batch.count++;
+        String courseId = parts[0].trim();
+        String courseName = parts[1].trim();
+        String professorName = parts[2].trim();
+        double score;
+        long timestamp;
+        try {
+            score = Double.parseDouble(parts[3].trim());
+            timestamp = columns == 6 ? Rating.parseTimestamp(parts[4].trim()) : 0;
+        } catch (NumberFormatException e) {
+            batch.skipped++;
+            return;
+        }
+        if (RatingSystem.validateRating(courseId, courseName, professorName, score) != null) {
+            batch.skipped++;
+            return;
+        }
+
+        Rating rating = new Rating(score, system.intern(parts[columns - 1].trim()), timestamp);
+        batch.courseIds[row] = courseId;
+        batch.courseNames[row] = courseName;
+        batch.professorNames[row] = professorName;
+        batch.ratings[row] = rating;
+        batch.words[row] = CommentIndex.tokenize(rating.getComment());
+    }
+
+    /**
+     * Resolver stage: find or create courses, professors and their links in file order,
+     * then route every rating to the appender owning its course and to the indexer
+     */
+    private void resolve() {
+        AppendBatch[] pending = new AppendBatch[appendRings.size()];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new AppendBatch();
+        }
+
+        int next = 0;
+        ParsedBatch batch;
+        while ((batch = take(parsedRings.get(next))) != PARSED_END) {
+            next = (next + 1) % parsedRings.size();
+            skipped += batch.skipped;
+
+            for (int row = 0; row < batch.count; row++) {
+                Rating rating = batch.ratings[row];
+                if (rating == null) {
+                    continue;
+                }
+
+                String courseId = batch.courseIds[row];
+                CourseProfessor cp = system.resolveCourseProfessor(courseId, batch.courseNames[row],
+                                                                   batch.professorNames[row]);
+                int partition = Math.floorMod(courseId.hashCode(), pending.length);
+                if (deduplicator != null && isDuplicate(cp, courseId, batch.professorNames[row], rating,
+                                                        partition, pending)) {
+                    duplicates++;
+                    continue;   // No owner: the indexer skips the row too
+                }
+                batch.owners[row] = cp;
+                system.recordLoadedRating(cp, rating);
+                loaded++;
+
+                AppendBatch append = pending[partition];
+                append.owners[append.count] = cp;
+                append.ratings[append.count] = rating;
+                if (deduplicator != null) {
+                    lastRouted.put(cp, ++routed[partition]);
+                }
+                if (++append.count == BATCH_SIZE) {
+                    put(appendRings.get(partition), append);
+                    pending[partition] = new AppendBatch();
+                }
+            }
+            put(indexRing, batch);
+        }
+
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i].count > 0) {
+                put(appendRings.get(i), pending[i]);
+            }
+            put(appendRings.get(i), APPEND_END);
+        }
+        put(indexRing, PARSED_END);
+    }
+
+    /**
+     * Check a rating against the duplicate filter (resolver stage)
+     * @return true if the pair already has an identical rating
+     */
+    private boolean isDuplicate(CourseProfessor cp, String courseId, String professorName, Rating rating,
+                                int partition, AppendBatch[] pending) {
+        long fingerprint = RatingDeduplicator.fingerprint(courseId, professorName, rating.getScore(),
+                                                          rating.getTimestamp(), rating.getComment());
+        if (deduplicator.mightBeDuplicate(fingerprint)) {
+            awaitAppended(cp, partition, pending);
+        }
+        return !deduplicator.admit(cp, fingerprint, rating.getScore(), rating.getTimestamp(), rating.getComment());
+    }
+
+    /**
+     * Wait until every rating routed to a pair so far is in its list
+     * (the pair's partly filled batch is sent on first, or it would never arrive)
+     */
+    private void awaitAppended(CourseProfessor cp, int partition, AppendBatch[] pending) {
+        Long ticket = lastRouted.get(cp);
+        if (ticket == null || appended.get(partition) >= ticket) {
+            return;
+        }
+
+        if (pending[partition].count > 0) {
+            put(appendRings.get(partition), pending[partition]);
+            pending[partition] = new AppendBatch();
+        }
+        for (int round = 0; appended.get(partition) < ticket; round++) {
+            idle(round);
+        }
+    }
+
+    /**
+     * Appender stage: add ratings to their course-professor pairs (updates the running sums)
+     */
+    private void append(SpscRingBuffer<AppendBatch> in, int partition) {
+        AppendBatch batch;
+        while ((batch = take(in)) != APPEND_END) {
+            for (int i = 0; i < batch.count; i++) {
+                batch.owners[i].addRating(batch.ratings[i]);
+            }
+            appended.set(partition, appended.get(partition) + batch.count);     // Publishes the appends to the resolver
+        }
+    }
+
+    /**
+     * Indexer stage: add comments to the inverted index, in file order
+     */
+    private void index() {
+        ParsedBatch batch;
+        while ((batch = take(indexRing)) != PARSED_END) {
+            for (int row = 0; row < batch.count; row++) {
+                if (batch.owners[row] != null) {
+                    commentIndex.add(batch.owners[row], batch.ratings[row], batch.words[row]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a stage thread; an error stops the whole pipeline
+     */
+    private Thread worker(String name, Runnable stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (CancellationException e) {
+                // Another stage failed
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Wait for all stages; if interrupted, stop them before giving up
+     */
+    private void joinWorkers() throws InterruptedException {
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Add to a ring, waiting while it is full (backpressure)
+     * @return true if the ring was full and we had to wait
+     */
+    private <E> boolean put(SpscRingBuffer<E> ring, E element) {
+        int round = 0;
+        while (!ring.offer(element)) {
+            idle(round++);
+        }
+        return round > 0;
+    }
+
+    /**
+     * Remove from a ring, waiting while it is empty
+     */
+    private <E> E take(SpscRingBuffer<E> ring) {
+        E element;
+        for (int round = 0; (element = ring.poll()) == null; round++) {
+            idle(round);
+        }
+        return element;
+    }
+
+    /**
+     * Wait a little: spin first, then yield, then park; give up if another stage failed
+     */
+    private void idle(int round) {
+        if (failure != null) {
+            throw new CancellationException();
+        }
+        if (round < SPIN_ROUNDS) {
+            Thread.onSpinWait();
+        } else if (round < SPIN_ROUNDS + YIELD_ROUNDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * JsonWriter class: Streaming JSON output
+ * Values are written to the underlying Writer as they are produced (through a
+ * small internal buffer, so the Writer sees few large writes instead of many
+ * tiny ones); large results never have to be built in memory. Commas between
+ * values are inserted automatically
+ */
+public class JsonWriter {
+    private final Writer out;
+    private final char[] buffer = new char[8192];   // Pending output, passed to out when full or on flush()
+    private int length;                             // Used part of buffer
+    private boolean[] hasValue = new boolean[16];   // Per nesting level: true once a value was written
+    private int depth;                              // Current nesting level (0 = top level)
+    private boolean afterName;                      // True right after name(), the next value needs no comma
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Write an object member name; must be followed by a value
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Write a number (NaN and infinity are not valid JSON and are written as null)
+     */
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        separate();
+        write(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        write("null");
+        return this;
+    }
+
+    /**
+     * Shortcuts for name(...).value(...)
+     */
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * End a top-level value with a line break, so the next value starts a new
+     * line without a comma (JSON Lines output)
+     */
+    public JsonWriter newLine() throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException("newLine() inside an object or array");
+        }
+        write('\n');
+        hasValue[0] = false;
+        return this;
+    }
+
+    /**
+     * Pass everything written so far to the underlying Writer and flush it
+     */
+    public void flush() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+        out.flush();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        write(bracket);
+        depth++;
+        if (depth == hasValue.length) {
+            hasValue = Arrays.copyOf(hasValue, depth * 2);
+        }
+        hasValue[depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        write(bracket);
+        return this;
+    }
+
+    /**
+     * Write a comma if this is not the first value at the current level
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasValue[depth]) {
+            write(',');
+        }
+        hasValue[depth] = true;
+    }
+
+    private void write(char c) throws IOException {
+        if (length == buffer.length) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        buffer[length++] = c;
+    }
+
+    private void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    private void write(String s, int offset, int count) throws IOException {
+        if (count > buffer.length - length) {
+            out.write(buffer, 0, length);
+            length = 0;
+            if (count > buffer.length) {
+                out.write(s, offset, count);
+                return;
+            }
+        }
+        s.getChars(offset, offset + count, buffer, length);
+        length += count;
+    }
+
+    private void writeString(String s) throws IOException {
+        write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String escape;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escape = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            write(s, start, i - start);
+            write(escape);
+            start = i + 1;
+        }
+        write(s, start, s.length() - start);
+        write('"');
+    }
+}
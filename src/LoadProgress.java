@@ -0,0 +1,141 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LoadProgress class: Progress of a data file load
+ * Written by the loading thread, read by any thread. Threads that need data
+ * which has not been loaded yet can wait for the next progress update.
+ * Waiting uses a ReentrantLock Condition, not a monitor: HTTP requests wait here
+ * on virtual threads, which would otherwise pin their carrier thread (as in ChangeFeed)
+ */
+public class LoadProgress {
+    private final long totalBytes;          // File size
+    private final long startNanos;          // When loading started
+    private volatile long rows;             // Rows loaded so far
+    private volatile long bytes;            // Bytes read so far (approximate: characters + line breaks)
+    private volatile boolean done;          // True once the whole file was loaded
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();     // Progress was recorded or the load finished
+
+    /**
+     * Constructor
+     * @param totalBytes size of the file being loaded
+     */
+    public LoadProgress(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Record progress and wake up waiting threads
+     */
+    public void update(long rows, long bytes) {
+        lock.lock();
+        try {
+            this.rows = rows;
+            this.bytes = bytes;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark the load as finished and wake up waiting threads
+     */
+    public void finish() {
+        lock.lock();
+        try {
+            done = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the next progress update
+     * @param timeoutMillis maximum time to wait
+     * @return false if the load is already finished
+     */
+    public boolean awaitUpdate(long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (done) {
+                return false;
+            }
+            changed.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the load is finished
+     */
+    public void awaitDone() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!done) {
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Get loaded share of the file, 0.0-1.0
+     */
+    public double getFraction() {
+        if (done || totalBytes == 0) {
+            return 1.0;
+        }
+        return Math.min(1.0, bytes / (double) totalBytes);
+    }
+
+    /**
+     * Estimate remaining load time from the bytes read so far
+     * @return seconds left, or -1 if nothing was read yet
+     */
+    public double getEtaSeconds() {
+        long read = bytes;
+        if (done) {
+            return 0;
+        }
+        if (read == 0) {
+            return -1;
+        }
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        return elapsed * (totalBytes - read) / read;
+    }
+
+    @Override
+    public String toString() {
+        double eta = getEtaSeconds();
+        return String.format("Loading data: %.0f%% (%d rows, %.1f MB of %.1f MB, ETA %s)",
+                             getFraction() * 100,
+                             rows,
+                             bytes / 1048576.0,
+                             totalBytes / 1048576.0,
+                             eta < 0 ? "unknown" : String.format("%.0f s", Math.ceil(eta)));
+    }
+}
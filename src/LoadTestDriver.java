@@ -0,0 +1,387 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadTestDriver class: Closed-loop load test against a RatingSystem
+ * Every worker thread issues its next operation as soon as the previous one
+ * returns. Operations are picked by a configurable weighted mix; throughput and
+ * latency percentiles are reported per operation.
+ *
+ * With -Drating.shards=<n> the test runs against a ShardedRatingSystem with n
+ * shards instead of one RatingSystem (0, the default: one RatingSystem).
+ *
+ * Usage: java LoadTestDriver [threads] [seconds] [mix] [ratings] [seed] [skew]
+ *   mix example: add=10,id=40,name=15,exact=15,course-rank=15,professor=4,overall-rank=1
+ */
+public class LoadTestDriver {
+    /** Operations the driver can issue */
+    enum Operation {
+        ADD("add"),
+        SEARCH_ID("id"),
+        SEARCH_NAME("name"),
+        SEARCH_EXACT("exact"),
+        COURSE_RANK("course-rank"),
+        PROFESSOR("professor"),
+        OVERALL_RANK("overall-rank");
+
+        final String key;   // Name used in the mix string
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation fromKey(String key) {
+            for (Operation op : values()) {
+                if (op.key.equals(key)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation in mix: " + key);
+        }
+    }
+
+    static final String DEFAULT_MIX = "add=10,id=40,name=15,exact=15,course-rank=15,professor=4,overall-rank=1";
+
+    /** Shards of the system under test, -Drating.shards=<n> (0 = one RatingSystem) */
+    static final int SHARDS = Integer.getInteger("rating.shards", 0);
+
+    private final RatingSystem system;          // System under test (null when sharded)
+    private final ShardedRatingSystem sharded;  // Sharded system under test (null when not sharded)
+    private final DatasetGenerator generator;   // Source of keys and new ratings
+    private final Operation[] schedule;         // 100 slots filled according to the mix weights
+
+    /**
+     * Constructor
+     * @param system RatingSystem under test (already loaded)
+     * @param generator generator that produced the loaded data
+     * @param mix operation weights, e.g. "add=10,id=90"
+     */
+    public LoadTestDriver(RatingSystem system, DatasetGenerator generator, String mix) {
+        this.system = system;
+        this.sharded = null;
+        this.generator = generator;
+        this.schedule = parseMix(mix);
+    }
+
+    /**
+     * Constructor
+     * @param sharded ShardedRatingSystem under test (already loaded)
+     * @param generator generator that produced the loaded data
+     * @param mix operation weights, e.g. "add=10,id=90"
+     */
+    public LoadTestDriver(ShardedRatingSystem sharded, DatasetGenerator generator, String mix) {
+        this.system = null;
+        this.sharded = sharded;
+        this.generator = generator;
+        this.schedule = parseMix(mix);
+    }
+
+    /**
+     * Turn "op=weight,..." into a 100-slot lookup table
+     * @throws IllegalArgumentException if an entry is malformed, names an unknown or repeated
+     *         operation, has a negative weight, or all weights are 0
+     */
+    static Operation[] parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2 || kv[0].isBlank() || kv[1].isBlank()) {
+                throw new IllegalArgumentException("Mix entries must look like operation=weight: " + part.trim());
+            }
+            int weight;
+            try {
+                weight = Integer.parseInt(kv[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Mix weight is not a number: " + part.trim());
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weight must not be negative: " + part.trim());
+            }
+            if (weights.put(Operation.fromKey(kv[0].trim()), weight) != null) {
+                throw new IllegalArgumentException("Operation appears twice in mix: " + kv[0].trim());
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Mix weights must add up to more than 0: " + mix);
+        }
+
+        Operation[] slots = new Operation[100];
+        int filled = 0;
+        int cumulative = 0;
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            cumulative += entry.getValue();
+            int end = (int) Math.round(cumulative * 100.0 / total);
+            while (filled < end) {
+                slots[filled++] = entry.getKey();
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Run the load test
+     * @param threads number of worker threads
+     * @param seconds measured duration
+     * @param warmupSeconds unmeasured warm-up before the measurement
+     * @return latencies per operation (nanoseconds, sorted)
+     */
+    public Map<Operation, long[]> run(int threads, int seconds, int warmupSeconds) throws InterruptedException {
+        List<Worker> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(generator.split(), start);
+            workers.add(worker);
+            worker.thread.start();
+        }
+
+        long now = System.nanoTime();
+        for (Worker worker : workers) {
+            worker.measureFrom = now + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            worker.stopAt = worker.measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        }
+        start.countDown();
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+
+        // Merge per-thread samples
+        Map<Operation, long[]> merged = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) {
+            int total = 0;
+            for (Worker worker : workers) {
+                total += worker.counts[op.ordinal()];
+            }
+            if (total == 0) {
+                continue;
+            }
+
+            long[] all = new long[total];
+            int pos = 0;
+            for (Worker worker : workers) {
+                int n = worker.counts[op.ordinal()];
+                System.arraycopy(worker.samples[op.ordinal()], 0, all, pos, n);
+                pos += n;
+            }
+            Arrays.sort(all);
+            merged.put(op, all);
+        }
+        return merged;
+    }
+
+    /**
+     * Execute one operation
+     */
+    private Object execute(Operation op, DatasetGenerator keys) {
+        int course = keys.nextCourse();
+        if (sharded != null) {
+            return executeSharded(op, keys, course);
+        }
+        switch (op) {
+            case ADD:
+                return system.addRatingSilently(keys.getCourseId(course), keys.getCourseName(course),
+                        keys.getProfessorName(keys.nextProfessor(course)), keys.nextScore(), keys.nextComment());
+            case SEARCH_ID:
+                return system.searchCourseById(keys.getCourseId(course));
+            case SEARCH_NAME:
+                return system.searchCoursesByName(keys.nextKeyword());
+            case SEARCH_EXACT:
+                return system.searchCourseByExactName(keys.getCourseName(course));
+            case COURSE_RANK:
+                return system.getProfessorRankingInCourse(keys.getCourseId(course));
+            case PROFESSOR:
+                return system.searchProfessorByName(keys.getProfessorName(keys.nextProfessor()));
+            case OVERALL_RANK:
+                return system.getOverallProfessorRanking();
+            default:
+                throw new IllegalStateException("Unhandled operation: " + op);
+        }
+    }
+
+    /**
+     * Execute one operation on the sharded system (same operations as execute)
+     */
+    private Object executeSharded(Operation op, DatasetGenerator keys, int course) {
+        switch (op) {
+            case ADD:
+                return sharded.addRatingSilently(keys.getCourseId(course), keys.getCourseName(course),
+                        keys.getProfessorName(keys.nextProfessor(course)), keys.nextScore(), keys.nextComment());
+            case SEARCH_ID:
+                return sharded.searchCourseById(keys.getCourseId(course));
+            case SEARCH_NAME:
+                return sharded.searchCoursesByName(keys.nextKeyword());
+            case SEARCH_EXACT:
+                return sharded.searchCourseByExactName(keys.getCourseName(course));
+            case COURSE_RANK:
+                return sharded.getProfessorRankingInCourse(keys.getCourseId(course));
+            case PROFESSOR:
+                return sharded.searchProfessorByName(keys.getProfessorName(keys.nextProfessor()));
+            case OVERALL_RANK:
+                return sharded.getOverallProfessorRanking();
+            default:
+                throw new IllegalStateException("Unhandled operation: " + op);
+        }
+    }
+
+    /**
+     * Worker thread: issues operations back to back and records latencies
+     */
+    private class Worker {
+        final Thread thread;
+        final DatasetGenerator keys;
+        final long[][] samples = new long[Operation.values().length][1024];
+        final int[] counts = new int[Operation.values().length];
+        volatile long measureFrom;
+        volatile long stopAt;
+        long found;         // Non-null results (keeps results observable so nothing is optimized away)
+
+        Worker(DatasetGenerator keys, CountDownLatch start) {
+            this.keys = keys;
+            this.thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                loop();
+            }, "load-worker");
+        }
+
+        void loop() {
+            int slot = 0;
+            while (true) {
+                // Stride through the table so operation types interleave
+                slot = (slot + 37) % schedule.length;
+                Operation op = schedule[slot];
+                long begin = System.nanoTime();
+                if (begin >= stopAt) {
+                    return;
+                }
+
+                Object result = execute(op, keys);
+                long latency = System.nanoTime() - begin;
+                found += result == null ? 0 : 1;
+
+                if (begin >= measureFrom) {
+                    int i = op.ordinal();
+                    if (counts[i] == samples[i].length) {
+                        samples[i] = Arrays.copyOf(samples[i], counts[i] * 2);
+                    }
+                    samples[i][counts[i]++] = latency;
+                }
+            }
+        }
+    }
+
+    /**
+     * Print throughput and latency percentiles
+     */
+    static void report(Map<Operation, long[]> results, int seconds) {
+        System.out.println("\n======== Load Test Results ========");
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %10s %10s%n",
+                          "operation", "ops", "ops/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)");
+
+        long totalOps = 0;
+        for (Map.Entry<Operation, long[]> entry : results.entrySet()) {
+            long[] latencies = entry.getValue();
+            totalOps += latencies.length;
+            System.out.printf("%-14s %10d %10.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                              entry.getKey().key,
+                              latencies.length,
+                              latencies.length / (double) seconds,
+                              percentile(latencies, 50) / 1000.0,
+                              percentile(latencies, 90) / 1000.0,
+                              percentile(latencies, 99) / 1000.0,
+                              percentile(latencies, 99.9) / 1000.0,
+                              latencies[latencies.length - 1] / 1000.0);
+        }
+        System.out.printf("Total throughput: %.0f ops/s%n", totalOps / (double) seconds);
+    }
+
+    /**
+     * Percentile of sorted samples (nearest rank)
+     */
+    static long percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static void printUsage() {
+        StringBuilder operations = new StringBuilder();
+        for (Operation op : Operation.values()) {
+            operations.append(operations.length() == 0 ? "" : ", ").append(op.key);
+        }
+        System.out.println("Usage: java LoadTestDriver [threads] [seconds] [mix] [ratings] [seed] [skew]");
+        System.out.println("  threads   worker threads (default: number of cores)");
+        System.out.println("  seconds   measured duration (default 10)");
+        System.out.println("  mix       operation=weight,... with weights >= 0 and a positive total (default " + DEFAULT_MIX + ")");
+        System.out.println("            operations: " + operations);
+        System.out.println("  ratings   generated ratings loaded first (default 100000)");
+        System.out.println("  seed      random seed (default 42)");
+        System.out.println("  skew      Zipf exponent of course/professor popularity, 0 = uniform (default 1.0)");
+        System.out.println("  -Drating.shards=<n>  test a ShardedRatingSystem with n shards (default 0: one RatingSystem)");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads;
+        int seconds;
+        String mix;
+        int ratings;
+        long seed;
+        double skew;
+        try {
+            threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+            seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            mix = args.length > 2 ? args[2] : DEFAULT_MIX;
+            ratings = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+            seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+            skew = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+            if (threads < 1 || seconds < 1 || ratings < 1 || skew < 0) {
+                throw new IllegalArgumentException("threads, seconds and ratings must be positive, skew not negative");
+            }
+            if (SHARDS < 0) {
+                throw new IllegalArgumentException("rating.shards must not be negative: " + SHARDS);
+            }
+            parseMix(mix);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            printUsage();
+            return;
+        }
+
+        DatasetGenerator generator = new DatasetGenerator(seed, Math.max(10, ratings / 50),
+                                                          Math.max(5, ratings / 100), skew);
+        RatingSystem system = SHARDS == 0 ? new RatingSystem() : null;
+        ShardedRatingSystem sharded = SHARDS == 0 ? null : new ShardedRatingSystem(SHARDS);
+
+        System.out.println("Loading " + ratings + " generated rating(s)"
+                           + (sharded == null ? "" : " into " + SHARDS + " shard(s)") + "...");
+        DatasetGenerator loader = generator.split();
+        for (int i = 0; i < ratings; i++) {
+            int course = loader.nextCourse();
+            String courseId = loader.getCourseId(course);
+            String courseName = loader.getCourseName(course);
+            String professor = loader.getProfessorName(loader.nextProfessor(course));
+            if (sharded == null) {
+                system.addRatingSilently(courseId, courseName, professor, loader.nextScore(), loader.nextComment());
+            } else {
+                sharded.addRatingSilently(courseId, courseName, professor, loader.nextScore(), loader.nextComment());
+            }
+        }
+
+        System.out.printf("Running %d thread(s) for %d s (+2 s warm-up), mix: %s%n", threads, seconds, mix);
+        LoadTestDriver driver = sharded == null ? new LoadTestDriver(system, generator, mix)
+                                                : new LoadTestDriver(sharded, generator, mix);
+        Map<Operation, long[]> results = driver.run(threads, seconds, 2);
+        report(results, seconds);
+        if (sharded != null) {
+            sharded.shutdown();
+        }
+    }
+}
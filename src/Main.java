@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -6,12 +8,27 @@ import java.util.Scanner;
  */
 public class Main {
     private static final String DATA_FILE = "data.csv";
-    private static RatingSystem system = new RatingSystem();
+    private static final String DEFAULT_DATASET = "default";   // Dataset of DATA_FILE
+    private static final long TAIL_INTERVAL_MILLIS = 1000;     // How often appended rows are picked up
+    private static final long LOAD_WAIT_MILLIS = 30000;        // Longest wait for a course or professor still being loaded
+    private static final int TRENDING_LIMIT = 10;              // Trending professors shown
+    private static final int GROUP_TOP_PROFESSORS = 3;         // Best professors shown per department / level
+    private static DatasetHost host;                            // All datasets of this process
+    private static volatile String dataset;                     // Name of the dataset the menu works on
+    private static RatingHttpServer httpServer;                 // HTTP API, null until first started
     private static Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         System.out.println("Welcome to Course & Professor Rating System!");
-        system.loadFromFile(DATA_FILE);
+        RatingSystemMetrics.registerMBeans();
+        host = new DatasetHost();
+        registerDatasets();
+        switchTo(host.getNames().contains(DEFAULT_DATASET) ? DEFAULT_DATASET : host.getNames().get(0));
 
         boolean running = true;
         while (running) {
@@ -41,6 +58,36 @@ public class Main {
                 case 7:
                     loadDataFromFile();
                     break;
+                case 8:
+                    searchByComment();
+                    break;
+                case 9:
+                    toggleAutoReload();
+                    break;
+                case 10:
+                    toggleTailing();
+                    break;
+                case 11:
+                    showMetrics();
+                    break;
+                case 12:
+                    toggleHttpServer();
+                    break;
+                case 13:
+                    deleteData();
+                    break;
+                case 14:
+                    runQuery();
+                    break;
+                case 15:
+                    exportReport();
+                    break;
+                case 16:
+                    switchDataset();
+                    break;
+                case 17:
+                    toggleFrozen();
+                    break;
                 case 0:
                     running = false;
                     saveDataToFile();
@@ -55,14 +102,119 @@ public class Main {
             }
         }
 
+        if (httpServer != null) {
+            httpServer.stop();
+        }
+        if (!host.shutdown()) {     // Also saves other datasets with unsaved changes
+            System.out.println("Warning: changes that could not be saved are lost.");
+        }
         scanner.close();
     }
 
+    /**
+     * Get the RatingSystem currently serving queries (may be swapped by a background reload)
+     */
+    private static RatingSystem system() {
+        return host.system(dataset);
+    }
+
+    /**
+     * Get the reloader of the current dataset
+     */
+    private static DataReloader reloader() {
+        return host.reloader(dataset);
+    }
+
+    /**
+     * Register the datasets: -Drating.datasets=name=file,name=file,... or else
+     * data.csv as the "default" dataset. Files are loaded when first used
+     */
+    private static void registerDatasets() {
+        String spec = System.getProperty("rating.datasets", "").trim();
+        for (String entry : spec.split(",")) {
+            int equals = entry.indexOf('=');
+            if (equals > 0 && equals < entry.length() - 1) {
+                host.register(entry.substring(0, equals).trim(), entry.substring(equals + 1).trim());
+            } else if (!entry.isBlank()) {
+                System.out.println("Error: Invalid dataset \"" + entry + "\", expected name=file");
+            }
+        }
+        if (host.getNames().isEmpty()) {
+            host.register(DEFAULT_DATASET, DATA_FILE);
+        }
+    }
+
+    /**
+     * Make a dataset the current one: it is loaded in the background if needed
+     * (the menu is available at once, whatever the file size) and kept loaded
+     */
+    private static void switchTo(String name) {
+        String previous = dataset;
+        host.setPinned(name, true);
+        dataset = name;
+        reloader();         // Starts loading it
+        if (previous != null && !previous.equals(name)) {
+            host.setPinned(previous, false);
+        }
+    }
+
+    /**
+     * List the datasets and switch to another one, or add a new one
+     */
+    private static void switchDataset() {
+        System.out.println("\n======== Datasets ========");
+        List<String> names = host.getNames();
+        List<String> lines = host.describe();
+        for (int i = 0; i < names.size(); i++) {
+            System.out.println((i + 1) + ". " + lines.get(i));
+        }
+        System.out.println("Shared strings: " + host.getDictionary());
+        System.out.printf("Estimated memory of all datasets: %.1f MB%n", host.estimateTotalBytes() / (1024.0 * 1024.0));
+
+        System.out.print("\nEnter dataset number or name, \"name=file\" to add one (Enter to go back): ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            return;
+        }
+
+        String name = input;
+        int equals = input.indexOf('=');
+        if (equals > 0) {
+            name = input.substring(0, equals).trim();
+            String filename = input.substring(equals + 1).trim();
+            if (filename.isEmpty() || !host.register(name, filename)) {
+                System.out.println("Error: Dataset " + name + " already exists or no file was given!");
+                return;
+            }
+        } else if (!host.contains(name)) {
+            try {
+                name = names.get(Integer.parseInt(name) - 1);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.out.println("No dataset named " + input + "!");
+                return;
+            }
+        }
+
+        if (name.equals(dataset)) {
+            System.out.println("Already using dataset " + name + ".");
+            return;
+        }
+        switchTo(name);
+        System.out.println("Now using dataset " + name + " (" + host.getFilename(name) + ").");
+    }
+
     /**
      * Display main menu
      */
     private static void showMenu() {
         System.out.println("\n===== Course & Professor Rating System =====");
+        if (host.getNames().size() > 1) {
+            System.out.println("Dataset: " + dataset + " (" + host.getFilename(dataset) + ")");
+        }
+        LoadProgress progress = system().getLoadProgress();
+        if (progress != null) {
+            System.out.println(progress);
+        }
         System.out.println("1. Add new rating");
         System.out.println("2. Search by course ID");
         System.out.println("3. Search by course name");
@@ -70,6 +222,16 @@ public class Main {
         System.out.println("5. Show professor ranking");
         System.out.println("6. Save data");
         System.out.println("7. Reload data");
+        System.out.println("8. Search comments");
+        System.out.println("9. Toggle auto reload on file change");
+        System.out.println("10. Toggle tailing of appended rows");
+        System.out.println("11. Show metrics");
+        System.out.println("12. Toggle HTTP API server");
+        System.out.println("13. Delete rating / course / professor");
+        System.out.println("14. Query courses / professors");
+        System.out.println("15. Export course / professor reports");
+        System.out.println("16. Switch / add dataset");
+        System.out.println("17. Freeze / thaw data (read-only, less memory)");
         System.out.println("0. Exit and save");
         System.out.print("Please choose an option: ");
     }
@@ -97,12 +259,168 @@ public class Main {
     }
 
     /**
-     * Reload data from data.csv
+     * Reload the current dataset's data file
+     * The new data is loaded in the background, current data keeps serving until the swap
      */
     private static void loadDataFromFile() {
-        System.out.println("Loading data...");
-        system = new RatingSystem();
-        system.loadFromFile(DATA_FILE);
+        if (reloader().reloadInBackground()) {
+            System.out.println("Reloading data in background...");
+        } else {
+            System.out.println("A reload is already in progress!");
+        }
+    }
+
+    /**
+     * Export a report of every course or every professor (JSON Lines or CSV)
+     */
+    private static void exportReport() {
+        System.out.println("1. Course report");
+        System.out.println("2. Professor report");
+        System.out.print("Please choose: ");
+        int reportChoice = getIntInput();
+        if (reportChoice != 1 && reportChoice != 2) {
+            System.out.println("Invalid option!");
+            return;
+        }
+
+        System.out.println("1. JSON Lines");
+        System.out.println("2. CSV");
+        System.out.print("Please choose: ");
+        int formatChoice = getIntInput();
+        if (formatChoice != 1 && formatChoice != 2) {
+            System.out.println("Invalid option!");
+            return;
+        }
+
+        ReportExporter.Report report = reportChoice == 1 ? ReportExporter.Report.COURSES : ReportExporter.Report.PROFESSORS;
+        ReportExporter.Format format = formatChoice == 1 ? ReportExporter.Format.JSONL : ReportExporter.Format.CSV;
+        String defaultFile = report.name().toLowerCase() + "-report." + format.name().toLowerCase();
+        System.out.print("Enter file name (default " + defaultFile + "): ");
+        String filename = scanner.nextLine().trim();
+        if (filename.isEmpty()) {
+            filename = defaultFile;
+        }
+
+        long start = System.nanoTime();
+        int count = system().exportReport(filename, report, format);
+        if (count >= 0) {
+            System.out.printf("Exported %d %s to %s in %.1f s%n", count,
+                              report == ReportExporter.Report.COURSES ? "course(s)" : "professor(s)",
+                              filename, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Turn automatic reloading on data file changes on or off
+     */
+    private static void toggleAutoReload() {
+        DataReloader reloader = reloader();
+        if (reloader.isWatching()) {
+            reloader.stopWatching();
+            System.out.println("Auto reload disabled.");
+        } else if (reloader.startWatching()) {
+            System.out.println("Auto reload enabled: watching " + reloader.getFilename() + " for changes.");
+        }
+    }
+
+    /**
+     * Turn incremental ingestion of rows appended to the data file on or off
+     */
+    private static void toggleTailing() {
+        DataReloader reloader = reloader();
+        if (reloader.isTailing()) {
+            reloader.stopTailing();
+            System.out.println("Tailing disabled.");
+        } else if (system().isFrozen()) {
+            System.out.println("Error: Data is frozen (read-only), thaw it (menu 17) before tailing!");
+        } else if (reloader.startTailing(TAIL_INTERVAL_MILLIS)) {
+            System.out.println("Tailing enabled: new rows appended to " + reloader.getFilename() + " are added every "
+                               + TAIL_INTERVAL_MILLIS / 1000 + " second(s).");
+        }
+    }
+
+    /**
+     * Freeze the current data into the compact read-only layout, or thaw it again
+     * Frozen data answers the same queries with less memory (see RatingSystem.freeze)
+     */
+    private static void toggleFrozen() {
+        RatingSystem system = system();
+        if (system.isFrozen()) {
+            system.thaw();
+            System.out.println("Data thawed: ratings can be added and deleted again.");
+            return;
+        }
+        if (system.isLoading()) {
+            System.out.println("Error: Data is still loading, freeze it once loading has finished!");
+            return;
+        }
+        if (reloader().isTailing()) {
+            System.out.println("Error: Tailing adds rows, turn it off (menu 10) before freezing!");
+            return;
+        }
+
+        long before = system.estimateMemoryBytes();
+        system.freeze();
+        System.out.printf("Data frozen (read-only): estimated memory %.1f MB -> %.1f MB. Choose 17 again to thaw.%n",
+                          before / (1024.0 * 1024.0), system.estimateMemoryBytes() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Start or stop the HTTP/JSON API
+     * The API always queries the current data, including after background reloads
+     */
+    private static void toggleHttpServer() {
+        if (httpServer != null && httpServer.isRunning()) {
+            httpServer.stop();
+            System.out.println("HTTP API server stopped.");
+            return;
+        }
+
+        System.out.print("Enter port (Enter for " + RatingHttpServer.DEFAULT_PORT + "): ");
+        String input = scanner.nextLine().trim();
+        int port = RatingHttpServer.DEFAULT_PORT;
+        if (!input.isEmpty()) {
+            try {
+                port = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid port!");
+                return;
+            }
+        }
+
+        int maxConcurrent = Integer.getInteger("rating.http.maxConcurrent", RatingHttpServer.DEFAULT_MAX_CONCURRENT);
+        httpServer = new RatingHttpServer(Main::system, port, maxConcurrent);
+        try {
+            httpServer.start();
+            System.out.println("HTTP API server listening on port " + httpServer.getPort() + ".");
+        } catch (IOException e) {
+            System.out.println("Error: Could not start HTTP API server: " + e.getMessage());
+            httpServer = null;
+        }
+    }
+
+    /**
+     * Show call counts and latencies of RatingSystem operations
+     * The same metrics are available over JMX (JConsole: MBeans tab, "RatingSystem")
+     */
+    private static void showMetrics() {
+        System.out.println("\n======== Metrics (" + (RatingSystemMetrics.isMetricsEnabled() ? "enabled" : "disabled")
+                           + ") ========");
+        System.out.print(RatingSystemMetrics.formatSummary());
+
+        System.out.println("\n1. Reset metrics");
+        System.out.println("2. " + (RatingSystemMetrics.isMetricsEnabled() ? "Disable" : "Enable") + " metrics");
+        System.out.println("0. Back");
+        System.out.print("Please choose: ");
+
+        int choice = getIntInput();
+        if (choice == 1) {
+            RatingSystemMetrics.resetAll();
+            System.out.println("Metrics reset.");
+        } else if (choice == 2) {
+            RatingSystemMetrics.setMetricsEnabled(!RatingSystemMetrics.isMetricsEnabled());
+            System.out.println("Metrics " + (RatingSystemMetrics.isMetricsEnabled() ? "enabled." : "disabled."));
+        }
     }
 
     /**
@@ -121,7 +439,7 @@ public class Main {
         System.out.print("Enter rating (0-5): ");
         double score = getDoubleInput();
 
-        if (score < 0 || score > 5) {
+        if (!(score >= 0 && score <= 5)) {       // Also rejects NaN
             System.out.println("Rating must be between 0 and 5!");
             return;
         }
@@ -129,7 +447,94 @@ public class Main {
         System.out.print("Enter comment: ");
         String comment = scanner.nextLine().trim();
 
-        system.addRating(courseId, courseName, professorName, score, comment);
+        system().addRating(courseId, courseName, professorName, score, comment);
+    }
+
+    /**
+     * Delete a rating, a course or a professor
+     */
+    private static void deleteData() {
+        System.out.println("\nPlease choose what to delete:");
+        System.out.println("1. A rating");
+        System.out.println("2. A course (with all its ratings)");
+        System.out.println("3. A professor (with all their ratings)");
+        System.out.print("Please choose: ");
+
+        int choice = getIntInput();
+
+        if (choice == 1) {
+            deleteRating();
+        } else if (choice == 2) {
+            System.out.print("Enter course ID: ");
+            String courseId = scanner.nextLine().trim();
+            if (awaitCourse(courseId) == null) {
+                System.out.println("Course with ID " + courseId + " not found!");
+            } else if (confirm("Delete course " + courseId + " and all its ratings?")) {
+                printDeleteResult(system().removeCourse(courseId), "Course deleted.");
+            }
+        } else if (choice == 3) {
+            System.out.print("Enter professor name: ");
+            String name = scanner.nextLine().trim();
+            if (system().searchProfessorByName(name) == null) {
+                System.out.println("Professor named " + name + " not found!");
+            } else if (confirm("Delete professor " + name + " and all their ratings?")) {
+                printDeleteResult(system().removeProfessor(name), "Professor deleted.");
+            }
+        } else {
+            System.out.println("Invalid option!");
+        }
+    }
+
+    /**
+     * Pick one rating of a professor in a course and delete it
+     */
+    private static void deleteRating() {
+        System.out.print("Enter course ID: ");
+        String courseId = scanner.nextLine().trim();
+        System.out.print("Enter professor name: ");
+        String name = scanner.nextLine().trim();
+
+        CourseProfessor target = null;
+        Course course = awaitCourse(courseId);
+        if (course != null) {
+            for (CourseProfessor cp : system().getProfessorRankingInCourse(courseId)) {
+                if (cp.getProfessor().getName().equals(name)) {
+                    target = cp;
+                }
+            }
+        }
+        if (target == null) {
+            System.out.println("No ratings for " + name + " in course " + courseId + "!");
+            return;
+        }
+
+        List<Rating> ratings = target.getRatings();
+        System.out.println("\nRatings of " + name + " in [" + courseId + "] " + course.getCourseName() + ":");
+        for (int i = 0; i < ratings.size(); i++) {
+            System.out.println((i + 1) + ". " + ratings.get(i));
+        }
+        System.out.print("Enter the rating number to delete (0 to cancel): ");
+        int number = getIntInput();
+        if (number < 1 || number > ratings.size()) {
+            return;
+        }
+
+        printDeleteResult(system().removeRating(courseId, name, ratings.get(number - 1)), "Rating deleted.");
+    }
+
+    private static boolean confirm(String question) {
+        System.out.print(question + " (y/n): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
+    }
+
+    private static void printDeleteResult(boolean deleted, String message) {
+        if (deleted) {
+            System.out.println(message);
+        } else if (system().isFrozen()) {
+            System.out.println("Error: Data is frozen (read-only), thaw it (menu 17) before deleting!");
+        } else {
+            System.out.println("Nothing was deleted (it may have been changed by a reload).");
+        }
     }
 
     /**
@@ -139,12 +544,13 @@ public class Main {
         System.out.print("Enter course ID: ");
         String courseId = scanner.nextLine().trim();
 
-        Course course = system.searchCourseById(courseId);
+        Course course = awaitCourse(courseId);
 
         if (course == null) {
             System.out.println("Course with ID " + courseId + " not found!");
         } else {
-            system.displayCourseDetails(course);
+            system().displayCourseDetails(course);
+            printPartialNote();
         }
     }
 
@@ -155,23 +561,26 @@ public class Main {
         System.out.print("Enter course name keyword: ");
         String keyword = scanner.nextLine().trim();
 
-        List<Course> results = system.searchCoursesByName(keyword);
+        List<Course> results = system().searchCoursesByName(keyword);
 
         if (results.isEmpty()) {
             System.out.println("No courses found containing \"" + keyword + "\"!");
+            printPartialNote();
         } else {
             System.out.println("\nFound " + results.size() + " course(s):");
             for (int i = 0; i < results.size(); i++) {
                 System.out.println((i + 1) + ". " + results.get(i));
             }
 
+            printPartialNote();
+
             if (results.size() == 1) {
-                system.displayCourseDetails(results.get(0));
+                system().displayCourseDetails(results.get(0));
             } else {
                 System.out.print("\nEnter the course number to view details (0 to skip): ");
                 int choice = getIntInput();
                 if (choice > 0 && choice <= results.size()) {
-                    system.displayCourseDetails(results.get(choice - 1));
+                    system().displayCourseDetails(results.get(choice - 1));
                 }
             }
         }
@@ -184,13 +593,73 @@ public class Main {
         System.out.print("Enter professor name: ");
         String name = scanner.nextLine().trim();
 
-        Professor professor = system.searchProfessorByName(name);
+        Professor professor;
+        try {
+            professor = system().awaitProfessorByName(name, LOAD_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
 
         if (professor == null) {
             System.out.println("Professor named " + name + " not found!");
         } else {
-            system.displayProfessorDetails(professor);
+            system().displayProfessorDetails(professor);
+            printPartialNote();
+        }
+    }
+
+    /**
+     * Search course by ID; while data is loading, wait until the course is loaded
+     * @return found course, null if not found
+     */
+    private static Course awaitCourse(String courseId) {
+        try {
+            return system().awaitCourseById(courseId, LOAD_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Tell the user that results only cover the rows loaded so far
+     */
+    private static void printPartialNote() {
+        if (system().isLoading()) {
+            System.out.println("(Partial results: data is still loading)");
+        }
+    }
+
+    /**
+     * Search ratings by comment words (using inverted index)
+     */
+    private static void searchByComment() {
+        System.out.print("Enter comment words: ");
+        String query = scanner.nextLine().trim();
+
+        System.out.print("Match all words? (y/n): ");
+        boolean matchAll = !scanner.nextLine().trim().equalsIgnoreCase("n");
+
+        System.out.print("Minimum rating (0-5): ");
+        double minScore = getDoubleInput();
+        if (!(minScore >= 0)) {
+            minScore = 0;
+        }
+
+        List<CommentMatch> results = system().searchComments(query, matchAll, minScore);
+
+        if (results.isEmpty()) {
+            System.out.println("No comments found for \"" + query + "\"!");
+            printPartialNote();
+            return;
+        }
+
+        System.out.println("\nFound " + results.size() + " rating(s):");
+        for (int i = 0; i < results.size(); i++) {
+            System.out.println((i + 1) + ". " + results.get(i));
         }
+        printPartialNote();
     }
 
     /**
@@ -200,6 +669,8 @@ public class Main {
         System.out.println("\nPlease choose ranking type:");
         System.out.println("1. Overall professor ranking");
         System.out.println("2. Professor ranking within a course");
+        System.out.println("3. Trending professors (recent vs. earlier ratings)");
+        System.out.println("4. Averages by department / level");
         System.out.print("Please choose: ");
 
         int choice = getIntInput();
@@ -208,6 +679,10 @@ public class Main {
             showOverallProfessorRanking();
         } else if (choice == 2) {
             showCourseSpecificProfessorRanking();
+        } else if (choice == 3) {
+            showTrendingProfessors();
+        } else if (choice == 4) {
+            showGroupRollups();
         } else {
             System.out.println("Invalid option!");
         }
@@ -217,10 +692,11 @@ public class Main {
      * Show overall professor ranking
      */
     private static void showOverallProfessorRanking() {
-        List<Professor> ranking = system.getOverallProfessorRanking();
+        List<Professor> ranking = system().getOverallProfessorRanking();
 
         if (ranking.isEmpty()) {
             System.out.println("No professor data available!");
+            printPartialNote();
             return;
         }
 
@@ -239,6 +715,7 @@ public class Main {
                             p.getName(), 
                             p.getOverallAverageRating());
         }
+        printPartialNote();
     }
 
     /**
@@ -248,14 +725,14 @@ public class Main {
         System.out.print("Enter course ID: ");
         String courseId = scanner.nextLine().trim();
 
-        Course course = system.searchCourseById(courseId);
+        Course course = awaitCourse(courseId);
 
         if (course == null) {
             System.out.println("Course with ID " + courseId + " not found!");
             return;
         }
 
-        List<CourseProfessor> ranking = system.getProfessorRankingInCourse(courseId);
+        List<CourseProfessor> ranking = system().getProfessorRankingInCourse(courseId);
 
         if (ranking.isEmpty()) {
             System.out.println("No professor rating data for this course!");
@@ -273,13 +750,111 @@ public class Main {
                             cp.getAverageRating(),
                             cp.getRatingCount());
         }
+        printPartialNote();
+    }
+
+    /**
+     * Show professors whose average rating rose most in the recent days
+     */
+    private static void showTrendingProfessors() {
+        System.out.print("Recent period in days (1-" + (RatingWindow.DAYS - 1) + ", default 30): ");
+        int days = getIntInput();
+        if (days < 1 || days >= RatingWindow.DAYS) {
+            days = Math.min(30, RatingWindow.DAYS - 1);
+        }
+        System.out.print("Minimum ratings in each period (default 3): ");
+        int minRatings = getIntInput();
+        if (minRatings < 1) {
+            minRatings = 3;
+        }
+
+        List<ProfessorTrend> trends = system().getTrendingProfessors(days, minRatings);
+        if (trends.isEmpty()) {
+            System.out.println("No professor has enough timestamped ratings in the last " + RatingWindow.DAYS + " days!");
+            printPartialNote();
+            return;
+        }
+
+        System.out.println("\n======== Trending Professors (last " + days + " days vs. the "
+                         + (RatingWindow.DAYS - days) + " days before) ========");
+        for (int i = 0; i < Math.min(TRENDING_LIMIT, trends.size()); i++) {
+            System.out.println((i + 1) + ". " + trends.get(i));
+        }
+        printPartialNote();
+    }
+
+    /**
+     * Show average ratings and top professors per department or per course level
+     */
+    private static void showGroupRollups() {
+        System.out.println("Group courses by:");
+        System.out.println("1. Department (course ID letters, e.g. CPS)");
+        System.out.println("2. Level (first course ID digit, e.g. 2000)");
+        System.out.print("Please choose: ");
+        int choice = getIntInput();
+        if (choice != 1 && choice != 2) {
+            System.out.println("Invalid option!");
+            return;
+        }
+        RatingRollup.Key key = choice == 1 ? RatingRollup.Key.DEPARTMENT : RatingRollup.Key.LEVEL;
+
+        List<RollupGroup> groups = system().getGroupRollups(key);
+        if (groups.isEmpty()) {
+            System.out.println("No course data available!");
+            printPartialNote();
+            return;
+        }
+
+        System.out.println("\n======== Averages by " + (choice == 1 ? "Department" : "Level") + " ========");
+        for (RollupGroup group : groups) {
+            System.out.println(group);
+            for (RollupGroup.ProfessorTotal professor : group.getTopProfessors(GROUP_TOP_PROFESSORS)) {
+                System.out.println("   - " + professor);
+            }
+        }
+        printPartialNote();
+    }
+
+    /**
+     * Run a query in text form (see RatingQuery.parse) and show how it was planned
+     */
+    private static void runQuery() {
+        System.out.println("Examples: courses name~java avg>=4 sort=average limit=10");
+        System.out.println("          professors department=CPS ratings>=20 sort=count limit=5");
+        System.out.println("          pairs professor=\"Dr. Smith\" sort=average");
+        System.out.print("Enter query: ");
+        String text = scanner.nextLine().trim();
+
+        RatingQuery<?> query;
+        try {
+            query = RatingQuery.parse(text);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+
+        RatingSystem system = system();
+        System.out.println("Plan: " + system.explain(query));
+        List<?> results = system.query(query);
+        if (results.isEmpty()) {
+            System.out.println("No results found!");
+            printPartialNote();
+            return;
+        }
+
+        System.out.println("\nFound " + results.size() + " result(s):");
+        for (int i = 0; i < results.size(); i++) {
+            System.out.println((i + 1) + ". " + results.get(i));
+        }
+        printPartialNote();
     }
 
     /**
-     * Save data to data.csv
+     * Save the current dataset to its data file
      */
     private static void saveDataToFile() {
-        System.out.println("Saving data to " + DATA_FILE + "...");
-        system.saveToFile(DATA_FILE);
+        DataReloader reloader = reloader();
+        System.out.println("Saving data to " + reloader.getFilename() + "...");
+        reloader.save();
     }
 }
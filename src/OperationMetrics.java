@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationMetrics class: Counters and latency histogram of one RatingSystem operation
+ * Shared by all RatingSystem instances (reloads and shards add to the same metrics)
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private final String name;                  // Operation name (RatingSystem method)
+    private final LatencyHistogram latency;     // Call latencies in nanoseconds
+    private final LongAdder resultItems;        // Total size of returned result lists
+    private final LongAdder nodesScanned;       // Index nodes/entries visited to answer the calls
+
+    public OperationMetrics(String name) {
+        this.name = name;
+        this.latency = new LatencyHistogram();
+        this.resultItems = new LongAdder();
+        this.nodesScanned = new LongAdder();
+    }
+
+    /**
+     * Record a finished call
+     * @param startNanos value returned by RatingSystemMetrics.start() (0 = metrics were disabled)
+     * @param results number of items returned
+     */
+    public void record(long startNanos, int results) {
+        if (startNanos == 0) {
+            return;
+        }
+        latency.record(System.nanoTime() - startNanos);
+        if (results > 0) {
+            resultItems.add(results);
+        }
+    }
+
+    /**
+     * Record how many index nodes a call visited
+     */
+    public void addNodesScanned(long nodes) {
+        if (RatingSystemMetrics.enabled) {
+            nodesScanned.add(nodes);
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getValueAtPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.getValueAtPercentile(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getValueAtPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getValueAtPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public long getResultItems() {
+        return resultItems.sum();
+    }
+
+    @Override
+    public long getNodesScanned() {
+        return nodesScanned.sum();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        resultItems.reset();
+        nodesScanned.reset();
+    }
+}
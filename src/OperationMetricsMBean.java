@@ -0,0 +1,27 @@
+/**
+ * OperationMetricsMBean interface: JMX view of one RatingSystem operation
+ * Latencies are reported in microseconds
+ */
+public interface OperationMetricsMBean {
+    String getName();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    long getResultItems();
+
+    long getNodesScanned();
+
+    void reset();
+}
@@ -8,6 +8,7 @@ import java.util.List;
 public class Professor {
     private String name;                                    // Professor name
     private List<CourseProfessor> teaching;                // List of courses taught by this professor
+    private RatingWindow ratingWindow;                     // Ratings per day over recent days (all courses)
 
     /**
      * Constructor
@@ -16,6 +17,7 @@ public class Professor {
     public Professor(String name) {
         this.name = name;
         this.teaching = new ArrayList<>();
+        this.ratingWindow = new RatingWindow();
     }
 
     public String getName() {
@@ -30,6 +32,27 @@ public class Professor {
         return teaching;
     }
 
+    /**
+     * Get ratings per day over the last RatingWindow.DAYS days (updated by CourseProfessor.addRating)
+     */
+    public RatingWindow getRatingWindow() {
+        return ratingWindow;
+    }
+
+    /**
+     * Compact the teaching list into an exact-size immutable list (frozen mode)
+     */
+    public void freeze() {
+        teaching = List.copyOf(teaching);
+    }
+
+    /**
+     * Turn the teaching list back into a growable list
+     */
+    public void thaw() {
+        teaching = new ArrayList<>(teaching);
+    }
+
     /**
      * Add teaching record
      * @param courseProfessor course-professor relationship object
@@ -38,6 +61,15 @@ public class Professor {
         this.teaching.add(courseProfessor);
     }
 
+    /**
+     * Remove teaching record (O(number of courses of this professor))
+     * @param courseProfessor course-professor relationship object
+     */
+    public void removeTeaching(CourseProfessor courseProfessor) {
+        this.teaching.remove(courseProfessor);
+        this.ratingWindow.removeAll(courseProfessor.getRatingWindow());
+    }
+
     /**
      * Calculate overall average rating for this professor
      * Traverse all teaching records and calculate average of all ratings
@@ -52,16 +84,25 @@ public class Professor {
         int totalCount = 0;
 
         for (CourseProfessor cp : teaching) {
-            List<Rating> ratings = cp.getRatings();
-            for (Rating rating : ratings) {
-                totalScore += rating.getScore();
-                totalCount++;
-            }
+            totalScore += cp.getTotalScore();
+            totalCount += cp.getRatingCount();
         }
 
         return totalCount > 0 ? totalScore / totalCount : 0.0;
     }
 
+    /**
+     * Count all ratings of this professor
+     * @return number of ratings
+     */
+    public int getRatingCount() {
+        int count = 0;
+        for (CourseProfessor cp : teaching) {
+            count += cp.getRatingCount();
+        }
+        return count;
+    }
+
     @Override
     public String toString() {
         return String.format("Professor: %s, Overall Average: %.2f", name, getOverallAverageRating());
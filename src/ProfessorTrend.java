@@ -0,0 +1,55 @@
+/**
+ * ProfessorTrend class: One result of a trending professors query
+ * Compares a professor's average over the most recent days with their
+ * average over the earlier days of the rating window
+ */
+public class ProfessorTrend {
+    private Professor professor;        // Professor
+    private double recentAverage;       // Average over the recent days
+    private int recentCount;            // Ratings in the recent days
+    private double earlierAverage;      // Average over the earlier days of the window
+    private int earlierCount;           // Ratings in the earlier days
+
+    public ProfessorTrend(Professor professor, double recentAverage, int recentCount,
+                          double earlierAverage, int earlierCount) {
+        this.professor = professor;
+        this.recentAverage = recentAverage;
+        this.recentCount = recentCount;
+        this.earlierAverage = earlierAverage;
+        this.earlierCount = earlierCount;
+    }
+
+    public Professor getProfessor() {
+        return professor;
+    }
+
+    public double getRecentAverage() {
+        return recentAverage;
+    }
+
+    public int getRecentCount() {
+        return recentCount;
+    }
+
+    public double getEarlierAverage() {
+        return earlierAverage;
+    }
+
+    public int getEarlierCount() {
+        return earlierCount;
+    }
+
+    /**
+     * Change of the average (positive = improving)
+     */
+    public double getChange() {
+        return recentAverage - earlierAverage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - Recent: %.2f (%d ratings), Before: %.2f (%d ratings), Change: %+.2f",
+                           professor.getName(), recentAverage, recentCount,
+                           earlierAverage, earlierCount, getChange());
+    }
+}
@@ -0,0 +1,442 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * QueryPlanner class: Runs a RatingQuery through the cheapest index
+ * Every index that can answer part of the query becomes a candidate access path
+ * with an estimated number of candidates it will visit:
+ *   - course ID          courseMap                      1
+ *   - exact course name  CourseIndex.searchByExactName  1
+ *   - professor name     professorMap                   1 (professors) / their teaching list (courses, pairs)
+ *   - department, level  RatingRollup group             professors of the group
+ *   - name prefix        CourseIndex.searchByFirstLetter about n / 26
+ *   - otherwise          CourseIndex / professorMap     n
+ * The smallest estimate wins; all other filters are checked on its candidates.
+ * Results come out in one of three ways:
+ *   - no sort, or sort by name on a path already in name order: stop after limit results
+ *   - limit set: bounded heap of the best limit results (O(n log k), no full sort)
+ *   - otherwise: full sort
+ * The course index keeps one course per name; when two courses share a name
+ * it no longer covers every course, so name paths are skipped and courseMap is scanned.
+ * Built per query under RatingSystem's read lock (freeze() replaces the course index)
+ */
+class QueryPlanner {
+    private static final int LETTERS = 26;      // Estimated share of courses under one first letter
+
+    private final Map<String, Course> courseMap;
+    private final Map<String, Professor> professorMap;
+    private final CourseIndex courseIndex;
+    private final RatingRollup rollup;
+    private final boolean indexComplete;        // True if the course index holds every course
+
+    QueryPlanner(Map<String, Course> courseMap, Map<String, Professor> professorMap,
+                 CourseIndex courseIndex, RatingRollup rollup) {
+        this.courseMap = courseMap;
+        this.professorMap = professorMap;
+        this.courseIndex = courseIndex;
+        this.rollup = rollup;
+        this.indexComplete = courseIndex.size() == courseMap.size();
+    }
+
+    /**
+     * Source interface: Visits the candidates of an access path until the visitor returns false
+     */
+    private interface Source<T> {
+        void scan(Predicate<T> visitor);
+    }
+
+    /**
+     * Plan class: The chosen access path
+     */
+    private static class Plan<T> {
+        final String path;              // Description of the access path
+        final long estimate;            // Estimated candidates visited
+        final boolean nameOrdered;      // True if candidates come in name order
+        final Source<T> source;
+
+        Plan(String path, long estimate, boolean nameOrdered, Source<T> source) {
+            this.path = path;
+            this.estimate = estimate;
+            this.nameOrdered = nameOrdered;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Entry class: A result with its sort keys computed once
+     */
+    private static class Entry<T> {
+        final T item;
+        final double value;     // Average or rating count
+        final String name;      // Name for ties and name order
+
+        Entry(T item, double value, String name) {
+            this.item = item;
+            this.value = value;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Run a query
+     * @return matching courses, professors or course-professor pairs
+     */
+    <T> List<T> run(RatingQuery<T> query) {
+        Plan<T> plan = plan(query);
+        Predicate<T> filter = filter(query);
+        int limit = query.limit;
+
+        if (query.sort == null || (query.sort == RatingQuery.Sort.NAME && plan.nameOrdered)) {
+            List<T> result = new ArrayList<>();
+            plan.source.scan(item -> {
+                if (filter.test(item)) {
+                    result.add(item);
+                }
+                return limit == 0 || result.size() < limit;     // Limit pushed down: stop the scan
+            });
+            return result;
+        }
+
+        Comparator<Entry<T>> order = order(query.sort);
+        if (limit > 0) {
+            // Top-K: the heap head is the worst of the best limit entries so far
+            PriorityQueue<Entry<T>> best = new PriorityQueue<>(limit + 1, order.reversed());
+            plan.source.scan(item -> {
+                if (filter.test(item)) {
+                    Entry<T> entry = entry(item, query.sort);
+                    if (best.size() < limit) {
+                        best.add(entry);
+                    } else if (order.compare(entry, best.peek()) < 0) {
+                        best.poll();
+                        best.add(entry);
+                    }
+                }
+                return true;
+            });
+            return sorted(new ArrayList<>(best), order);
+        }
+
+        List<Entry<T>> entries = new ArrayList<>();
+        plan.source.scan(item -> {
+            if (filter.test(item)) {
+                entries.add(entry(item, query.sort));
+            }
+            return true;
+        });
+        return sorted(entries, order);
+    }
+
+    /**
+     * Describe how a query would be run, without running it
+     */
+    String explain(RatingQuery<?> query) {
+        Plan<?> plan = plan(query);
+        String order;
+        if (query.sort == null) {
+            order = query.limit > 0 ? "access path order, stop after " + query.limit : "access path order";
+        } else if (query.sort == RatingQuery.Sort.NAME && plan.nameOrdered) {
+            order = query.limit > 0 ? "name order from the index, stop after " + query.limit : "name order from the index";
+        } else if (query.limit > 0) {
+            order = "top " + query.limit + " by " + sortName(query.sort) + " (bounded heap)";
+        } else {
+            order = "full sort by " + sortName(query.sort);
+        }
+        String target = query.target == RatingQuery.Target.COURSE_PROFESSORS ? "pairs" : query.target.name().toLowerCase();
+        return String.format("%s via %s, ~%d candidates, %s", target, plan.path, plan.estimate, order);
+    }
+
+    private static String sortName(RatingQuery.Sort sort) {
+        return sort == RatingQuery.Sort.RATING_COUNT ? "count" : sort.name().toLowerCase();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Plan<T> plan(RatingQuery<T> query) {
+        List<Plan<?>> candidates = new ArrayList<>();
+        switch (query.target) {
+            case COURSES:
+                addCoursePaths(query, candidates);
+                break;
+            case PROFESSORS:
+                addProfessorPaths(query, candidates);
+                break;
+            default:
+                addPairPaths(query, candidates);
+                break;
+        }
+
+        Plan<?> best = candidates.get(0);
+        for (Plan<?> candidate : candidates) {
+            if (candidate.estimate < best.estimate) {
+                best = candidate;
+            }
+        }
+        return (Plan<T>) best;
+    }
+
+    private void addCoursePaths(RatingQuery<?> query, List<Plan<?>> candidates) {
+        if (query.courseId != null) {
+            Course course = courseMap.get(query.courseId);
+            candidates.add(new Plan<Course>("course ID map", 1, true, visitor -> {
+                if (course != null) {
+                    visitor.test(course);
+                }
+            }));
+        }
+        if (query.courseName != null && indexComplete) {
+            Course course = courseIndex.searchByExactName(query.courseName);
+            candidates.add(new Plan<Course>("course name index (exact name)", 1, true, visitor -> {
+                if (course != null) {
+                    visitor.test(course);
+                }
+            }));
+        }
+        if (query.professorName != null) {
+            Professor professor = professorMap.get(query.professorName);
+            List<CourseProfessor> teaching = professor == null ? Collections.emptyList() : professor.getTeaching();
+            candidates.add(new Plan<Course>("professor map (their courses)", teaching.size(), false, visitor -> {
+                for (CourseProfessor cp : teaching) {
+                    if (!visitor.test(cp.getCourse())) {
+                        return;
+                    }
+                }
+            }));
+        }
+        if (query.namePrefix != null && !query.namePrefix.isEmpty() && indexComplete) {
+            char letter = query.namePrefix.charAt(0);
+            candidates.add(new Plan<Course>("course name index (first letter '" + letter + "')",
+                                            Math.max(1, courseMap.size() / LETTERS), true,
+                                            visitor -> scanAll(courseIndex.searchByFirstLetter(letter), visitor)));
+        }
+        if (indexComplete) {
+            candidates.add(new Plan<Course>("course name index (full scan)", courseMap.size(), true,
+                                            courseIndex::scanSorted));
+        } else {
+            candidates.add(new Plan<Course>("course ID map (full scan)", courseMap.size(), false,
+                                            visitor -> scanAll(courseMap.values(), visitor)));
+        }
+    }
+
+    private void addProfessorPaths(RatingQuery<?> query, List<Plan<?>> candidates) {
+        if (query.professorName != null) {
+            Professor professor = professorMap.get(query.professorName);
+            candidates.add(new Plan<Professor>("professor map", 1, true, visitor -> {
+                if (professor != null) {
+                    visitor.test(professor);
+                }
+            }));
+        }
+        Course course = exactCourse(query);
+        if (course != null || query.courseId != null || query.courseName != null && indexComplete) {
+            List<CourseProfessor> professors = course == null ? Collections.emptyList() : course.getProfessorList();
+            candidates.add(new Plan<Professor>(query.courseId != null ? "course ID map (its professors)"
+                                                                      : "course name index (its professors)",
+                                               professors.size(), false, visitor -> {
+                for (CourseProfessor cp : professors) {
+                    if (!visitor.test(cp.getProfessor())) {
+                        return;
+                    }
+                }
+            }));
+        }
+        addGroupPath(RatingRollup.Key.DEPARTMENT, query.department, candidates);
+        addGroupPath(RatingRollup.Key.LEVEL, query.level, candidates);
+        candidates.add(new Plan<Professor>("professor map (full scan)", professorMap.size(), false,
+                                           visitor -> scanAll(professorMap.values(), visitor)));
+    }
+
+    /**
+     * Professors with ratings in a department or level, from its rollup group
+     */
+    private void addGroupPath(RatingRollup.Key key, String name, List<Plan<?>> candidates) {
+        if (name == null) {
+            return;
+        }
+        RollupGroup group = rollup.getGroup(key, name);
+        Collection<String> names = group == null ? Collections.emptyList() : group.getProfessorNames();
+        candidates.add(new Plan<Professor>(key.name().toLowerCase() + " rollup (" + name + ")", names.size(), false,
+                                           visitor -> {
+            for (String professorName : names) {
+                if (!visitor.test(professorMap.get(professorName))) {
+                    return;
+                }
+            }
+        }));
+    }
+
+    private void addPairPaths(RatingQuery<?> query, List<Plan<?>> candidates) {
+        Course course = exactCourse(query);
+        if (course != null || query.courseId != null || query.courseName != null && indexComplete) {
+            List<CourseProfessor> pairs = course == null ? Collections.emptyList() : course.getProfessorList();
+            candidates.add(new Plan<CourseProfessor>(query.courseId != null ? "course ID map (its professors)"
+                                                                            : "course name index (its professors)",
+                                                     pairs.size(), false, visitor -> scanAll(pairs, visitor)));
+        }
+        if (query.professorName != null) {
+            Professor professor = professorMap.get(query.professorName);
+            List<CourseProfessor> teaching = professor == null ? Collections.emptyList() : professor.getTeaching();
+            candidates.add(new Plan<CourseProfessor>("professor map (their courses)", teaching.size(), false,
+                                                     visitor -> scanAll(teaching, visitor)));
+        }
+        if (query.namePrefix != null && !query.namePrefix.isEmpty() && indexComplete) {
+            char letter = query.namePrefix.charAt(0);
+            candidates.add(new Plan<CourseProfessor>("course name index (first letter '" + letter + "')",
+                                                     Math.max(1, courseMap.size() / LETTERS), false,
+                                                     visitor -> scanPairs(courseIndex.searchByFirstLetter(letter), visitor)));
+        }
+        candidates.add(new Plan<CourseProfessor>("course ID map (full scan)", courseMap.size(), false,
+                                                 visitor -> scanPairs(courseMap.values(), visitor)));
+    }
+
+    /**
+     * The single course named by the query's course ID or exact name, null if none (or not found)
+     */
+    private Course exactCourse(RatingQuery<?> query) {
+        if (query.courseId != null) {
+            return courseMap.get(query.courseId);
+        }
+        if (query.courseName != null && indexComplete) {
+            return courseIndex.searchByExactName(query.courseName);
+        }
+        return null;
+    }
+
+    private static <T> void scanAll(Collection<T> items, Predicate<T> visitor) {
+        for (T item : items) {
+            if (!visitor.test(item)) {
+                return;
+            }
+        }
+    }
+
+    private static void scanPairs(Collection<Course> courses, Predicate<CourseProfessor> visitor) {
+        for (Course course : courses) {
+            for (CourseProfessor cp : course.getProfessorList()) {
+                if (!visitor.test(cp)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the check of all the query's filters
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Predicate<T> filter(RatingQuery<T> query) {
+        switch (query.target) {
+            case COURSES:
+                return (Predicate<T>) (Predicate<Course>) course ->
+                        matchesCourse(query, course)
+                        && (query.professorName == null || teaches(course, query.professorName))
+                        && matchesRatings(query, course.getOverallAverageRating(), course.getRatingCount());
+            case PROFESSORS:
+                return (Predicate<T>) (Predicate<Professor>) professor ->
+                        (query.professorName == null || professor.getName().equals(query.professorName))
+                        && (!hasCourseFilter(query) || ratedInMatchingCourse(query, professor))
+                        && matchesRatings(query, professor.getOverallAverageRating(), professor.getRatingCount());
+            default:
+                return (Predicate<T>) (Predicate<CourseProfessor>) cp ->
+                        matchesCourse(query, cp.getCourse())
+                        && (query.professorName == null || cp.getProfessor().getName().equals(query.professorName))
+                        && matchesRatings(query, cp.getAverageRating(), cp.getRatingCount());
+        }
+    }
+
+    private static boolean hasCourseFilter(RatingQuery<?> query) {
+        return query.courseId != null || query.courseName != null || query.namePrefix != null
+               || query.nameKeyword != null || query.department != null || query.level != null;
+    }
+
+    private static boolean matchesCourse(RatingQuery<?> query, Course course) {
+        String name = course.getCourseName();
+        return (query.courseId == null || course.getCourseId().equals(query.courseId))
+               && (query.courseName == null || name.equalsIgnoreCase(query.courseName))
+               && (query.namePrefix == null || name.regionMatches(true, 0, query.namePrefix, 0, query.namePrefix.length()))
+               && (query.nameKeyword == null || name.toLowerCase().contains(query.nameKeyword.toLowerCase()))
+               && (query.department == null
+                   || RatingRollup.Key.DEPARTMENT.groupOf(course.getCourseId()).equals(query.department))
+               && (query.level == null || RatingRollup.Key.LEVEL.groupOf(course.getCourseId()).equals(query.level));
+    }
+
+    private static boolean teaches(Course course, String professorName) {
+        for (CourseProfessor cp : course.getProfessorList()) {
+            if (cp.getProfessor().getName().equals(professorName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Professors match course filters through the courses they have ratings in
+     */
+    private static boolean ratedInMatchingCourse(RatingQuery<?> query, Professor professor) {
+        for (CourseProfessor cp : professor.getTeaching()) {
+            if (cp.getRatingCount() > 0 && matchesCourse(query, cp.getCourse())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesRatings(RatingQuery<?> query, double average, int count) {
+        return average >= query.minAverage && count >= query.minRatings;
+    }
+
+    private static <T> Entry<T> entry(T item, RatingQuery.Sort sort) {
+        if (item instanceof Course) {
+            Course course = (Course) item;
+            return new Entry<>(item, sortValue(sort, course.getOverallAverageRating(), course.getRatingCount()),
+                               course.getCourseName());
+        }
+        if (item instanceof Professor) {
+            Professor professor = (Professor) item;
+            return new Entry<>(item, sortValue(sort, professor.getOverallAverageRating(), professor.getRatingCount()),
+                               professor.getName());
+        }
+        CourseProfessor cp = (CourseProfessor) item;
+        return new Entry<>(item, sortValue(sort, cp.getAverageRating(), cp.getRatingCount()),
+                           cp.getCourse().getCourseName() + " / " + cp.getProfessor().getName());
+    }
+
+    private static double sortValue(RatingQuery.Sort sort, double average, int count) {
+        switch (sort) {
+            case AVERAGE:
+                return average;
+            case RATING_COUNT:
+                return count;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Result order: name ascending (case-insensitive); average and count descending, ties by name
+     */
+    private static <T> Comparator<Entry<T>> order(RatingQuery.Sort sort) {
+        Comparator<Entry<T>> byName = (a, b) -> {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(a.name, b.name);
+            return c != 0 ? c : a.name.compareTo(b.name);
+        };
+        if (sort == RatingQuery.Sort.NAME) {
+            return byName;
+        }
+        Comparator<Entry<T>> byValue = (a, b) -> Double.compare(b.value, a.value);
+        return byValue.thenComparing(byName);
+    }
+
+    private static <T> List<T> sorted(List<Entry<T>> entries, Comparator<Entry<T>> order) {
+        entries.sort(order);
+        List<T> result = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+}
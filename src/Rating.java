@@ -1,19 +1,38 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
 /**
  * Rating class: Represents a rating record
- * Contains rating score and comment content
+ * Contains rating score, comment content and the time the rating was given
  */
 public class Rating {
     private double score;      // Rating (e.g., 0-5)
     private String comment;    // Comment content
+    private long timestamp;    // Epoch milliseconds, 0 = unknown (rows from files without timestamps)
+    private boolean removed;   // True once deleted (see CourseProfessor.removeRating)
+    private int sequence;      // Position among its course-professor pair's ratings (1, 2, ...; 0 = not added yet)
 
     /**
-     * Constructor
+     * Constructor (time unknown)
      * @param score rating score
      * @param comment comment content
      */
     public Rating(double score, String comment) {
+        this(score, comment, 0);
+    }
+
+    /**
+     * Constructor
+     * @param score rating score
+     * @param comment comment content
+     * @param timestamp time the rating was given (epoch milliseconds, 0 = unknown)
+     */
+    public Rating(double score, String comment, long timestamp) {
         this.score = score;
         this.comment = comment;
+        this.timestamp = timestamp;
     }
 
     // Getter and Setter methods
@@ -33,8 +52,77 @@ public class Rating {
         this.comment = comment;
     }
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean hasTimestamp() {
+        return timestamp != 0;
+    }
+
+    /**
+     * Get the position of the rating among the ratings of its course-professor pair
+     * Identifies the rating even after its list was spilled to disk and read back
+     * (as a new object), see CourseProfessor.findRating
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Mark the rating as deleted
+     * Deleted ratings stay in lists and the comment index until they are compacted away
+     */
+    public void markRemoved() {
+        this.removed = true;
+    }
+
+    /**
+     * Parse the timestamp column of a CSV row
+     * Accepts an ISO-8601 instant (2025-03-14T09:30:00Z), a date (2025-03-14, midnight UTC)
+     * or epoch milliseconds; an empty field means unknown
+     * @return epoch milliseconds, 0 if empty
+     * @throws NumberFormatException if the text is not a timestamp
+     */
+    public static long parseTimestamp(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        if (Character.isDigit(text.charAt(text.length() - 1)) && text.indexOf('-') < 0) {
+            return Long.parseLong(text);
+        }
+        try {
+            if (text.indexOf('T') < 0) {
+                return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new NumberFormatException("Invalid timestamp: " + text);
+        }
+    }
+
+    /**
+     * Format a timestamp for the CSV timestamp column
+     * @return ISO-8601 instant, or an empty string if unknown
+     */
+    public static String formatTimestamp(long timestamp) {
+        return timestamp == 0 ? "" : Instant.ofEpochMilli(timestamp).toString();
+    }
+
     @Override
     public String toString() {
-        return String.format("[%.1f] %s", score, comment);
+        if (timestamp == 0) {
+            return String.format("[%.1f] %s", score, comment);
+        }
+        return String.format("[%.1f] %s (%s)", score, comment,
+                             Instant.ofEpochMilli(timestamp).atOffset(ZoneOffset.UTC).toLocalDate());
     }
 }
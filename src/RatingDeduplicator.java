@@ -0,0 +1,144 @@
+import java.util.Objects;
+
+/**
+ * RatingDeduplicator class: Drops ratings that are already in a RatingSystem
+ * Loading overlapping exports, or tailing a file that was rewritten, would otherwise
+ * count the same rating twice. A rating is identified by its content: course ID,
+ * professor, score, time and comment. Its 64-bit fingerprint goes into a
+ * ScalableBloomFilter (12-20 bits per rating at a 1% false-positive rate):
+ *   - filter says "new": the rating is new for sure, no further work
+ *   - filter says "maybe": the ratings of its course-professor pair are compared
+ *     field by field; only an exact match is dropped, so a false positive never
+ *     loses a rating (it only costs the comparison)
+ * Ratings that are identical in every field count as one, so this is off by default:
+ * enable it with -Drating.dedup=true for data whose ratings have times or comments.
+ * The false-positive rate is -Drating.dedupFpp=<p> (default 0.01).
+ *
+ * Deleted ratings stay in the filter; adding one again passes the exact check.
+ * Not thread-safe: the RatingSystem calls it under its write lock
+ */
+public class RatingDeduplicator {
+    /** Whether new RatingSystems drop duplicate ratings, -Drating.dedup=true */
+    public static final boolean ENABLED = Boolean.getBoolean("rating.dedup");
+    /** False-positive rate of the filter, -Drating.dedupFpp=<p> */
+    public static final double FALSE_POSITIVE_RATE = Double.parseDouble(System.getProperty("rating.dedupFpp", "0.01"));
+
+    private static final int INITIAL_CAPACITY = 1 << 16;    // Ratings the first filter is sized for
+
+    private final ScalableBloomFilter filter;   // Fingerprints of all ratings added
+    private long checked;                       // Ratings checked
+    private long exactChecks;                   // Ratings the filter could not rule out
+    private long dropped;                       // Duplicates dropped
+
+    public RatingDeduplicator() {
+        this(FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Constructor
+     * @param falsePositiveRate rate of new ratings that need an exact check
+     */
+    public RatingDeduplicator(double falsePositiveRate) {
+        this.filter = new ScalableBloomFilter(INITIAL_CAPACITY, falsePositiveRate);
+    }
+
+    /**
+     * Fingerprint of a rating's content (the course name is left out: the ID identifies the course)
+     */
+    public static long fingerprint(String courseId, String professorName, double score, long timestamp,
+                                   String comment) {
+        long h = hash(0xCBF29CE484222325L, courseId);
+        h = hash(h, professorName);
+        h = ScalableBloomFilter.mix(h ^ Double.doubleToLongBits(score));
+        h = ScalableBloomFilter.mix(h ^ timestamp);
+        return ScalableBloomFilter.mix(hash(h, comment));
+    }
+
+    /**
+     * Check if a rating may be a duplicate without the exact check
+     * @return false if it is certainly new
+     */
+    boolean mightBeDuplicate(long fingerprint) {
+        return filter.mightContain(fingerprint);
+    }
+
+    /**
+     * Decide whether a rating about to be added to a pair is new
+     * A new rating's fingerprint is remembered, so the caller must add it.
+     * Every earlier rating of the pair must already be in its list
+     * @return true if the rating is new, false if the pair has an identical one (dropped)
+     */
+    boolean admit(CourseProfessor cp, long fingerprint, double score, long timestamp, String comment) {
+        checked++;
+        if (!filter.mightContain(fingerprint)) {
+            filter.put(fingerprint);
+            return true;
+        }
+
+        long start = RatingSystemMetrics.start();
+        exactChecks++;
+        boolean duplicate = false;
+        for (Rating rating : cp.getRatings()) {
+            if (Double.compare(rating.getScore(), score) == 0 && rating.getTimestamp() == timestamp
+                    && Objects.equals(rating.getComment(), comment)) {
+                duplicate = true;
+                break;
+            }
+        }
+        RatingSystemMetrics.CHECK_DUPLICATE.record(start, duplicate ? 1 : 0);
+        if (duplicate) {
+            dropped++;
+        }
+        return !duplicate;
+    }
+
+    /**
+     * Remember a rating that is already in the system (e.g., loaded before deduplication started)
+     */
+    void remember(String courseId, String professorName, Rating rating) {
+        filter.put(fingerprint(courseId, professorName, rating.getScore(), rating.getTimestamp(),
+                               rating.getComment()));
+    }
+
+    /**
+     * Number of ratings checked
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     * Number of ratings compared field by field (duplicates and false positives)
+     */
+    public long getExactChecks() {
+        return exactChecks;
+    }
+
+    /**
+     * Number of duplicate ratings dropped
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Bits used by the filter
+     */
+    public long getFilterBits() {
+        return filter.getBitCount();
+    }
+
+    public double getFalsePositiveRate() {
+        return filter.getFalsePositiveRate();
+    }
+
+    private static long hash(long h, String text) {
+        if (text == null) {
+            return ScalableBloomFilter.mix(h ^ 0x5BD1E995L);    // Differs from the empty string
+        }
+        for (int i = 0; i < text.length(); i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001B3L;           // FNV-1a
+        }
+        return ScalableBloomFilter.mix(h ^ text.length());      // Length ends the field: "ab"+"c" != "a"+"bc"
+    }
+}
@@ -0,0 +1,579 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * RatingHttpServer class: Embedded HTTP/JSON API for RatingSystem
+ * Built on the JDK's HttpServer; every request runs on its own virtual thread,
+ * so thousands of open connections cost little memory. A semaphore bounds how many
+ * requests work on the data at once; requests that cannot get a permit in time get 503.
+ * /changes long polls mostly wait, so they take permits from a separate, larger pool
+ * and never hold up data requests.
+ *
+ * Endpoints:
+ *   POST /ratings                        add a rating (form fields courseId, courseName,
+ *                                        professorName, rating, comment); 201, or 200 with
+ *                                        "duplicate": true if an identical rating was dropped
+ *   GET  /courses/{id}                   course details with ranked professors and ratings
+ *   GET  /courses?name=kw                courses whose name contains a keyword
+ *   GET  /courses?prefix=p               courses whose name starts with a prefix
+ *   GET  /courses                        all courses sorted by name
+ *   GET  /professors/{name}              professor details
+ *   GET  /rankings/professors?limit=n    overall professor ranking
+ *   GET  /rankings/courses/{id}          professor ranking within a course
+ *   GET  /changes?from=n&limit=m&wait=ms change feed events from sequence number n on,
+ *                                        waiting up to wait ms (long polling) if there are
+ *                                        none yet; 410 once they are no longer retained
+ * List endpoints accept an optional limit parameter.
+ *
+ * While the data file is still loading, responses carry the header
+ * "X-Partial-Results: true"; lookups by course ID or professor name wait
+ * (up to LOAD_WAIT_MILLIS) for the entity to be loaded before answering 404.
+ *
+ * Large lists are streamed: items are written in batches under the read lock and
+ * each batch is sent to the client after the lock is released, so a slow client
+ * never blocks writers.
+ */
+public class RatingHttpServer {
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_MAX_CONCURRENT = 256;       // Requests working on the data at once
+    static final int MAX_LONG_POLLS = 4096;              // /changes requests open at once
+    private static final long PERMIT_TIMEOUT_MILLIS = 5000;
+    private static final int BATCH_SIZE = 256;           // List items written per read lock hold
+    private static final int BACKLOG = 4096;             // Pending TCP connections
+    private static final long LOAD_WAIT_MILLIS = 10000;  // Longest wait for a course or professor still being loaded
+    private static final int CHANGES_LIMIT = 1000;       // Default events per /changes response
+    private static final long CHANGES_MAX_WAIT_MILLIS = 30000;  // Longest long poll of /changes
+
+    private final Supplier<RatingSystem> systemSource;   // Current data (follows background reloads)
+    private final int port;
+    private final Semaphore permits;                     // Data requests
+    private final Semaphore pollPermits;                 // /changes requests (long polls)
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor
+     * @param systemSource supplies the RatingSystem to query for each request
+     * @param port TCP port (0 = any free port)
+     * @param maxConcurrent maximum number of requests processed at the same time
+     */
+    public RatingHttpServer(Supplier<RatingSystem> systemSource, int port, int maxConcurrent) {
+        this.systemSource = systemSource;
+        this.port = port;
+        this.permits = new Semaphore(maxConcurrent);
+        this.pollPermits = new Semaphore(MAX_LONG_POLLS);
+    }
+
+    /**
+     * Start serving requests
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/ratings", guarded(this::handleRatings));
+        server.createContext("/courses", guarded(this::handleCourses));
+        server.createContext("/professors", guarded(this::handleProfessors));
+        server.createContext("/rankings", guarded(this::handleRankings));
+        server.createContext("/changes", guarded(pollPermits, this::handleChanges));
+        server.start();
+    }
+
+    /**
+     * Stop serving; requests in progress get up to one second to finish
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Get the port actually bound (useful when started with port 0)
+     */
+    public synchronized int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    /**
+     * Wrap a handler with the concurrency bound and error handling
+     */
+    private HttpHandler guarded(HttpHandler handler) {
+        return guarded(permits, handler);
+    }
+
+    /**
+     * Wrap a handler with error handling and a bound taken from the given pool
+     */
+    private HttpHandler guarded(Semaphore pool, HttpHandler handler) {
+        return exchange -> {
+            try {
+                if (!pool.tryAcquire(PERMIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    sendError(exchange, 503, "Server busy, try again later");
+                    return;
+                }
+                try {
+                    if (systemSource.get().isLoading()) {
+                        exchange.getResponseHeaders().set("X-Partial-Results", "true");
+                    }
+                    handler.handle(exchange);
+                } finally {
+                    pool.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IOException e) {
+                // Client went away while the response was being written
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal error: " + e);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    /**
+     * POST /ratings
+     */
+    private void handleRatings(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendError(exchange, 405, "Use POST to add a rating");
+            return;
+        }
+
+        Map<String, String> form = parseQuery(readBody(exchange));
+        form.putAll(parseQuery(exchange.getRequestURI().getRawQuery()));
+
+        String courseId = form.getOrDefault("courseId", "").trim();
+        String courseName = form.getOrDefault("courseName", "").trim();
+        String professorName = form.getOrDefault("professorName", "").trim();
+        String comment = form.getOrDefault("comment", "").trim();
+        double score;
+        try {
+            score = Double.parseDouble(form.getOrDefault("rating", "").trim());
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Rating must be a number between 0 and 5");
+            return;
+        }
+
+        String error = RatingSystem.validateRating(courseId, courseName, professorName, score);
+        if (error != null) {
+            sendError(exchange, 400, error.replaceFirst("^Error: ", ""));
+            return;
+        }
+        RatingSystem.AddResult result = systemSource.get().addRatingSilently(courseId, courseName, professorName,
+                                                                             score, comment, System.currentTimeMillis());
+        if (result == RatingSystem.AddResult.FROZEN) {
+            sendError(exchange, 409, "Data is frozen (read-only)");
+            return;
+        }
+        if (result == RatingSystem.AddResult.RETIRED) {
+            sendError(exchange, 409, "Data was just reloaded, add the rating again");
+            return;
+        }
+
+        // A duplicate is not an error: the same rating is already stored
+        boolean added = result == RatingSystem.AddResult.ADDED;
+        try (JsonResponse response = new JsonResponse(exchange, added ? 201 : 200)) {
+            response.json.beginObject().field("added", added);
+            if (!added) {
+                response.json.field("duplicate", true);
+            }
+            response.json.endObject();
+        }
+    }
+
+    /**
+     * GET /courses, /courses/{id}
+     */
+    private void handleCourses(HttpExchange exchange) throws IOException {
+        if (!requireGet(exchange)) {
+            return;
+        }
+
+        RatingSystem system = systemSource.get();
+        String id = pathTail(exchange, "/courses");
+        if (!id.isEmpty()) {
+            Course course = awaitCourse(system, id);
+            if (course == null) {
+                sendError(exchange, 404, "Course with ID " + id + " not found");
+                return;
+            }
+            List<CourseProfessor> ranking = system.getProfessorRankingInCourse(id);
+            try (JsonResponse response = new JsonResponse(exchange, 200)) {
+                response.locked(system, () -> RatingJson.writeCourseDetails(response.json, course, ranking));
+            }
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<Course> courses;
+        if (query.containsKey("name")) {
+            courses = system.searchCoursesByName(query.get("name"));
+        } else if (query.containsKey("prefix")) {
+            courses = system.searchCoursesByPrefix(query.get("prefix"));
+        } else {
+            courses = system.getCourses();
+        }
+        courses = limit(courses, query);
+
+        try (JsonResponse response = new JsonResponse(exchange, 200)) {
+            response.json.beginObject().field("count", courses.size()).name("courses");
+            response.streamArray(system, courses, RatingJson::writeCourseSummary);
+            response.json.endObject();
+        }
+    }
+
+    /**
+     * GET /professors/{name}
+     */
+    private void handleProfessors(HttpExchange exchange) throws IOException {
+        if (!requireGet(exchange)) {
+            return;
+        }
+
+        String name = pathTail(exchange, "/professors");
+        if (name.isEmpty()) {
+            sendError(exchange, 400, "Professor name is required: /professors/{name}");
+            return;
+        }
+
+        RatingSystem system = systemSource.get();
+        Professor professor = awaitProfessor(system, name);
+        if (professor == null) {
+            sendError(exchange, 404, "Professor named " + name + " not found");
+            return;
+        }
+
+        try (JsonResponse response = new JsonResponse(exchange, 200)) {
+            response.locked(system, () -> RatingJson.writeProfessorDetails(response.json, professor));
+        }
+    }
+
+    /**
+     * GET /rankings/professors, /rankings/courses/{id}
+     */
+    private void handleRankings(HttpExchange exchange) throws IOException {
+        if (!requireGet(exchange)) {
+            return;
+        }
+
+        RatingSystem system = systemSource.get();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String path = pathTail(exchange, "/rankings");
+
+        if (path.equals("professors")) {
+            List<Professor> ranking = limit(system.getOverallProfessorRanking(), query);
+            try (JsonResponse response = new JsonResponse(exchange, 200)) {
+                response.json.beginObject().field("count", ranking.size()).name("professors");
+                response.streamArray(system, ranking, RatingJson::writeProfessorSummary);
+                response.json.endObject();
+            }
+        } else if (path.startsWith("courses/")) {
+            String courseId = path.substring("courses/".length());
+            if (awaitCourse(system, courseId) == null) {
+                sendError(exchange, 404, "Course with ID " + courseId + " not found");
+                return;
+            }
+            List<CourseProfessor> ranking = limit(system.getProfessorRankingInCourse(courseId), query);
+            try (JsonResponse response = new JsonResponse(exchange, 200)) {
+                response.json.beginObject().field("courseId", courseId).name("professors");
+                response.streamArray(system, ranking, RatingJson::writeCourseProfessor);
+                response.json.endObject();
+            }
+        } else {
+            sendError(exchange, 404, "Unknown ranking: use /rankings/professors or /rankings/courses/{id}");
+        }
+    }
+
+    /**
+     * GET /changes?from=n&limit=m&wait=ms
+     * Without from, starts at the oldest retained event. A mirror passes the
+     * returned nextSequence as from of its next request; a different feedId
+     * means the data was reloaded and the mirror must copy it again
+     */
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        if (!requireGet(exchange)) {
+            return;
+        }
+
+        ChangeFeed feed = systemSource.get().getChangeFeed();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        long from = longParameter(query, "from", feed.getOldestSequence());
+        int limit = (int) Math.min(longParameter(query, "limit", CHANGES_LIMIT), feed.getRetainedCapacity());
+        long wait = Math.min(longParameter(query, "wait", 0), CHANGES_MAX_WAIT_MILLIS);
+
+        if (from < 1) {
+            throw new IllegalArgumentException("from must be at least 1");
+        }
+        if (from < feed.getOldestSequence()) {
+            sendError(exchange, 410, "Events before " + feed.getOldestSequence() + " are no longer retained");
+            return;
+        }
+        List<ChangeEvent> events;
+        try {
+            events = feed.read(from, Math.max(1, limit), Math.max(0, wait));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();     // Server is stopping
+            return;
+        }
+
+        try (JsonResponse response = new JsonResponse(exchange, 200)) {
+            response.json.beginObject()
+                .field("feedId", feed.getFeedId())
+                .field("nextSequence", from + events.size())
+                .field("count", events.size())
+                .name("events").beginArray();
+            for (ChangeEvent event : events) {
+                RatingJson.writeChangeEvent(response.json, event);
+            }
+            response.json.endArray().endObject();
+        }
+    }
+
+    private static long longParameter(Map<String, String> query, String name, long defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    /**
+     * Search course by ID, waiting for it while the data is still loading
+     */
+    private static Course awaitCourse(RatingSystem system, String courseId) {
+        try {
+            return system.awaitCourseById(courseId, LOAD_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Search professor by name, waiting for them while the data is still loading
+     */
+    private static Professor awaitProfessor(RatingSystem system, String name) {
+        try {
+            return system.awaitProfessorByName(name, LOAD_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Writes one item of a streamed list
+     */
+    private interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    /**
+     * Writes JSON that must be produced under the read lock
+     */
+    private interface LockedWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * JsonResponse class: A chunked JSON response
+     * JSON is produced into a small buffer; the buffer is sent to the client
+     * only while no lock is held
+     */
+    private static class JsonResponse implements AutoCloseable {
+        final JsonWriter json;
+        private final CharArrayWriter buffer;
+        private final Writer out;
+
+        JsonResponse(HttpExchange exchange, int status) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, 0);    // 0 = chunked, length unknown
+            this.out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                                          1 << 14);
+            this.buffer = new CharArrayWriter(1 << 14);
+            this.json = new JsonWriter(buffer);
+        }
+
+        /**
+         * Run a writer under the read lock, then send what it produced
+         */
+        void locked(RatingSystem system, LockedWriter writer) throws IOException {
+            Lock lock = system.readLock();
+            lock.lock();
+            try {
+                writer.write();
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        /**
+         * Write a JSON array, BATCH_SIZE items per read lock hold
+         */
+        <T> void streamArray(RatingSystem system, List<T> items, ItemWriter<T> writer) throws IOException {
+            json.beginArray();
+            for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+                int to = Math.min(items.size(), from + BATCH_SIZE);
+                int start = from;
+                locked(system, () -> {
+                    for (int i = start; i < to; i++) {
+                        writer.write(json, items.get(i));
+                    }
+                });
+            }
+            json.endArray();
+        }
+
+        private void drain() throws IOException {
+            json.flush();
+            buffer.writeTo(out);
+            buffer.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            out.close();
+        }
+    }
+
+    private static boolean requireGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            return true;
+        }
+        sendError(exchange, 405, "Use GET for queries");
+        return false;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            byte[] body = ("{\"error\":" + quote(message) + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // Headers already sent or client gone, nothing more to report
+        }
+    }
+
+    private static String quote(String s) throws IOException {
+        CharArrayWriter out = new CharArrayWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.value(s);
+        json.flush();
+        return out.toString();
+    }
+
+    /**
+     * Decoded path after a context prefix, e.g. "/courses/CPS1231" -> "CPS1231"
+     */
+    private static String pathTail(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getPath();
+        String tail = path.length() > context.length() ? path.substring(context.length() + 1) : "";
+        return tail.endsWith("/") ? tail.substring(0, tail.length() - 1) : tail;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parse "a=1&b=2" (URL encoded)
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                params.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+            } else {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Apply the optional limit parameter
+     */
+    private static <T> List<T> limit(List<T> list, Map<String, String> query) {
+        String limit = query.get("limit");
+        if (limit == null) {
+            return list;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(limit.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a whole number");
+        }
+        return n > 0 && n < list.size() ? list.subList(0, n) : list;
+    }
+
+    /**
+     * Run the API without the menu
+     * Usage: java RatingHttpServer [port] [data file]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String file = args.length > 1 ? args[1] : "data.csv";
+
+        RatingSystem system = new RatingSystem();
+        RatingSystemMetrics.registerMBeans();
+
+        int maxConcurrent = Integer.getInteger("rating.http.maxConcurrent", DEFAULT_MAX_CONCURRENT);
+        RatingHttpServer server = new RatingHttpServer(() -> system, port, maxConcurrent);
+        server.start();
+        System.out.println("HTTP API listening on port " + server.getPort());
+
+        // Serve while loading: the port is open before the first row is read
+        system.loadInBackground(file, task -> new Thread(task, "data-loader").start());
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RatingJson class: JSON views of courses, professors and ratings
+ * Shared by the HTTP API and batch mode so both produce the same shapes.
+ * Callers must hold the RatingSystem read lock (or be its only user)
+ */
+public class RatingJson {
+    private RatingJson() {
+    }
+
+    /**
+     * Round an average to 2 decimals (same precision as the menu output)
+     */
+    static double round(double average) {
+        return Math.round(average * 100) / 100.0;
+    }
+
+    public static void writeCourseSummary(JsonWriter json, Course course) throws IOException {
+        json.beginObject()
+            .field("courseId", course.getCourseId())
+            .field("courseName", course.getCourseName())
+            .field("averageRating", round(course.getOverallAverageRating()))
+            .field("professorCount", course.getProfessorList().size())
+            .endObject();
+    }
+
+    public static void writeCourseDetails(JsonWriter json, Course course, List<CourseProfessor> ranking) throws IOException {
+        json.beginObject()
+            .field("courseId", course.getCourseId())
+            .field("courseName", course.getCourseName())
+            .field("averageRating", round(course.getOverallAverageRating()))
+            .name("professors").beginArray();
+        for (CourseProfessor cp : ranking) {
+            json.beginObject()
+                .field("name", cp.getProfessor().getName())
+                .field("averageRating", round(cp.getAverageRating()))
+                .field("ratingCount", cp.getRatingCount())
+                .name("ratings");
+            writeRatings(json, cp);
+            json.endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    public static void writeProfessorSummary(JsonWriter json, Professor professor) throws IOException {
+        json.beginObject()
+            .field("name", professor.getName())
+            .field("averageRating", round(professor.getOverallAverageRating()))
+            .field("courseCount", professor.getTeaching().size())
+            .endObject();
+    }
+
+    public static void writeProfessorDetails(JsonWriter json, Professor professor) throws IOException {
+        json.beginObject()
+            .field("name", professor.getName())
+            .field("averageRating", round(professor.getOverallAverageRating()))
+            .name("courses").beginArray();
+        for (CourseProfessor cp : professor.getTeaching()) {
+            json.beginObject()
+                .field("courseId", cp.getCourse().getCourseId())
+                .field("courseName", cp.getCourse().getCourseName())
+                .field("averageRating", round(cp.getAverageRating()))
+                .field("ratingCount", cp.getRatingCount())
+                .name("ratings");
+            writeRatings(json, cp);
+            json.endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    public static void writeCourseProfessor(JsonWriter json, CourseProfessor cp) throws IOException {
+        json.beginObject()
+            .field("name", cp.getProfessor().getName())
+            .field("averageRating", round(cp.getAverageRating()))
+            .field("ratingCount", cp.getRatingCount())
+            .endObject();
+    }
+
+    /**
+     * One change feed event; fields that do not apply to its type are null
+     */
+    public static void writeChangeEvent(JsonWriter json, ChangeEvent event) throws IOException {
+        Rating rating = event.getRating();
+        json.beginObject()
+            .field("sequence", event.getSequence())
+            .field("type", event.getType().name())
+            .field("courseId", event.getCourseId())
+            .field("courseName", event.getCourseName())
+            .field("professorName", event.getProfessorName())
+            .name("rating");
+        if (rating == null) {
+            json.nullValue();
+        } else {
+            json.beginObject()
+                .field("score", rating.getScore())
+                .field("comment", rating.getComment())
+                .field("timestamp", rating.hasTimestamp() ? Rating.formatTimestamp(rating.getTimestamp()) : null)
+                .endObject();
+        }
+        json.endObject();
+    }
+
+    public static void writeRatings(JsonWriter json, CourseProfessor cp) throws IOException {
+        json.beginArray();
+        for (Rating rating : cp.getRatings()) {
+            json.beginObject()
+                .field("score", rating.getScore())
+                .field("comment", rating.getComment())
+                .field("timestamp", rating.hasTimestamp() ? Rating.formatTimestamp(rating.getTimestamp()) : null)
+                .endObject();
+        }
+        json.endArray();
+    }
+}
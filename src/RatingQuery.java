@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RatingQuery class: Combined question over courses, professors or course-professor pairs
+ * Filters, a sort key and a limit in one object, run by RatingSystem.query():
+ *
+ *   RatingQuery.courses().nameContains("java").minAverage(4).minRatings(20)
+ *              .sortBy(RatingQuery.Sort.AVERAGE).limit(10)
+ *
+ * All filters must match. Which index answers the query is decided by
+ * QueryPlanner; RatingSystem.explain() shows its choice.
+ * Text form (see parse()): courses name~java avg>=4 ratings>=20 sort=average limit=10
+ * @param <T> result type: Course, Professor or CourseProfessor
+ */
+public class RatingQuery<T> {
+
+    /**
+     * Target class: What a query returns
+     */
+    public enum Target { COURSES, PROFESSORS, COURSE_PROFESSORS }
+
+    /**
+     * Sort class: Result order (name ascending; average and count descending)
+     */
+    public enum Sort { NAME, AVERAGE, RATING_COUNT }
+
+    final Target target;
+    String courseId;                // Course ID equals
+    String courseName;              // Course name equals (case-insensitive)
+    String namePrefix;              // Course name starts with (case-insensitive)
+    String nameKeyword;             // Course name contains (case-insensitive)
+    String professorName;           // Professor name equals
+    String department;              // Course ID department (RatingRollup.Key.DEPARTMENT)
+    String level;                   // Course ID level (RatingRollup.Key.LEVEL)
+    double minAverage = -1;         // Average rating at least (-1 = no filter)
+    int minRatings;                 // Number of ratings at least
+    Sort sort;                      // null = order of the access path
+    int limit;                      // Maximum results, 0 = all
+
+    private RatingQuery(Target target) {
+        this.target = target;
+    }
+
+    public static RatingQuery<Course> courses() {
+        return new RatingQuery<>(Target.COURSES);
+    }
+
+    public static RatingQuery<Professor> professors() {
+        return new RatingQuery<>(Target.PROFESSORS);
+    }
+
+    public static RatingQuery<CourseProfessor> courseProfessors() {
+        return new RatingQuery<>(Target.COURSE_PROFESSORS);
+    }
+
+    /**
+     * Courses with this ID (professors: who teach it)
+     */
+    public RatingQuery<T> courseId(String courseId) {
+        this.courseId = courseId;
+        return this;
+    }
+
+    /**
+     * Courses with exactly this name, ignoring case (professors: who teach it)
+     */
+    public RatingQuery<T> courseName(String courseName) {
+        this.courseName = courseName;
+        return this;
+    }
+
+    /**
+     * Courses whose name starts with a prefix, ignoring case
+     */
+    public RatingQuery<T> namePrefix(String prefix) {
+        this.namePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Courses whose name contains a keyword, ignoring case
+     */
+    public RatingQuery<T> nameContains(String keyword) {
+        this.nameKeyword = keyword;
+        return this;
+    }
+
+    /**
+     * Professor with this name (courses: the ones they teach)
+     */
+    public RatingQuery<T> professor(String name) {
+        this.professorName = name;
+        return this;
+    }
+
+    /**
+     * Courses of a department, e.g. "CPS" (professors: who teach in it)
+     */
+    public RatingQuery<T> department(String department) {
+        this.department = department.toUpperCase();
+        return this;
+    }
+
+    /**
+     * Courses of a level, e.g. "2000" (professors: who teach at it)
+     */
+    public RatingQuery<T> level(String level) {
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Average rating at least this value
+     */
+    public RatingQuery<T> minAverage(double minAverage) {
+        this.minAverage = minAverage;
+        return this;
+    }
+
+    /**
+     * At least this many ratings
+     */
+    public RatingQuery<T> minRatings(int minRatings) {
+        this.minRatings = minRatings;
+        return this;
+    }
+
+    public RatingQuery<T> sortBy(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    /**
+     * Return at most this many results (0 = all)
+     */
+    public RatingQuery<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * Parse the text form of a query
+     * First word: courses, professors or pairs; then any of
+     *   id=CPS1231  name="Java Programming"  name^=Java  name~java  professor="Dr. Smith"
+     *   department=CPS  level=2000  avg>=4  ratings>=20  sort=name|average|count  limit=10
+     * Values with spaces are put in double quotes
+     * @return query
+     * @throws IllegalArgumentException if the text is not a valid query
+     */
+    public static RatingQuery<?> parse(String text) {
+        List<String> words = split(text);
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Empty query");
+        }
+
+        RatingQuery<?> query;
+        switch (words.get(0).toLowerCase()) {
+            case "courses":
+                query = courses();
+                break;
+            case "professors":
+                query = professors();
+                break;
+            case "pairs":
+                query = courseProfessors();
+                break;
+            default:
+                throw new IllegalArgumentException("Query must start with courses, professors or pairs: " + words.get(0));
+        }
+
+        for (String word : words.subList(1, words.size())) {
+            query.parseCondition(word);
+        }
+        return query;
+    }
+
+    private void parseCondition(String word) {
+        try {
+            if (word.startsWith("id=")) {
+                courseId(word.substring(3));
+            } else if (word.startsWith("name^=")) {
+                namePrefix(word.substring(6));
+            } else if (word.startsWith("name~")) {
+                nameContains(word.substring(5));
+            } else if (word.startsWith("name=")) {
+                courseName(word.substring(5));
+            } else if (word.startsWith("professor=")) {
+                professor(word.substring(10));
+            } else if (word.startsWith("department=")) {
+                department(word.substring(11));
+            } else if (word.startsWith("level=")) {
+                level(word.substring(6));
+            } else if (word.startsWith("avg>=")) {
+                minAverage(Double.parseDouble(word.substring(5)));
+            } else if (word.startsWith("ratings>=")) {
+                minRatings(Integer.parseInt(word.substring(9)));
+            } else if (word.startsWith("limit=")) {
+                limit(Integer.parseInt(word.substring(6)));
+            } else if (word.startsWith("sort=")) {
+                String key = word.substring(5).toLowerCase();
+                if (key.equals("name")) {
+                    sortBy(Sort.NAME);
+                } else if (key.equals("average") || key.equals("avg")) {
+                    sortBy(Sort.AVERAGE);
+                } else if (key.equals("count") || key.equals("ratings")) {
+                    sortBy(Sort.RATING_COUNT);
+                } else {
+                    throw new IllegalArgumentException("Unknown sort key: " + key);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown condition: " + word);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number in: " + word);
+        }
+    }
+
+    /**
+     * Split on spaces, keeping double-quoted parts together (quotes are removed)
+     */
+    private static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (word.length() > 0) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RatingRollup class: Pre-aggregated rating totals per group of courses
+ * Course IDs encode their department and level (CPS2232: department "CPS",
+ * level "2000"). For every grouping key the rollup keeps one RollupGroup per
+ * group, updated as ratings are added and removed, so department averages and
+ * per-department professor rankings are read without visiting any course.
+ * Every course remembers its groups (Course.getRollupGroups), so a rating costs
+ * one professor lookup per key. Groups are dropped once their last course is.
+ * Not thread-safe: RatingSystem updates it under its write lock
+ */
+public class RatingRollup {
+
+    /**
+     * Key class: How course IDs are grouped
+     */
+    public enum Key {
+        /** Leading letters of the course ID (CPS2232 -> CPS) */
+        DEPARTMENT,
+        /** First digit of the course ID, as a level (CPS2232 -> 2000) */
+        LEVEL;
+
+        /**
+         * Get the group of a course ID
+         */
+        public String groupOf(String courseId) {
+            if (this == DEPARTMENT) {
+                int end = 0;
+                while (end < courseId.length() && Character.isLetter(courseId.charAt(end))) {
+                    end++;
+                }
+                return end == 0 ? OTHER : courseId.substring(0, end).toUpperCase();
+            }
+
+            for (int i = 0; i < courseId.length(); i++) {
+                if (Character.isDigit(courseId.charAt(i))) {
+                    return courseId.charAt(i) + "000";
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    /** Group of course IDs that have no department letters or no level digit */
+    public static final String OTHER = "(other)";
+
+    private static final Key[] KEYS = Key.values();
+
+    private final Map<Key, Map<String, RollupGroup>> groups;    // Key -> group name -> totals
+
+    public RatingRollup() {
+        this.groups = new EnumMap<>(Key.class);
+        for (Key key : KEYS) {
+            groups.put(key, new HashMap<>());
+        }
+    }
+
+    /**
+     * Count a new course in its groups
+     */
+    public void addCourse(Course course) {
+        RollupGroup[] courseGroups = new RollupGroup[KEYS.length];
+        for (Key key : KEYS) {
+            RollupGroup group = groups.get(key).computeIfAbsent(key.groupOf(course.getCourseId()), RollupGroup::new);
+            group.addCourses(1);
+            courseGroups[key.ordinal()] = group;
+        }
+        course.setRollupGroups(courseGroups);   // Ratings find their groups without parsing the ID again
+    }
+
+    /**
+     * Take a deleted course out of its groups (its ratings must be removed first)
+     */
+    public void removeCourse(Course course) {
+        for (Key key : KEYS) {
+            RollupGroup group = course.getRollupGroups()[key.ordinal()];
+            group.addCourses(-1);
+            dropIfEmpty(key, group);
+        }
+    }
+
+    /**
+     * Add a rating of a course-professor pair to its groups, O(number of keys)
+     */
+    public void addRating(CourseProfessor cp, double score) {
+        addRatings(cp, score, 1);
+    }
+
+    /**
+     * Take a deleted rating out of its groups
+     */
+    public void removeRating(CourseProfessor cp, double score) {
+        addRatings(cp, -score, -1);
+    }
+
+    /**
+     * Take all remaining ratings of a course-professor pair out of its groups (before unlinking it)
+     */
+    public void removeAll(CourseProfessor cp) {
+        if (cp.getRatingCount() > 0) {
+            addRatings(cp, -cp.getTotalScore(), -cp.getRatingCount());
+        }
+    }
+
+    private void addRatings(CourseProfessor cp, double sum, int count) {
+        RollupGroup[] courseGroups = cp.getCourse().getRollupGroups();
+        String professorName = cp.getProfessor().getName();
+        for (RollupGroup group : courseGroups) {
+            group.addRatings(professorName, sum, count);
+        }
+    }
+
+    /**
+     * Get copies of all groups of a key, sorted by group name
+     */
+    public List<RollupGroup> getGroups(Key key) {
+        List<RollupGroup> result = new ArrayList<>();
+        for (RollupGroup group : groups.get(key).values()) {
+            result.add(new RollupGroup(group));
+        }
+        result.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return result;
+    }
+
+    /**
+     * Get a group itself (not a copy); the caller must hold the RatingSystem's lock
+     * @return group, null if no course belongs to it
+     */
+    RollupGroup getGroup(Key key, String name) {
+        return groups.get(key).get(name);
+    }
+
+    /**
+     * Add copies of all groups of a key to a map (merging groups with the same name, e.g., across shards)
+     */
+    void mergeInto(Key key, Map<String, RollupGroup> merged) {
+        for (RollupGroup group : groups.get(key).values()) {
+            merged.computeIfAbsent(group.getName(), RollupGroup::new).addAll(group);
+        }
+    }
+
+    private void dropIfEmpty(Key key, RollupGroup group) {
+        if (group.isEmpty()) {
+            groups.get(key).remove(group.getName());
+        }
+    }
+}
@@ -0,0 +1,453 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RatingSpillStore class: Memory budget for rating lists
+ * Rankings and averages only need the running sums of each CourseProfessor,
+ * so most rating lists are never read again after loading. The store estimates
+ * the heap used by the lists in memory; when that goes over the budget the least
+ * recently used lists (comments included) are written to a segment file and
+ * dropped. Sums, counts and daily windows stay in memory. getRatings() on a
+ * spilled pair reads its list back (it then counts as recently used).
+ *
+ * A list is stored as chunks appended to the file: spilling writes only the
+ * ratings added since the last spill, and adding a rating to a spilled pair
+ * does not read its list back (the new ratings wait in memory until the next
+ * spill). Deleting a rating makes the pair's chunks dead space; when more than
+ * half of the file is dead (and at least COMPACT_MIN_BYTES) it is compacted into
+ * a new file.
+ * The file is created in -Drating.spillDir (default: the temp directory) and
+ * deleted when the program exits.
+ *
+ * Enabled with -Drating.memoryBudgetMB=<n> (0 = unlimited, the default) or the
+ * RatingSystem(indexType, budgetBytes) constructor; each RatingSystem (and each
+ * shard) has its own store. Spills and reloads are counted in RatingSystemMetrics
+ * (spillRatings, reloadRatings). All methods are synchronized: readers holding
+ * the RatingSystem's read lock may reload and spill lists at the same time
+ */
+public class RatingSpillStore {
+    /** Budget from -Drating.memoryBudgetMB=<n> in bytes (0 = unlimited) */
+    public static final long DEFAULT_BUDGET_BYTES = Math.max(0, Long.getLong("rating.memoryBudgetMB", 0)) << 20;
+
+    private static final int RATING_BYTES = 88;                 // Heap estimate per rating: Rating, list slot, comment String headers
+    private static final int MAX_CHUNKS = 8;                    // Chunks of one list before it is rewritten as one
+    /** Dead bytes before compaction is considered, -Drating.spillCompactMB=<n> (default 16) */
+    static final long COMPACT_MIN_BYTES = Math.max(0, Long.getLong("rating.spillCompactMB", 16)) << 20;
+
+    private final long budgetBytes;             // Most estimated bytes of lists kept in memory
+    private final Path directory;               // Where segment files are created
+    private final StringDictionary dictionary;  // Shares comments read back (null: not shared)
+    private Path path;                          // Current segment file (null until the first spill)
+    private FileChannel channel;
+    private long fileEnd;                       // Bytes written to the segment file
+    private long deadBytes;                     // Bytes of chunks no list uses any more
+
+    private final LinkedHashMap<CourseProfessor, Extent> resident;  // Lists (or their new ratings) in memory, least recently used first
+    private final Map<CourseProfessor, Extent> spilled;             // Lists on disk only
+    private long residentBytes;                 // Estimated bytes of the ratings in memory
+
+    /**
+     * Extent class: Where one pair's ratings are, in memory and on disk
+     */
+    private static class Extent {
+        long bytes;                     // Estimated heap bytes of its ratings in memory
+        long[] offsets = new long[1];   // Chunks in the segment file, oldest first
+        int[] lengths = new int[1];
+        int chunks;                     // Number of chunks
+        int persisted;                  // Ratings stored in the chunks
+        boolean partial;                // True: the list in memory only holds ratings added after the chunks
+
+        int chunkBytes() {
+            int total = 0;
+            for (int i = 0; i < chunks; i++) {
+                total += lengths[i];
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param budgetBytes most estimated bytes of rating lists kept in memory
+     */
+    public RatingSpillStore(long budgetBytes) {
+        this(budgetBytes, null);
+    }
+
+    /**
+     * Constructor
+     * @param budgetBytes most estimated bytes of rating lists kept in memory
+     * @param dictionary dictionary the comments read back are interned in (null: none)
+     */
+    public RatingSpillStore(long budgetBytes, StringDictionary dictionary) {
+        this.budgetBytes = budgetBytes;
+        this.dictionary = dictionary;
+        this.directory = Paths.get(System.getProperty("rating.spillDir", System.getProperty("java.io.tmpdir")));
+        this.resident = new LinkedHashMap<>(16, 0.75f, true);
+        this.spilled = new HashMap<>();
+    }
+
+    /**
+     * Start managing a new (empty) course-professor pair
+     */
+    synchronized void register(CourseProfessor cp) {
+        resident.put(cp, new Extent());
+    }
+
+    /**
+     * Add a rating to a pair's list; a spilled list is not read back for this
+     */
+    synchronized void add(CourseProfessor cp, Rating rating) {
+        Extent extent = resident.get(cp);
+        if (extent == null) {
+            extent = spilled.remove(cp);
+            extent.partial = true;
+            cp.reloadRatings(new ArrayList<>());
+            resident.put(cp, extent);
+        }
+        cp.residentRatings().add(rating);
+        long bytes = estimate(rating);
+        extent.bytes += bytes;
+        residentBytes += bytes;
+        evictOverBudget(cp);
+    }
+
+    /**
+     * Get a pair's whole list, reading it back if (partly) spilled
+     */
+    synchronized List<Rating> load(CourseProfessor cp) {
+        Extent extent = resident.get(cp);
+        if (extent == null) {
+            extent = spilled.remove(cp);
+            cp.reloadRatings(new ArrayList<>());
+            extent.partial = true;
+            resident.put(cp, extent);
+        }
+        if (extent.partial) {
+            readBack(cp, extent);
+        }
+        List<Rating> ratings = cp.residentRatings();
+        evictOverBudget(cp);
+        return ratings;
+    }
+
+    /**
+     * Account for a rating deleted from a pair's list (which is in memory, whole)
+     * The chunks no longer match the list: it is written again at its next spill
+     */
+    synchronized void removed(CourseProfessor cp, Rating rating) {
+        Extent extent = resident.get(cp);
+        long bytes = estimate(rating);
+        extent.bytes -= bytes;
+        residentBytes -= bytes;
+        dropChunks(extent);
+        compactIfWasteful();
+    }
+
+    /**
+     * Stop managing a deleted pair; it keeps the ratings it has in memory
+     * (a spilled list is not read back: its ratings are no longer part of the data)
+     */
+    synchronized void forget(CourseProfessor cp) {
+        Extent extent = resident.remove(cp);
+        if (extent != null) {
+            residentBytes -= extent.bytes;
+            cp.detachSpillStore(cp.residentRatings());
+        } else {
+            extent = spilled.remove(cp);
+            if (extent == null) {
+                return;
+            }
+            cp.detachSpillStore(new ArrayList<>());
+        }
+        dropChunks(extent);
+        compactIfWasteful();
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Estimated bytes of the rating lists in memory
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Number of lists currently on disk only
+     */
+    public synchronized int getSpilledCount() {
+        return spilled.size();
+    }
+
+    /**
+     * Size of the segment file (live and dead chunks)
+     */
+    public synchronized long getSegmentBytes() {
+        return fileEnd;
+    }
+
+    /**
+     * Read a list's chunks and put them in front of the ratings added since
+     */
+    private void readBack(CourseProfessor cp, Extent extent) {
+        long start = RatingSystemMetrics.start();
+        List<Rating> added = cp.residentRatings();
+        List<Rating> ratings = new ArrayList<>(extent.persisted + added.size());
+        long bytes = 0;
+        for (int i = 0; i < extent.chunks; i++) {
+            bytes += read(extent.offsets[i], extent.lengths[i], ratings);
+        }
+        ratings.addAll(added);
+        cp.reloadRatings(ratings);
+        extent.partial = false;
+        extent.bytes += bytes;
+        residentBytes += bytes;
+        if (extent.chunks > MAX_CHUNKS) {
+            dropChunks(extent);     // Written again as one chunk at the next spill
+        }
+        RatingSystemMetrics.RELOAD.record(start, extent.persisted);
+    }
+
+    /**
+     * Spill least recently used lists until the resident ones fit in the budget
+     * @param keep pair being used right now (never spilled)
+     */
+    private void evictOverBudget(CourseProfessor keep) {
+        if (residentBytes <= budgetBytes) {
+            return;
+        }
+
+        Iterator<Map.Entry<CourseProfessor, Extent>> it = resident.entrySet().iterator();
+        while (residentBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<CourseProfessor, Extent> entry = it.next();
+            CourseProfessor cp = entry.getKey();
+            Extent extent = entry.getValue();
+            if (cp == keep || extent.bytes == 0) {
+                continue;
+            }
+
+            long start = RatingSystemMetrics.start();
+            List<Rating> ratings = cp.residentRatings();
+            int from = extent.partial ? 0 : extent.persisted;   // Ratings not on disk yet
+            int written;
+            try {
+                written = write(ratings.subList(from, ratings.size()), extent);
+            } catch (IOException e) {
+                System.out.println("Error: Could not spill ratings to " + path + ": " + e.getMessage());
+                return;     // Stay over budget rather than lose ratings
+            }
+            cp.spillRatings();
+            extent.partial = false;
+            it.remove();
+            spilled.put(cp, extent);
+            residentBytes -= extent.bytes;
+            extent.bytes = 0;
+            RatingSystemMetrics.SPILL.record(start, written);
+        }
+
+        compactIfWasteful();
+    }
+
+    /**
+     * Append the live ratings of a list as a new chunk of its extent
+     * @return number of ratings written
+     */
+    private int write(List<Rating> ratings, Extent extent) throws IOException {
+        int count = 0;
+        for (Rating rating : ratings) {
+            if (!rating.isRemoved()) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(count);
+        for (Rating rating : ratings) {
+            if (rating.isRemoved()) {
+                continue;
+            }
+            out.writeInt(rating.getSequence());
+            out.writeDouble(rating.getScore());
+            out.writeLong(rating.getTimestamp());
+            if (rating.getComment() == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] comment = rating.getComment().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(comment.length);
+                out.write(comment);
+            }
+        }
+        out.flush();
+
+        if (channel == null) {
+            open();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long offset = fileEnd;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        fileEnd += buffer.capacity();
+
+        if (extent.chunks == extent.offsets.length) {
+            extent.offsets = Arrays.copyOf(extent.offsets, extent.chunks * 2);
+            extent.lengths = Arrays.copyOf(extent.lengths, extent.chunks * 2);
+        }
+        extent.offsets[extent.chunks] = offset;
+        extent.lengths[extent.chunks] = buffer.capacity();
+        extent.chunks++;
+        extent.persisted += count;
+        return count;
+    }
+
+    /**
+     * Read one chunk (or several written back to back) into a list
+     * @return estimated heap bytes of the ratings read
+     */
+    private long read(long offset, int length, List<Rating> ratings) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Segment file is shorter than expected");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled ratings from " + path, e);
+        }
+        buffer.flip();
+
+        long bytes = 0;
+        while (buffer.hasRemaining()) {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int sequence = buffer.getInt();
+                double score = buffer.getDouble();
+                long timestamp = buffer.getLong();
+                int commentLength = buffer.getInt();
+                String comment = null;
+                if (commentLength >= 0) {
+                    comment = new String(buffer.array(), buffer.position(), commentLength, StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + commentLength);
+                    if (dictionary != null) {
+                        comment = dictionary.intern(comment);
+                    }
+                }
+                Rating rating = new Rating(score, comment, timestamp);
+                rating.setSequence(sequence);
+                ratings.add(rating);
+                bytes += estimate(rating);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Forget a list's chunks (they become dead space)
+     */
+    private void dropChunks(Extent extent) {
+        deadBytes += extent.chunkBytes();
+        extent.chunks = 0;
+        extent.persisted = 0;
+    }
+
+    /**
+     * Copy the live chunks into a new segment file once most of the file is dead
+     * The chunks of each list are copied back to back and become one chunk
+     */
+    private void compactIfWasteful() {
+        if (deadBytes < COMPACT_MIN_BYTES || deadBytes * 2 < fileEnd) {
+            return;
+        }
+
+        List<Extent> live = new ArrayList<>();
+        for (Map<CourseProfessor, Extent> extents : List.of(spilled, resident)) {
+            for (Extent extent : extents.values()) {
+                if (extent.chunks > 0) {
+                    live.add(extent);
+                }
+            }
+        }
+
+        Path oldPath = path;
+        FileChannel oldChannel = channel;
+        long[] offsets = new long[live.size()];
+        long end = 0;
+        try {
+            open();
+            for (int i = 0; i < offsets.length; i++) {
+                Extent extent = live.get(i);
+                offsets[i] = end;
+                for (int c = 0; c < extent.chunks; c++) {
+                    long copied = 0;
+                    while (copied < extent.lengths[c]) {
+                        copied += oldChannel.transferTo(extent.offsets[c] + copied, extent.lengths[c] - copied, channel);
+                    }
+                    end += extent.lengths[c];
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error: Could not compact spill file " + oldPath + ": " + e.getMessage());
+            discard(path, channel);
+            path = oldPath;         // Keep using the old file
+            channel = oldChannel;
+            return;
+        }
+
+        for (int i = 0; i < offsets.length; i++) {
+            Extent extent = live.get(i);
+            extent.lengths[0] = extent.chunkBytes();
+            extent.offsets[0] = offsets[i];
+            extent.chunks = 1;
+        }
+        fileEnd = end;
+        deadBytes = 0;
+        discard(oldPath, oldChannel);
+    }
+
+    private void open() throws IOException {
+        path = Files.createTempFile(directory, "ratings-", ".seg");
+        path.toFile().deleteOnExit();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void discard(Path file, FileChannel fileChannel) {
+        try {
+            if (fileChannel != null) {
+                fileChannel.close();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // Deleted on exit anyway
+        }
+    }
+
+    private static long estimate(Rating rating) {
+        return RATING_BYTES + (rating.getComment() == null ? 0 : rating.getComment().length());
+    }
+}
@@ -1,22 +1,109 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * RatingSystem class: Core system class
  * Responsible for data management, queries, sorting and other core functions
+ * Thread-safe: writes take the write lock, queries share the read lock
  */
 public class RatingSystem {
-    private CourseAVLTree courseTree;                   // AVL tree for storing courses (sorted by name, fast lookup)
+    private CourseIndex courseIndex;                     // Course index sorted by name (AVL tree by default, fast lookup)
+    private String indexType;                           // Course index implementation ("avl", "bplus" or "skiplist")
     private Map<String, Course> courseMap;              // Course map (fast lookup by ID)
     private Map<String, Professor> professorMap;        // Professor map (fast lookup)
+    private CommentIndex commentIndex;                  // Inverted index over rating comments
+    private RatingRollup rollup;                        // Rating totals per department and per level
+    private final ChangeFeed changeFeed;                // Events of all changes, for subscribers
+    private final RatingSpillStore spillStore;          // Spills cold rating lists to disk (null: no memory budget)
+    private RatingDeduplicator deduplicator;            // Drops ratings already added (null: duplicates are kept)
+    private final StringDictionary dictionary;          // Shares names and comments with other systems (null: not shared)
+    private boolean frozen;                             // True in read-only frozen mode (courseIndex is a FrozenCourseIndex)
+    private volatile boolean retired;                   // True once a reload replaced this system: writes are refused
+    private ReadWriteLock lock;                         // Guards all of the structures above
+    private volatile LoadProgress loadProgress;         // Progress of loadFromFile (null when not loading)
+    private volatile boolean timestamped;               // True once ratings have times: saved with the timestamp column
+
+    private static final int PROGRESS_INTERVAL_ROWS = 1024;     // Rows between load progress updates
+    private static final int RECENT_DAYS = 30;                  // Period of the recent average in the details views
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final int COURSE_BYTES = 160;                // Heap estimates for estimateMemoryBytes: Course, map entries, index node
+    private static final int PROFESSOR_BYTES = 96;              // Professor and map entry
+    private static final int PAIR_BYTES = 176;                  // CourseProfessor, rating window, list slots
+    private static final int RATING_BYTES = 48;                 // Rating and list slot
+
+    /**
+     * AddResult enum: What happened to a rating passed to addRatingSilently
+     */
+    public enum AddResult {
+        /** The rating was added */
+        ADDED,
+        /** An identical rating exists, so this one was dropped (deduplication is on, see RatingDeduplicator) */
+        DUPLICATE,
+        /** The input is invalid (see validateRating) */
+        INVALID,
+        /** The data is frozen (read-only) */
+        FROZEN,
+        /** The data was just replaced by a reload (see retire); add the rating again to the new data */
+        RETIRED
+    }
+
+    /** CSV header of data files without rating times (the original format) */
+    public static final String CSV_HEADER = "courseId,courseName,professorName,rating,comment";
+    /** CSV header of data files with rating times; the timestamp field may be empty (unknown) */
+    public static final String CSV_HEADER_TIMESTAMP = "courseId,courseName,professorName,rating,timestamp,comment";
 
     /**
      * Constructor
+     * Uses the course index configured by the "rating.index" system property (default "avl")
      */
     public RatingSystem() {
-        this.courseTree = new CourseAVLTree();
+        this(System.getProperty("rating.index", "avl"));
+    }
+
+    /**
+     * Constructor
+     * Memory budget for rating lists from the "rating.memoryBudgetMB" system property (default unlimited)
+     * @param indexType course index implementation: "avl", "bplus" or "skiplist"
+     */
+    public RatingSystem(String indexType) {
+        this(indexType, RatingSpillStore.DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Constructor
+     * @param indexType course index implementation: "avl", "bplus" or "skiplist"
+     * @param memoryBudgetBytes most estimated bytes of rating lists kept in memory; least recently
+     *                          used lists are spilled to disk beyond it (0 = unlimited)
+     */
+    public RatingSystem(String indexType, long memoryBudgetBytes) {
+        this(indexType, memoryBudgetBytes, null);
+    }
+
+    /**
+     * Constructor
+     * @param indexType course index implementation: "avl", "bplus" or "skiplist"
+     * @param memoryBudgetBytes most estimated bytes of rating lists kept in memory (0 = unlimited)
+     * @param dictionary dictionary shared with other RatingSystems; course names, professor
+     *                   names and comments are interned in it (null: no sharing)
+     */
+    public RatingSystem(String indexType, long memoryBudgetBytes, StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.courseIndex = CourseIndex.create(indexType);
+        this.indexType = indexType;
         this.courseMap = new HashMap<>();
         this.professorMap = new HashMap<>();
+        this.commentIndex = new CommentIndex();
+        this.rollup = new RatingRollup();
+        this.changeFeed = new ChangeFeed();
+        this.spillStore = memoryBudgetBytes > 0 ? new RatingSpillStore(memoryBudgetBytes, dictionary) : null;
+        this.deduplicator = RatingDeduplicator.ENABLED ? new RatingDeduplicator() : null;
+        this.lock = new ReentrantReadWriteLock();
     }
 
     /**
@@ -29,8 +116,9 @@ public class RatingSystem {
             return professorMap.get(professorName);
         }
 
-        Professor professor = new Professor(professorName);
+        Professor professor = new Professor(intern(professorName));
         professorMap.put(professorName, professor);
+        changeFeed.professorCreated(professor);
         return professor;
     }
 
@@ -45,12 +133,66 @@ public class RatingSystem {
             return courseMap.get(courseId);
         }
 
-        Course course = new Course(courseId, courseName);
-        courseTree.insert(course);
+        Course course = new Course(intern(courseId), intern(courseName));
+        courseIndex.insert(course);
         courseMap.put(courseId, course);
+        rollup.addCourse(course);
+        changeFeed.courseCreated(course);
         return course;
     }
 
+    /**
+     * Record a loaded rating: give it its sequence number, add it to the department
+     * and level totals and publish it to the change feed
+     * For loaders that append ratings to a CourseProfessor themselves (the rating is
+     * not in its list yet). The caller must hold the write lock
+     */
+    void recordLoadedRating(CourseProfessor cp, Rating rating) {
+        cp.assignSequence(rating);      // Numbered in file order, before the appenders and the comment indexer see it
+        rollup.addRating(cp, rating.getScore());
+        changeFeed.ratingAdded(cp, rating);
+    }
+
+    /**
+     * Get or create the course, the professor and the relationship between them
+     * The caller must hold the write lock
+     * @return CourseProfessor object
+     */
+    CourseProfessor resolveCourseProfessor(String courseId, String courseName, String professorName) {
+        // Get or create course and professor
+        Course course = getOrCreateCourse(courseId, courseName);
+        Professor professor = getOrCreateProfessor(professorName);
+
+        // Get or create CourseProfessor relationship
+        CourseProfessor cp = course.getOrCreateCourseProfessor(professor);
+        if (spillStore != null) {
+            cp.attachSpillStore(spillStore);
+        }
+        return cp;
+    }
+
+    /**
+     * Validate rating input
+     * @return error message, or null if the input is valid
+     */
+    public static String validateRating(String courseId, String courseName, String professorName, double score) {
+        if (courseId == null || courseId.trim().isEmpty()) {
+            return "Error: Course ID cannot be empty!";
+        }
+        if (courseName == null || courseName.trim().isEmpty()) {
+            return "Error: Course name cannot be empty!";
+        }
+        if (professorName == null || professorName.trim().isEmpty()) {
+            return "Error: Professor name cannot be empty!";
+        }
+
+        // Validate rating range (written so that NaN fails too)
+        if (!(score >= 0 && score <= 5)) {
+            return "Error: Rating must be between 0-5! Current rating: " + score;
+        }
+        return null;
+    }
+
     /**
      * Add rating
      * @param courseId course ID
@@ -62,68 +204,332 @@ public class RatingSystem {
     public void addRating(String courseId, String courseName, String professorName, 
                          double score, String comment) {
         // Validate input
-        if (courseId == null || courseId.trim().isEmpty()) {
-            System.out.println("Error: Course ID cannot be empty!");
+        String error = validateRating(courseId, courseName, professorName, score);
+        if (error != null) {
+            System.out.println(error);
             return;
         }
-        if (courseName == null || courseName.trim().isEmpty()) {
-            System.out.println("Error: Course name cannot be empty!");
+
+        AddResult result = insertRating(courseId, courseName, professorName, score, comment, System.currentTimeMillis());
+        if (result == AddResult.RETIRED) {
+            System.out.println("Error: Data was just reloaded, please add the rating again!");
             return;
         }
-        if (professorName == null || professorName.trim().isEmpty()) {
-            System.out.println("Error: Professor name cannot be empty!");
+        if (result == AddResult.FROZEN) {
+            System.out.println("Error: Data is frozen (read-only), thaw it before adding ratings!");
             return;
         }
-        
-        // Validate rating range
-        if (score < 0 || score > 5) {
-            System.out.println("Error: Rating must be between 0-5! Current rating: " + score);
-            return;
+        System.out.println(result == AddResult.DUPLICATE ? "Rating already exists, not added again."
+                                                         : "Rating added successfully!");
+    }
+
+    /**
+     * Add rating without printing anything (used by bulk loading and background threads)
+     * The time of the rating is unknown (rows from files without a timestamp column)
+     * @return ADDED, DUPLICATE if dropped as a duplicate (see RatingDeduplicator),
+     *         INVALID, FROZEN or RETIRED if it was not added
+     */
+    public AddResult addRatingSilently(String courseId, String courseName, String professorName,
+                                       double score, String comment) {
+        return addRatingSilently(courseId, courseName, professorName, score, comment, 0);
+    }
+
+    /**
+     * Add rating without printing anything
+     * @param timestamp time the rating was given (epoch milliseconds, 0 = unknown)
+     * @return ADDED, DUPLICATE if dropped as a duplicate (see RatingDeduplicator),
+     *         INVALID, FROZEN or RETIRED if it was not added
+     */
+    public AddResult addRatingSilently(String courseId, String courseName, String professorName,
+                                       double score, String comment, long timestamp) {
+        if (validateRating(courseId, courseName, professorName, score) != null) {
+            return AddResult.INVALID;
         }
-        
-        // Get or create course and professor
-        Course course = getOrCreateCourse(courseId, courseName);
-        Professor professor = getOrCreateProfessor(professorName);
 
-        // Get or create CourseProfessor relationship
-        CourseProfessor cp = course.getOrCreateCourseProfessor(professor);
+        return insertRating(courseId, courseName, professorName, score, comment, timestamp);
+    }
+
+    /**
+     * Insert an already validated rating
+     * @return ADDED, DUPLICATE (an identical rating exists and deduplication is on), FROZEN or RETIRED
+     */
+    private AddResult insertRating(String courseId, String courseName, String professorName,
+                                   double score, String comment, long timestamp) {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            if (frozen) {
+                return AddResult.FROZEN;
+            }
+            if (retired) {
+                return AddResult.RETIRED;
+            }
+
+            CourseProfessor cp = resolveCourseProfessor(courseId, courseName, professorName);
+            if (deduplicator != null && !deduplicator.admit(cp,
+                    RatingDeduplicator.fingerprint(courseId, professorName, score, timestamp, comment),
+                    score, timestamp, comment)) {
+                RatingSystemMetrics.ADD_RATING.record(start, 0);
+                return AddResult.DUPLICATE;
+            }
+
+            // Add rating
+            Rating rating = new Rating(score, intern(comment), timestamp);
+            cp.addRating(rating);
+            rollup.addRating(cp, score);
+            if (timestamp != 0) {
+                timestamped = true;
+            }
+            commentIndex.add(cp, rating);
+            changeFeed.ratingAdded(cp, rating);
+            RatingSystemMetrics.ADD_RATING.record(start, 1);
+            return AddResult.ADDED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete one rating
+     * O(1) for the rating itself (see CourseProfessor.removeRating); if it was the
+     * last rating of the professor in this course, the relationship is unlinked
+     * from both sides, and a professor or course left without relationships is
+     * removed as well
+     * @param courseId course ID
+     * @param professorName professor name
+     * @param rating rating to delete (from getRatings() of that course and professor)
+     * @return false if the rating was not found or the system is frozen
+     */
+    public boolean removeRating(String courseId, String professorName, Rating rating) {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            if (frozen || retired) {
+                return false;
+            }
+
+            Course course = courseMap.get(courseId);
+            if (course == null) {
+                return false;
+            }
+            CourseProfessor cp = null;
+            for (CourseProfessor candidate : course.getProfessorList()) {
+                if (candidate.getProfessor().getName().equals(professorName)) {
+                    cp = candidate;
+                    break;
+                }
+            }
+            if (cp == null || !cp.removeRating(rating)) {
+                return false;
+            }
+            rollup.removeRating(cp, rating.getScore());
+            changeFeed.ratingRemoved(cp, rating);
+
+            if (cp.getRatingCount() == 0) {
+                unlink(cp);
+                if (course.getProfessorList().isEmpty()) {
+                    removeCourseEntry(course);
+                }
+            }
+            RatingSystemMetrics.REMOVE_RATING.record(start, 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete a course with all its ratings
+     * O(log n) in the number of courses plus the size of the course itself;
+     * professors left without courses are removed as well
+     * @param courseId course ID
+     * @return false if the course was not found or the system is frozen
+     */
+    public boolean removeCourse(String courseId) {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            Course course = courseMap.get(courseId);
+            if (frozen || retired || course == null) {
+                return false;
+            }
 
-        // Add rating
-        Rating rating = new Rating(score, comment);
-        cp.addRating(rating);
+            List<CourseProfessor> links = new ArrayList<>(course.getProfessorList());
+            for (CourseProfessor cp : links) {
+                unlink(cp);
+            }
+            removeCourseEntry(course);
+            RatingSystemMetrics.REMOVE_COURSE.record(start, links.size());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-        System.out.println("Rating added successfully!");
+    /**
+     * Delete a professor with all their ratings
+     * Courses left without professors are removed as well
+     * @param name professor name
+     * @return false if the professor was not found or the system is frozen
+     */
+    public boolean removeProfessor(String name) {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            Professor professor = professorMap.get(name);
+            if (frozen || retired || professor == null) {
+                return false;
+            }
+
+            List<CourseProfessor> links = new ArrayList<>(professor.getTeaching());
+            for (CourseProfessor cp : links) {
+                unlink(cp);
+                if (cp.getCourse().getProfessorList().isEmpty()) {
+                    removeCourseEntry(cp.getCourse());
+                }
+            }
+            RatingSystemMetrics.REMOVE_PROFESSOR.record(start, links.size());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unlink a course-professor relationship from both sides
+     * Removes the professor if this was their last course. Caller holds the write lock
+     */
+    private void unlink(CourseProfessor cp) {
+        cp.markRemoved();       // Comment search skips its ratings from now on
+        rollup.removeAll(cp);
+        if (spillStore != null) {
+            spillStore.forget(cp);
+        }
+        cp.getCourse().removeCourseProfessor(cp);
+
+        Professor professor = cp.getProfessor();
+        professor.removeTeaching(cp);
+        if (professor.getTeaching().isEmpty()) {
+            professorMap.remove(professor.getName());
+            changeFeed.professorRemoved(professor);
+        }
+    }
+
+    /**
+     * Remove a course from the ID map and the name index. Caller holds the write lock
+     */
+    private void removeCourseEntry(Course course) {
+        courseMap.remove(course.getCourseId());
+        courseIndex.delete(course);
+        rollup.removeCourse(course);
+        changeFeed.courseRemoved(course);
+    }
+
+    /**
+     * Check if a CSV header line has the timestamp column
+     * @param header first line of a data file
+     * @return true for CSV_HEADER_TIMESTAMP, false for the original CSV_HEADER
+     */
+    public static boolean hasTimestampColumn(String header) {
+        if (header == null) {
+            return false;
+        }
+        String[] columns = header.split(",", 6);
+        return columns.length == 6 && columns[4].trim().equalsIgnoreCase("timestamp");
     }
 
     /**
      * Load data from CSV file
-     * Format: courseId,courseName,professorName,rating,comment
+     * Format: courseId,courseName,professorName,rating,[timestamp,]comment
+     * (the timestamp column is used if the header has it, see hasTimestampColumn)
+     * Rows are added silently, a summary is printed at the end.
+     * Every row takes the write lock on its own, so queries keep being answered
+     * (from the rows loaded so far) while a large file loads; see getLoadProgress()
      * @param filename file name
      */
     public void loadFromFile(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+        loadFromFile(filename, new LoadProgress(new File(filename).length()));
+    }
+
+    /**
+     * Start loading a CSV file on another thread and return immediately
+     * Queries can be answered right away; until the load finishes isLoading()
+     * is true and results only cover the rows loaded so far
+     * @param filename file name
+     * @param executor thread to load on
+     * @return progress of the load
+     */
+    public LoadProgress loadInBackground(String filename, Executor executor) {
+        LoadProgress progress = new LoadProgress(new File(filename).length());
+        loadProgress = progress;        // Visible before the load starts, so no query misses it
+        executor.execute(() -> loadFromFile(filename, progress));
+        return progress;
+    }
+
+    private void loadFromFile(String filename, LoadProgress progress) {
+        long start = RatingSystemMetrics.start();
+        loadProgress = progress;
+
+        AtomicLong bytes = new AtomicLong();     // Bytes of the file read (compressed bytes if compressed)
+        try (BufferedReader br = CompressedFiles.newReader(filename, bytes)) {
             String line;
             boolean firstLine = true;
+            int columns = 5;
+            int loaded = 0;
+            int skipped = 0;
+            int duplicates = 0;
+            long rows = 0;
 
             while ((line = br.readLine()) != null) {
+                if (++rows % PROGRESS_INTERVAL_ROWS == 0) {
+                    progress.update(rows, bytes.get());
+                }
+
                 // Skip header
                 if (firstLine) {
                     firstLine = false;
+                    if (hasTimestampColumn(line)) {
+                        columns = 6;
+                        timestamped = true;
+                    }
                     continue;
                 }
 
-                String[] parts = line.split(",", 5);  // Limit split to 5 parts to prevent commas in comments from affecting parsing
-                if (parts.length >= 5) {
+                String[] parts = line.split(",", columns);  // Limit split so commas in comments do not affect parsing
+                if (parts.length >= columns) {
                     String courseId = parts[0].trim();
                     String courseName = parts[1].trim();
                     String professorName = parts[2].trim();
                     double score = Double.parseDouble(parts[3].trim());
-                    String comment = parts[4].trim();
+                    long timestamp = columns == 6 ? Rating.parseTimestamp(parts[4].trim()) : 0;
+                    String comment = parts[columns - 1].trim();
 
-                    addRating(courseId, courseName, professorName, score, comment);
+                    AddResult result = addRatingSilently(courseId, courseName, professorName, score, comment,
+                                                         timestamp);
+                    if (result == AddResult.ADDED) {
+                        loaded++;
+                    } else if (result == AddResult.DUPLICATE) {
+                        duplicates++;
+                    } else {
+                        skipped++;
+                    }
                 }
             }
 
+            lock.writeLock().lock();
+            try {
+                commentIndex.trim();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (skipped > 0) {
+                System.out.println("Skipped " + skipped + " invalid rating(s)");
+            }
+            if (duplicates > 0) {
+                System.out.println("Dropped " + duplicates + " duplicate rating(s)");
+            }
+            System.out.println("Loaded " + loaded + " rating(s)");
+            RatingSystemMetrics.LOAD_FROM_FILE.record(start, loaded);
             System.out.println("Data loaded successfully from file: " + filename);
         } catch (FileNotFoundException e) {
             System.out.println("File not found: " + filename);
@@ -131,47 +537,311 @@ public class RatingSystem {
             System.out.println("Error reading file: " + e.getMessage());
         } catch (NumberFormatException e) {
             System.out.println("Rating format error: " + e.getMessage());
+        } finally {
+            loadProgress = null;
+            progress.finish();
+        }
+    }
+
+    /**
+     * Load data from CSV file with the multi-threaded IngestPipeline
+     * Uses half of the cores for parsing and a quarter for appending ratings
+     * @param filename file name
+     * @return true if the whole file was loaded
+     */
+    public boolean loadFromFileParallel(String filename) {
+        return loadFromFileParallel(filename, Math.max(1, CORES / 2), Math.max(1, CORES / 4));
+    }
+
+    /**
+     * Load data from CSV file with the multi-threaded IngestPipeline
+     * Much faster than loadFromFile on several cores, but holds the write lock
+     * until the whole file is loaded, so it is meant for instances that are not
+     * serving queries yet (reloads, batch mode). Rows with a malformed rating are
+     * skipped instead of ending the load
+     * @param filename file name
+     * @param parsers number of parser threads
+     * @param appenders number of threads adding ratings (courses are split between them)
+     * @return true if the whole file was loaded, false if it could not be read (the data may be partial)
+     */
+    public boolean loadFromFileParallel(String filename, int parsers, int appenders) {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            if (frozen) {
+                System.out.println("Error: Data is frozen (read-only), thaw it before loading!");
+                return false;
+            }
+
+            IngestPipeline pipeline = new IngestPipeline(this, commentIndex, deduplicator, parsers, appenders);
+            pipeline.run(filename);
+            commentIndex.trim();
+            if (pipeline.isTimestamped()) {
+                timestamped = true;
+            }
+
+            if (pipeline.getSkipped() > 0) {
+                System.out.println("Skipped " + pipeline.getSkipped() + " invalid rating(s)");
+            }
+            if (pipeline.getDuplicates() > 0) {
+                System.out.println("Dropped " + pipeline.getDuplicates() + " duplicate rating(s)");
+            }
+            System.out.println("Loaded " + pipeline.getLoaded() + " rating(s)");
+            RatingSystemMetrics.LOAD_FROM_FILE.record(start, pipeline.getLoaded());
+            System.out.println("Data loaded successfully from file: " + filename);
+            return true;
+        } catch (FileNotFoundException e) {
+            System.out.println("File not found: " + filename);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.writeLock().unlock();
         }
+        return false;
+    }
+
+    /**
+     * Get progress of a load in progress
+     * @return progress, or null when no file is being loaded
+     */
+    public LoadProgress getLoadProgress() {
+        return loadProgress;
+    }
+
+    /**
+     * Check if a file is being loaded (query results may be partial)
+     */
+    public boolean isLoading() {
+        return loadProgress != null;
+    }
+
+    /**
+     * Search course by ID, waiting for it if the data is still loading
+     * Returns as soon as the course has been loaded (it may still get more ratings),
+     * so only the rows before it have to be loaded, not the whole file
+     * @param courseId course ID
+     * @param timeoutMillis maximum time to wait
+     * @return found course, null if not found
+     */
+    public Course awaitCourseById(String courseId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Course course;
+        LoadProgress progress;
+
+        while ((course = searchCourseById(courseId)) == null && (progress = loadProgress) != null) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (left <= 0 || !progress.awaitUpdate(left)) {
+                break;
+            }
+        }
+        return course != null ? course : searchCourseById(courseId);
+    }
+
+    /**
+     * Search professor by name, waiting for them if the data is still loading
+     * @param name professor name
+     * @param timeoutMillis maximum time to wait
+     * @return Professor object, null if not found
+     */
+    public Professor awaitProfessorByName(String name, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Professor professor;
+        LoadProgress progress;
+
+        while ((professor = searchProfessorByName(name)) == null && (progress = loadProgress) != null) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (left <= 0 || !progress.awaitUpdate(left)) {
+                break;
+            }
+        }
+        return professor != null ? professor : searchProfessorByName(name);
+    }
+
+    /**
+     * Check if ratings have times (a timestamped file was loaded or ratings were added)
+     * If so, saveToFile writes the timestamp column
+     */
+    public boolean hasTimestamps() {
+        return timestamped;
     }
 
     /**
      * Save data to CSV file
+     * Uses the original format unless ratings have times (see hasTimestamps)
      * @param filename file name
+     * @return false if the file could not be written (the data in memory is unchanged)
      */
-    public void saveToFile(String filename) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
+    public boolean saveToFile(String filename) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        PrintWriter pw = null;
+        try {
+            pw = new PrintWriter(CompressedFiles.newWriter(filename));
             // Write header
-            pw.println("courseId,courseName,professorName,rating,comment");
+            boolean withTimestamps = timestamped;
+            pw.println(withTimestamps ? CSV_HEADER_TIMESTAMP : CSV_HEADER);
+
+            // All courses in name order
+            int saved = writeRatings(pw, withTimestamps);
 
-            // Traverse all courses (using AVL tree inorder traversal, sorted by name)
-            List<Course> courses = courseTree.getAllCoursesSorted();
-            for (Course course : courses) {
+            // PrintWriter keeps write errors to itself: closing flushes, and checkError reports them
+            pw.close();
+            if (pw.checkError()) {
+                System.out.println("Error saving file: " + filename + " could not be written completely");
+                return false;
+            }
+            RatingSystemMetrics.SAVE_TO_FILE.record(start, saved);
+            System.out.println("Data saved successfully to file: " + filename);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+            return false;
+        } finally {
+            if (pw != null) {
+                pw.close();
+            }
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the rows of every rating, courses in name order (see saveToFile)
+     * Takes the read lock, so ShardedRatingSystem can write one shard at a time
+     * @return number of ratings written
+     */
+    int writeRatings(PrintWriter pw, boolean withTimestamps) {
+        lock.readLock().lock();
+        try {
+            int written = 0;
+            for (Course course : courseIndex.getAllCoursesSorted()) {
                 for (CourseProfessor cp : course.getProfessorList()) {
                     for (Rating rating : cp.getRatings()) {
-                        pw.printf("%s,%s,%s,%.1f,%s%n",
-                                course.getCourseId(),
-                                course.getCourseName(),
-                                cp.getProfessor().getName(),
-                                rating.getScore(),
-                                rating.getComment());
+                        if (withTimestamps) {
+                            pw.printf("%s,%s,%s,%.1f,%s,%s%n",
+                                    course.getCourseId(),
+                                    course.getCourseName(),
+                                    cp.getProfessor().getName(),
+                                    rating.getScore(),
+                                    Rating.formatTimestamp(rating.getTimestamp()),
+                                    rating.getComment());
+                        } else {
+                            pw.printf("%s,%s,%s,%.1f,%s%n",
+                                    course.getCourseId(),
+                                    course.getCourseName(),
+                                    cp.getProfessor().getName(),
+                                    rating.getScore(),
+                                    rating.getComment());
+                        }
+                        written++;
                     }
                 }
             }
+            return written;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            System.out.println("Data saved successfully to file: " + filename);
+    /**
+     * Order of the course lists this system returns (by name; by the collator
+     * with -Drating.collation), for merging the lists of several systems
+     */
+    Comparator<Course> getCourseOrder() {
+        lock.readLock().lock();
+        try {
+            return courseIndex.nameOrder();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Export a report of every course or every professor to a file (see ReportExporter)
+     * Courses are in name order, professors in name order; rendering runs in parallel
+     * on the common ForkJoinPool while this method holds the read lock
+     * @param filename file name
+     * @return number of courses or professors written, -1 if the file could not be written
+     */
+    public int exportReport(String filename, ReportExporter.Report report, ReportExporter.Format format) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try (Writer out = CompressedFiles.newWriter(filename)) {
+            ReportExporter exporter = new ReportExporter();
+            int count;
+            if (report == ReportExporter.Report.COURSES) {
+                List<Course> courses = courseIndex.getAllCoursesSorted();
+                exporter.exportCourses(courses, format, out);
+                count = courses.size();
+            } else {
+                List<Professor> professors = new ArrayList<>(professorMap.values());
+                professors.sort(Comparator.comparing(Professor::getName));
+                exporter.exportProfessors(professors, format, out);
+                count = professors.size();
+            }
+            RatingSystemMetrics.EXPORT_REPORT.record(start, count);
+            return count;
         } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage());
+            System.out.println("Error exporting report: " + e.getMessage());
+            return -1;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     /**
-     * AVL tree search: Search courses by name keyword
-     * Utilizes AVL tree ordering for optimized lookup
+     * Course index search: Search courses by name keyword
+     * Checks every course name (a keyword can appear anywhere in a name)
      * @param keyword keyword
      * @return list of matching courses
      */
     public List<Course> searchCoursesByName(String keyword) {
-        return courseTree.searchByName(keyword);
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<Course> result = courseIndex.searchByName(keyword);
+            RatingSystemMetrics.SEARCH_BY_NAME.record(start, result.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inverted index search: Search ratings by words in their comments
+     * @param query words separated by spaces
+     * @param matchAll true: all words must appear; false: any word may appear
+     * @param minScore only return ratings with at least this score
+     * @return matching ratings, best matches first
+     */
+    public List<CommentMatch> searchComments(String query, boolean matchAll, double minScore) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<CommentMatch> result = commentIndex.search(CommentIndex.tokenize(query), matchAll, minScore);
+            RatingSystemMetrics.SEARCH_COMMENTS.record(start, result.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Course index search: Search course by exact name (case-insensitive, O(log n))
+     * @param courseName full course name
+     * @return found course, null if not found
+     */
+    public Course searchCourseByExactName(String courseName) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            Course result = courseIndex.searchByExactName(courseName);
+            RatingSystemMetrics.SEARCH_BY_EXACT_NAME.record(start, result == null ? 0 : 1);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -180,7 +850,15 @@ public class RatingSystem {
      * @return found course, null if not found
      */
     public Course searchCourseById(String courseId) {
-        return courseMap.get(courseId);
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            Course result = courseMap.get(courseId);
+            RatingSystemMetrics.SEARCH_BY_ID.record(start, result == null ? 0 : 1);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -189,7 +867,15 @@ public class RatingSystem {
      * @return Professor object, null if not found
      */
     public Professor searchProfessorByName(String name) {
-        return professorMap.get(name);
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            Professor result = professorMap.get(name);
+            RatingSystemMetrics.SEARCH_PROFESSOR.record(start, result == null ? 0 : 1);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -199,17 +885,25 @@ public class RatingSystem {
      * @return sorted list of CourseProfessor
      */
     public List<CourseProfessor> getProfessorRankingInCourse(String courseId) {
-        Course course = searchCourseById(courseId);
-        if (course == null) {
-            return new ArrayList<>();
-        }
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            Course course = courseMap.get(courseId);
+            if (course == null) {
+                RatingSystemMetrics.COURSE_RANKING.record(start, 0);
+                return new ArrayList<>();
+            }
 
-        List<CourseProfessor> professorList = new ArrayList<>(course.getProfessorList());
+            List<CourseProfessor> professorList = new ArrayList<>(course.getProfessorList());
 
-        // Insertion sort: by average rating from high to low
-        insertionSortByRating(professorList);
+            // Insertion sort: by average rating from high to low
+            insertionSortByRating(professorList);
 
-        return professorList;
+            RatingSystemMetrics.COURSE_RANKING.record(start, professorList.size());
+            return professorList;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -238,33 +932,154 @@ public class RatingSystem {
      * @return sorted list of professors
      */
     public List<Professor> getOverallProfessorRanking() {
-        List<Professor> professorList = new ArrayList<>(professorMap.values());
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<Professor> professorList = new ArrayList<>(professorMap.values());
+
+            // Insertion sort: by overall average rating from high to low
+            insertionSortProfessors(professorList);
+
+            RatingSystemMetrics.OVERALL_RANKING.record(start, professorList.size());
+            return professorList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get trending professors: the biggest rise of the average rating in the last days
+     * Compares each professor's average over the last recentDays days with their
+     * average over the earlier days of the rating window (RatingWindow.DAYS days in
+     * total). Reads the daily buckets only, O(professors * days), no ratings are scanned
+     * @param recentDays length of the recent period (less than RatingWindow.DAYS)
+     * @param minRatings ratings a professor needs in each period to be included
+     * @return trends, biggest improvement first
+     */
+    public List<ProfessorTrend> getTrendingProfessors(int recentDays, int minRatings) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<ProfessorTrend> trends = computeTrends(professorMap.values(), recentDays, minRatings);
+            RatingSystemMetrics.TRENDING.record(start, trends.size());
+            return trends;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        // Insertion sort: by overall average rating from high to low
-        insertionSortProfessors(professorList);
-        
-        return professorList;
+    /**
+     * Compute trends of professors from their rating windows (see getTrendingProfessors)
+     */
+    static List<ProfessorTrend> computeTrends(Collection<Professor> professors, int recentDays, int minRatings) {
+        long today = RatingWindow.today();
+        long recentStart = today - recentDays + 1;
+        long windowStart = today - RatingWindow.DAYS + 1;
+
+        List<ProfessorTrend> trends = new ArrayList<>();
+        for (Professor professor : professors) {
+            RatingWindow window = professor.getRatingWindow();
+            int recentCount = window.getCount(recentStart, today);
+            int earlierCount = window.getCount(windowStart, recentStart - 1);
+            if (recentCount >= minRatings && earlierCount >= minRatings) {
+                trends.add(new ProfessorTrend(professor,
+                        window.getSum(recentStart, today) / recentCount, recentCount,
+                        window.getSum(windowStart, recentStart - 1) / earlierCount, earlierCount));
+            }
+        }
+
+        trends.sort((a, b) -> Double.compare(b.getChange(), a.getChange()));
+        return trends;
+    }
+
+    /**
+     * Get rating totals per group of courses (e.g., department averages)
+     * Read from the pre-aggregated rollup, O(groups + their professors); no course is visited
+     * @param key how courses are grouped (department or level)
+     * @return groups sorted by name; each has its average, counts and top professors
+     */
+    public List<RollupGroup> getGroupRollups(RatingRollup.Key key) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<RollupGroup> groups = rollup.getGroups(key);
+            RatingSystemMetrics.GROUP_ROLLUPS.record(start, groups.size());
+            return groups;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run a combined query over courses, professors or course-professor pairs
+     * QueryPlanner picks the index with the fewest candidates and stops early when it can
+     * @param query filters, sort key and limit
+     * @return matching courses, professors or pairs
+     */
+    public <T> List<T> query(RatingQuery<T> query) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<T> result = new QueryPlanner(courseMap, professorMap, courseIndex, rollup).run(query);
+            RatingSystemMetrics.QUERY.record(start, result.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Describe how query() would run a query (access path, estimated candidates, ordering)
+     */
+    public String explain(RatingQuery<?> query) {
+        lock.readLock().lock();
+        try {
+            return new QueryPlanner(courseMap, professorMap, courseIndex, rollup).explain(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add copies of the rollup groups of a key to a map (ShardedRatingSystem merges shards with it)
+     */
+    void mergeRollupInto(RatingRollup.Key key, Map<String, RollupGroup> merged) {
+        lock.readLock().lock();
+        try {
+            rollup.mergeInto(key, merged);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
      * Insertion sort algorithm implementation (Professor version)
      * Sort professors by overall average rating from high to low
+     * Each professor's average is computed once up front (it walks all courses
+     * the professor teaches), so comparisons only read an array
      * @param list list to sort
      */
     private void insertionSortProfessors(List<Professor> list) {
+        double[] ratings = new double[list.size()];
+        for (int i = 0; i < ratings.length; i++) {
+            ratings[i] = list.get(i).getOverallAverageRating();
+        }
+
         for (int i = 1; i < list.size(); i++) {
 
             Professor key = list.get(i);
-            double keyRating = key.getOverallAverageRating();
+            double keyRating = ratings[i];
             int j = i - 1;
 
             // Higher ratings first, move lower ratings to the right
-            while (j >= 0 && list.get(j).getOverallAverageRating() < keyRating) {
+            while (j >= 0 && ratings[j] < keyRating) {
                 list.set(j + 1, list.get(j));
+                ratings[j + 1] = ratings[j];
                 j--;
             }
 
             list.set(j + 1, key);
+            ratings[j + 1] = keyRating;
         }
     }
 
@@ -273,27 +1088,47 @@ public class RatingSystem {
      * @param course course object
      */
     public void displayCourseDetails(Course course) {
-        System.out.println("\n======== Course Details ========");
-        System.out.println("Course ID: " + course.getCourseId());
-        System.out.println("Course Name: " + course.getCourseName());
-        System.out.println("Overall Average Rating: " + String.format("%.2f", course.getOverallAverageRating()));
-        System.out.println("\nProfessors and Ratings:");
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            System.out.println("\n======== Course Details ========");
+            System.out.println("Course ID: " + course.getCourseId());
+            System.out.println("Course Name: " + course.getCourseName());
+            System.out.println("Overall Average Rating: " + String.format("%.2f", course.getOverallAverageRating()));
+            printRecentAverage(course.getRatingWindow());
+            System.out.println("\nProfessors and Ratings:");
 
-        List<CourseProfessor> rankedProfessors = getProfessorRankingInCourse(course.getCourseId());
+            List<CourseProfessor> rankedProfessors = getProfessorRankingInCourse(course.getCourseId());
 
-        if (rankedProfessors.isEmpty()) {
-            System.out.println("No rating data available");
-            return;
-        }
+            if (rankedProfessors.isEmpty()) {
+                System.out.println("No rating data available");
+                return;
+            }
 
-        int rank = 1;
-        for (CourseProfessor cp : rankedProfessors) {
-            System.out.println(rank + ". " + cp);
-            System.out.println("   Comments:");
-            for (Rating rating : cp.getRatings()) {
-                System.out.println("   - " + rating);
+            int rank = 1;
+            for (CourseProfessor cp : rankedProfessors) {
+                System.out.println(rank + ". " + cp);
+                System.out.println("   Comments:");
+                for (Rating rating : cp.getRatings()) {
+                    System.out.println("   - " + rating);
+                }
+                rank++;
             }
-            rank++;
+        } finally {
+            RatingSystemMetrics.DISPLAY_COURSE.record(start, 0);
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Print the average of the last RECENT_DAYS days, if there were ratings in them
+     */
+    private void printRecentAverage(RatingWindow window) {
+        long today = RatingWindow.today();
+        int count = window.getCount(today - RECENT_DAYS + 1, today);
+        if (count > 0) {
+            System.out.printf("Last %d Days: %.2f (%d ratings)%n",
+                              RECENT_DAYS, window.getSum(today - RECENT_DAYS + 1, today) / count, count);
         }
     }
 
@@ -302,28 +1137,24 @@ public class RatingSystem {
      * @param professor professor object
      */
     public void displayProfessorDetails(Professor professor) {
-        System.out.println("\n======== Professor Details ========");
-        System.out.println("Professor Name: " + professor.getName());
-        System.out.println("Overall Average Rating: " + String.format("%.2f", professor.getOverallAverageRating()));
-        System.out.println("\nCourses Teaching:");
-
-        if (professor.getTeaching().isEmpty()) {
-            System.out.println("No course data available");
-            return;
-        }
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            System.out.println("\n======== Professor Details ========");
+            System.out.println("Professor Name: " + professor.getName());
+            System.out.println("Overall Average Rating: " + String.format("%.2f", professor.getOverallAverageRating()));
+            printRecentAverage(professor.getRatingWindow());
+            System.out.println("\nCourses Teaching:");
 
-        for (CourseProfessor cp : professor.getTeaching()) {
-            // Find the corresponding course
-            List<Course> courses = courseTree.getAllCoursesSorted();
-            Course course = null;
-            for (Course c : courses) {
-                if (c.getProfessorList().contains(cp)) {
-                    course = c;
-                    break;
-                }
+            if (professor.getTeaching().isEmpty()) {
+                System.out.println("No course data available");
+                return;
             }
 
-            if (course != null) {
+            for (CourseProfessor cp : professor.getTeaching()) {
+                // Each CourseProfessor already links back to its course
+                Course course = cp.getCourse();
+
                 System.out.println("\nCourse: [" + course.getCourseId() + "] " + course.getCourseName());
                 System.out.println("Course Average Rating: " + String.format("%.2f", cp.getAverageRating()));
                 System.out.println("Comments:");
@@ -331,6 +1162,9 @@ public class RatingSystem {
                     System.out.println("  - " + rating);
                 }
             }
+        } finally {
+            RatingSystemMetrics.DISPLAY_PROFESSOR.record(start, 0);
+            lock.readLock().unlock();
         }
     }
 
@@ -339,7 +1173,15 @@ public class RatingSystem {
      * @return course list
      */
     public List<Course> getCourses() {
-        return courseTree.getAllCoursesSorted();
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<Course> result = courseIndex.getAllCoursesSorted();
+            RatingSystemMetrics.GET_COURSES.record(start, result.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -348,7 +1190,39 @@ public class RatingSystem {
      * @return list of matching courses
      */
     public List<Course> searchCoursesByFirstLetter(char letter) {
-        return courseTree.searchByFirstLetter(letter);
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<Course> result = courseIndex.searchByFirstLetter(letter);
+            RatingSystemMetrics.SEARCH_BY_FIRST_LETTER.record(start, result.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search courses whose name starts with a prefix (case-insensitive)
+     * Uses the first-letter range of the course index, then checks the rest of the prefix
+     * @param prefix name prefix (empty: all courses)
+     * @return matching courses sorted by name
+     */
+    public List<Course> searchCoursesByPrefix(String prefix) {
+        long start = RatingSystemMetrics.start();
+        lock.readLock().lock();
+        try {
+            List<Course> results;
+            if (prefix.isEmpty()) {
+                results = courseIndex.getAllCoursesSorted();
+            } else {
+                results = courseIndex.searchByFirstLetter(prefix.charAt(0));
+                results.removeIf(course -> !course.getCourseName().regionMatches(true, 0, prefix, 0, prefix.length()));
+            }
+            RatingSystemMetrics.SEARCH_BY_PREFIX.record(start, results.size());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -356,10 +1230,275 @@ public class RatingSystem {
      * @return course count
      */
     public int getCourseCount() {
-        return courseTree.size();
+        lock.readLock().lock();
+        try {
+            return courseIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Freeze: switch to a read-optimized, read-only layout
+     * The course index is replaced by sorted arrays (binary search, sequential scans)
+     * and every list in the model is compacted to an exact-size immutable list;
+     * rating lists become columns of scores and comments (see FrozenRatings).
+     * Queries return the same answers; adding ratings fails until thaw() is called
+     */
+    public void freeze() {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            if (frozen) {
+                return;
+            }
+
+            courseIndex = courseIndex.freeze();     // Old index nodes are released
+            frozen = true;
+
+            for (Course course : courseMap.values()) {
+                course.freeze();
+            }
+            for (Professor professor : professorMap.values()) {
+                professor.freeze();
+            }
+            commentIndex.trim();
+            RatingSystemMetrics.FREEZE.record(start, courseMap.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thaw: return to the mutable layout after freeze()
+     */
+    public void thaw() {
+        long start = RatingSystemMetrics.start();
+        lock.writeLock().lock();
+        try {
+            if (!frozen) {
+                return;
+            }
+
+            CourseIndex mutableIndex = CourseIndex.create(indexType);
+            for (Course course : courseIndex.getAllCoursesSorted()) {
+                mutableIndex.insert(course);
+            }
+            courseIndex = mutableIndex;
+            frozen = false;
+
+            for (Course course : courseMap.values()) {
+                course.thaw();
+            }
+            for (Professor professor : professorMap.values()) {
+                professor.thaw();
+            }
+            RatingSystemMetrics.THAW.record(start, courseMap.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop accepting writes because a reload replaces this system (see DataReloader)
+     * Checked and set under the write lock, so no write slips in between: every later
+     * write is refused instead of going to a system that is no longer saved
+     * @param savedSequence change feed position that matches the data file (-1: unknown)
+     * @return false if there were changes since savedSequence (the system stays writable)
+     */
+    boolean retire(long savedSequence) {
+        lock.writeLock().lock();
+        try {
+            if (savedSequence >= 0 && changeFeed.getNextSequence() != savedSequence) {
+                return false;
+            }
+            retired = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check if the system is frozen (read-only)
+     */
+    public boolean isFrozen() {
+        lock.readLock().lock();
+        try {
+            return frozen;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merge this system's professors into combined per-name views
+     * Used by ShardedRatingSystem: a merged Professor teaches the CourseProfessor
+     * records of every shard, so its overall average covers all shards
+     * @param merged professor name -> merged professor view (filled in place)
+     * @param name only merge this professor, or null to merge all
+     */
+    void mergeProfessorsInto(Map<String, Professor> merged, String name) {
+        lock.readLock().lock();
+        try {
+            Collection<Professor> professors;
+            if (name == null) {
+                professors = professorMap.values();
+            } else if (professorMap.containsKey(name)) {
+                professors = Collections.singletonList(professorMap.get(name));
+            } else {
+                professors = Collections.emptyList();
+            }
+
+            for (Professor professor : professors) {
+                Professor view = merged.computeIfAbsent(professor.getName(), Professor::new);
+                for (CourseProfessor cp : professor.getTeaching()) {
+                    view.addTeaching(cp);
+                }
+                view.getRatingWindow().addAll(professor.getRatingWindow());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read lock guarding the data, for callers that walk courses, professors and
+     * ratings themselves (e.g., RatingHttpServer writing JSON)
+     */
+    Lock readLock() {
+        return lock.readLock();
     }
 
     public Map<String, Professor> getProfessorMap() {
         return professorMap;
     }
+
+    /**
+     * Get the spill store of the memory budget
+     * @return store, null if the rating lists have no memory budget
+     */
+    public RatingSpillStore getSpillStore() {
+        return spillStore;
+    }
+
+    /**
+     * Turn dropping of duplicate ratings on or off (see RatingDeduplicator)
+     * Turning it on fingerprints the ratings already loaded, so they count as well
+     */
+    public void setDeduplicating(boolean enabled) {
+        lock.writeLock().lock();
+        try {
+            if (!enabled) {
+                deduplicator = null;
+            } else if (deduplicator == null) {
+                RatingDeduplicator seeded = new RatingDeduplicator();
+                for (Course course : courseMap.values()) {
+                    for (CourseProfessor cp : course.getProfessorList()) {
+                        for (Rating rating : cp.getRatings()) {
+                            seeded.remember(course.getCourseId(), cp.getProfessor().getName(), rating);
+                        }
+                    }
+                }
+                deduplicator = seeded;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the duplicate filter
+     * @return deduplicator with its counters, null if duplicates are kept
+     */
+    public RatingDeduplicator getDeduplicator() {
+        lock.readLock().lock();
+        try {
+            return deduplicator;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of duplicate ratings dropped so far (0 if duplicates are kept)
+     */
+    public long getDuplicatesDropped() {
+        lock.readLock().lock();
+        try {
+            return deduplicator == null ? 0 : deduplicator.getDropped();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the shared copy of a string from the dictionary (the string itself without one)
+     * Thread-safe, so loader threads may call it without the lock
+     */
+    String intern(String text) {
+        return dictionary == null ? text : dictionary.intern(text);
+    }
+
+    /**
+     * Get the dictionary shared with other RatingSystems (null if none)
+     */
+    public StringDictionary getStringDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Estimate the heap bytes used by this system's data
+     * Counts courses, professors, pairs, the ratings in memory (spilled lists only
+     * count what the spill store keeps resident) and the comment index. Strings held
+     * by the shared dictionary are left out: StringDictionary.estimateBytes() counts them
+     * @return estimated bytes
+     */
+    public long estimateMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = commentIndex.estimateBytes();
+            for (Course course : courseMap.values()) {
+                bytes += COURSE_BYTES + stringBytes(course.getCourseId()) + stringBytes(course.getCourseName());
+                for (CourseProfessor cp : course.getProfessorList()) {
+                    bytes += PAIR_BYTES;
+                    if (spillStore == null) {
+                        List<Rating> ratings = cp.residentRatings();
+                        int ratingBytes = RATING_BYTES;
+                        if (ratings instanceof FrozenRatings) {
+                            bytes += ((FrozenRatings) ratings).estimateBytes();
+                            ratingBytes = 0;
+                        }
+                        for (Rating rating : ratings) {
+                            bytes += ratingBytes + stringBytes(rating.getComment());
+                        }
+                    }
+                }
+            }
+            for (Professor professor : professorMap.values()) {
+                bytes += PROFESSOR_BYTES + stringBytes(professor.getName());
+            }
+            if (spillStore != null) {
+                bytes += spillStore.getResidentBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long stringBytes(String text) {
+        if (text == null || (dictionary != null && dictionary.isShared(text))) {
+            return 0;
+        }
+        return StringDictionary.STRING_BYTES + text.length();
+    }
+
+    /**
+     * Get the feed of changes (added / removed ratings, courses and professors)
+     * Subscribers need no lock: see ChangeFeed
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
 }
@@ -0,0 +1,154 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * RatingSystemMetrics class: Metrics of every public RatingSystem operation
+ * Each operation has a call counter, a latency histogram and the total size of its
+ * results; index searches also count the nodes they visited.
+ * Enabled by default, turn off with -Drating.metrics=false or setEnabled(false).
+ * When disabled an operation only reads one volatile flag
+ */
+public class RatingSystemMetrics implements RatingSystemMetricsMBean {
+    static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("rating.metrics", "true"));
+
+    public static final OperationMetrics ADD_RATING = new OperationMetrics("addRating");
+    public static final OperationMetrics REMOVE_RATING = new OperationMetrics("removeRating");
+    public static final OperationMetrics REMOVE_COURSE = new OperationMetrics("removeCourse");
+    public static final OperationMetrics REMOVE_PROFESSOR = new OperationMetrics("removeProfessor");
+    public static final OperationMetrics LOAD_FROM_FILE = new OperationMetrics("loadFromFile");
+    public static final OperationMetrics SAVE_TO_FILE = new OperationMetrics("saveToFile");
+    public static final OperationMetrics EXPORT_REPORT = new OperationMetrics("exportReport");
+    public static final OperationMetrics SEARCH_BY_NAME = new OperationMetrics("searchCoursesByName");
+    public static final OperationMetrics SEARCH_BY_EXACT_NAME = new OperationMetrics("searchCourseByExactName");
+    public static final OperationMetrics SEARCH_BY_FIRST_LETTER = new OperationMetrics("searchCoursesByFirstLetter");
+    public static final OperationMetrics SEARCH_BY_PREFIX = new OperationMetrics("searchCoursesByPrefix");
+    public static final OperationMetrics SEARCH_BY_ID = new OperationMetrics("searchCourseById");
+    public static final OperationMetrics SEARCH_COMMENTS = new OperationMetrics("searchComments");
+    public static final OperationMetrics SEARCH_PROFESSOR = new OperationMetrics("searchProfessorByName");
+    public static final OperationMetrics COURSE_RANKING = new OperationMetrics("getProfessorRankingInCourse");
+    public static final OperationMetrics OVERALL_RANKING = new OperationMetrics("getOverallProfessorRanking");
+    public static final OperationMetrics TRENDING = new OperationMetrics("getTrendingProfessors");
+    public static final OperationMetrics GROUP_ROLLUPS = new OperationMetrics("getGroupRollups");
+    public static final OperationMetrics QUERY = new OperationMetrics("query");
+    public static final OperationMetrics DISPLAY_COURSE = new OperationMetrics("displayCourseDetails");
+    public static final OperationMetrics DISPLAY_PROFESSOR = new OperationMetrics("displayProfessorDetails");
+    public static final OperationMetrics GET_COURSES = new OperationMetrics("getCourses");
+    public static final OperationMetrics SPILL = new OperationMetrics("spillRatings");
+    public static final OperationMetrics RELOAD = new OperationMetrics("reloadRatings");
+    public static final OperationMetrics CHECK_DUPLICATE = new OperationMetrics("checkDuplicate");
+    public static final OperationMetrics FREEZE = new OperationMetrics("freeze");
+    public static final OperationMetrics THAW = new OperationMetrics("thaw");
+
+    private static final List<OperationMetrics> OPERATIONS = List.of(
+        ADD_RATING, REMOVE_RATING, REMOVE_COURSE, REMOVE_PROFESSOR, LOAD_FROM_FILE, SAVE_TO_FILE, EXPORT_REPORT, SEARCH_BY_NAME, SEARCH_BY_EXACT_NAME,
+        SEARCH_BY_FIRST_LETTER, SEARCH_BY_PREFIX, SEARCH_BY_ID, SEARCH_COMMENTS, SEARCH_PROFESSOR,
+        COURSE_RANKING, OVERALL_RANKING, TRENDING, GROUP_ROLLUPS, QUERY, DISPLAY_COURSE, DISPLAY_PROFESSOR, GET_COURSES, SPILL, RELOAD, CHECK_DUPLICATE, FREEZE, THAW
+    );
+
+    private static boolean registered;      // True once the MBeans are registered
+
+    /**
+     * Start timing an operation
+     * @return start time to pass to OperationMetrics.record(), or 0 if metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static List<OperationMetrics> getOperations() {
+        return OPERATIONS;
+    }
+
+    /**
+     * Register the metrics MBean and one MBean per operation with the platform MBean server
+     * (visible in JConsole / VisualVM under "RatingSystem"). Safe to call more than once
+     */
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new RatingSystemMetrics(), new ObjectName("RatingSystem:type=Metrics"));
+            for (OperationMetrics operation : OPERATIONS) {
+                server.registerMBean(operation,
+                        new ObjectName("RatingSystem:type=Operation,name=" + operation.getName()));
+            }
+            registered = true;
+        } catch (JMException e) {
+            System.out.println("Error: Could not register metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Format all operations that were called as a table
+     */
+    public static String formatSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %9s %9s %9s %9s %9s %10s %10s %12s%n",
+                                "operation", "calls", "mean(us)", "p50(us)", "p99(us)", "p99.9(us)",
+                                "max(us)", "results", "scanned"));
+
+        for (OperationMetrics op : OPERATIONS) {
+            long count = op.getCount();
+            if (count == 0) {
+                continue;
+            }
+            sb.append(String.format("%-28s %9d %9.1f %9.1f %9.1f %9.1f %10.1f %10d %12d%n",
+                                    op.getName(), count, op.getMeanMicros(), op.getP50Micros(),
+                                    op.getP99Micros(), op.getP999Micros(), op.getMaxMicros(),
+                                    op.getResultItems(), op.getNodesScanned()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Clear the metrics of all operations
+     */
+    public static void resetAll() {
+        for (OperationMetrics operation : OPERATIONS) {
+            operation.reset();
+        }
+    }
+
+    public static boolean isMetricsEnabled() {
+        return enabled;
+    }
+
+    public static void setMetricsEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        String[] names = new String[OPERATIONS.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = OPERATIONS.get(i).getName();
+        }
+        return names;
+    }
+
+    @Override
+    public String getSummary() {
+        return formatSummary();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * RatingSystemMetricsMBean interface: JMX controls for RatingSystem metrics
+ */
+public interface RatingSystemMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    String[] getOperationNames();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ * RatingWindow class: Rating totals per day over a sliding window of recent days
+ * A ring buffer of daily buckets (sum and count of scores). The newest bucket
+ * belongs to the latest day a rating was added for; when a later day arrives,
+ * the buckets that fall out of the window are cleared and reused. Averages over
+ * any range of days inside the window cost O(days), however many ratings there are.
+ * Ratings without a timestamp, or older than the window, are not counted here
+ * (they still count for all-time averages).
+ * Buckets are only allocated once the first timestamped rating arrives.
+ *
+ * Methods are synchronized: the ingest pipeline's appenders share professors
+ */
+public class RatingWindow {
+    /** Days covered by a window, -Drating.windowDays=<n> (default 120, about a semester) */
+    public static final int DAYS = Math.max(1, Integer.getInteger("rating.windowDays", 120));
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final int days;             // Number of buckets
+    private double[] sums;              // Sum of scores per day, slot = day mod days (null until used)
+    private int[] counts;               // Number of ratings per day
+    private long newestDay;             // Epoch day of the newest bucket
+
+    public RatingWindow() {
+        this(DAYS);
+    }
+
+    /**
+     * Constructor
+     * @param days number of days (buckets) kept
+     */
+    public RatingWindow(int days) {
+        this.days = days;
+    }
+
+    /**
+     * Convert a timestamp to its epoch day (UTC)
+     */
+    public static long toDay(long timestamp) {
+        return Math.floorDiv(timestamp, MILLIS_PER_DAY);
+    }
+
+    /**
+     * Epoch day of the current time (UTC)
+     */
+    public static long today() {
+        return toDay(System.currentTimeMillis());
+    }
+
+    /**
+     * Add a rating to its day's bucket
+     */
+    public synchronized void add(Rating rating) {
+        if (!rating.hasTimestamp()) {
+            return;
+        }
+
+        long day = toDay(rating.getTimestamp());
+        if (sums == null) {
+            sums = new double[days];
+            counts = new int[days];
+            newestDay = day;
+        } else if (day > newestDay) {
+            advanceTo(day);
+        } else if (day <= newestDay - days) {
+            return;     // Older than the window
+        }
+
+        int slot = slot(day);
+        sums[slot] += rating.getScore();
+        counts[slot]++;
+    }
+
+    /**
+     * Take a deleted rating out of its day's bucket (if that day is still in the window)
+     */
+    public synchronized void remove(Rating rating) {
+        if (!rating.hasTimestamp() || sums == null) {
+            return;
+        }
+
+        long day = toDay(rating.getTimestamp());
+        if (day <= newestDay && day > newestDay - days) {
+            int slot = slot(day);
+            sums[slot] -= rating.getScore();
+            counts[slot]--;
+        }
+    }
+
+    /**
+     * Add all ratings of another window to this one (e.g., merging shards), O(days)
+     */
+    public synchronized void addAll(RatingWindow other) {
+        synchronized (other) {
+            if (other.sums == null) {
+                return;
+            }
+            if (sums == null) {
+                sums = new double[days];
+                counts = new int[days];
+                newestDay = other.newestDay;
+            } else if (other.newestDay > newestDay) {
+                advanceTo(other.newestDay);
+            }
+            merge(other, 1);
+        }
+    }
+
+    /**
+     * Take all ratings of another window out of this one
+     * (e.g., a course-professor pair unlinked from its professor), O(days)
+     * @param other window whose ratings were all added to this one as well
+     */
+    public synchronized void removeAll(RatingWindow other) {
+        synchronized (other) {
+            if (sums != null && other.sums != null) {
+                merge(other, -1);
+            }
+        }
+    }
+
+    /**
+     * Add (sign 1) or subtract (sign -1) the buckets of the days both windows cover
+     */
+    private void merge(RatingWindow other, int sign) {
+        long from = Math.max(newestDay - days, other.newestDay - other.days) + 1;
+        for (long day = from; day <= Math.min(newestDay, other.newestDay); day++) {
+            int slot = slot(day);
+            int otherSlot = other.slot(day);
+            sums[slot] += sign * other.sums[otherSlot];
+            counts[slot] += sign * other.counts[otherSlot];
+        }
+    }
+
+    /**
+     * Sum of scores of the ratings given between two days (inclusive)
+     */
+    public synchronized double getSum(long fromDay, long toDay) {
+        double sum = 0.0;
+        if (sums != null) {
+            for (long day = Math.max(fromDay, newestDay - days + 1); day <= Math.min(toDay, newestDay); day++) {
+                sum += sums[slot(day)];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Number of ratings given between two days (inclusive)
+     */
+    public synchronized int getCount(long fromDay, long toDay) {
+        int count = 0;
+        if (counts != null) {
+            for (long day = Math.max(fromDay, newestDay - days + 1); day <= Math.min(toDay, newestDay); day++) {
+                count += counts[slot(day)];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Average score of the ratings given between two days (inclusive)
+     * @return average, 0.0 if there are none
+     */
+    public synchronized double getAverage(long fromDay, long toDay) {
+        int count = getCount(fromDay, toDay);
+        return count == 0 ? 0.0 : getSum(fromDay, toDay) / count;
+    }
+
+    /**
+     * Get number of days covered
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Move the newest bucket forward, clearing the days that fall out of the window
+     */
+    private void advanceTo(long day) {
+        if (day - newestDay >= days) {
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(counts, 0);
+        } else {
+            for (long d = newestDay + 1; d <= day; d++) {
+                int slot = slot(d);
+                sums[slot] = 0.0;
+                counts[slot] = 0;
+            }
+        }
+        newestDay = day;
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) days);
+    }
+}
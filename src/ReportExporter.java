@@ -0,0 +1,275 @@
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ReportExporter class: Full reports of every course or every professor
+ * The batch counterpart of displayCourseDetails / displayProfessorDetails:
+ *   - course report: course average, professors ranked by average (with their
+ *     averages, rating counts and comments)
+ *   - professor report: overall average, every course taught (average, count, comments)
+ * Formats: JSON Lines (one object per entity, the same shapes as the HTTP API)
+ * or CSV (one row per course-professor pair, comments joined in the last column).
+ *
+ * Entities are split into chunks of CHUNK_SIZE rendered in parallel by a
+ * ForkJoinPool. Each chunk is rendered into a buffer, and the buffers are written
+ * out in entity order, so the output is the same with any number of threads.
+ * At most a few chunks per thread are in flight: the caller waits for the oldest
+ * one before submitting more, so memory does not grow with the number of entities,
+ * and buffers are reused once written.
+ *
+ * The caller must hold the RatingSystem's read lock for the whole export; the
+ * rendering tasks read the data under that lock and never take it themselves
+ */
+public class ReportExporter {
+    private static final int CHUNK_SIZE = 64;           // Entities per rendering task
+    private static final int CHUNKS_PER_THREAD = 2;     // Chunks in flight per pool thread
+    private static final int BUFFER_CHARS = 1 << 16;    // Initial size of a chunk buffer
+    private static final String COMMENT_SEPARATOR = " | ";
+
+    /** CSV header of the course report */
+    public static final String COURSE_CSV_HEADER =
+        "courseId,courseName,courseAverage,rank,professorName,averageRating,ratingCount,comments";
+    /** CSV header of the professor report */
+    public static final String PROFESSOR_CSV_HEADER =
+        "professorName,overallAverage,courseId,courseName,averageRating,ratingCount,comments";
+
+    /**
+     * Report class: What the report covers
+     */
+    public enum Report {
+        COURSES, PROFESSORS
+    }
+
+    /**
+     * Format class: How the report is written
+     */
+    public enum Format {
+        JSONL, CSV
+    }
+
+    private final ForkJoinPool pool;
+    private final int window;           // Most chunks submitted but not written yet
+
+    /**
+     * Constructor: renders on the common ForkJoinPool
+     */
+    public ReportExporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * @param pool pool rendering the chunks
+     */
+    public ReportExporter(ForkJoinPool pool) {
+        this.pool = pool;
+        this.window = CHUNKS_PER_THREAD * pool.getParallelism() + 1;
+    }
+
+    /**
+     * ChunkBuffer class: Rendered output of one chunk, reused for later chunks
+     */
+    private static class ChunkBuffer {
+        final CharArrayWriter chars = new CharArrayWriter(BUFFER_CHARS);
+        final JsonWriter json = new JsonWriter(chars);     // Left at the top level after each entity
+        final StringBuilder row = new StringBuilder();
+    }
+
+    /**
+     * Write a course report
+     * @param courses courses in report order
+     */
+    public void exportCourses(List<Course> courses, Format format, Writer out) throws IOException {
+        export(Report.COURSES, courses, format, out);
+    }
+
+    /**
+     * Write a professor report
+     * @param professors professors in report order
+     */
+    public void exportProfessors(List<Professor> professors, Format format, Writer out) throws IOException {
+        export(Report.PROFESSORS, professors, format, out);
+    }
+
+    private void export(Report report, List<?> entities, Format format, Writer out) throws IOException {
+        if (format == Format.CSV) {
+            out.write(report == Report.COURSES ? COURSE_CSV_HEADER : PROFESSOR_CSV_HEADER);
+            out.write('\n');
+        }
+
+        Deque<ForkJoinTask<ChunkBuffer>> inFlight = new ArrayDeque<>();
+        Deque<ChunkBuffer> free = new ArrayDeque<>();
+        try {
+            for (int from = 0; from < entities.size(); from += CHUNK_SIZE) {
+                if (inFlight.size() == window) {
+                    writeOldest(inFlight, free, out);
+                }
+                ChunkBuffer buffer = free.isEmpty() ? new ChunkBuffer() : free.pop();
+                List<?> chunk = entities.subList(from, Math.min(entities.size(), from + CHUNK_SIZE));
+                inFlight.add(pool.submit(() -> render(report, format, chunk, buffer)));
+            }
+            while (!inFlight.isEmpty()) {
+                writeOldest(inFlight, free, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ForkJoinTask<ChunkBuffer> task : inFlight) {
+                task.quietlyJoin();     // No task may outlive the caller's read lock
+            }
+        }
+    }
+
+    /**
+     * Wait for the oldest chunk, write it and keep its buffer for reuse
+     */
+    private static void writeOldest(Deque<ForkJoinTask<ChunkBuffer>> inFlight, Deque<ChunkBuffer> free,
+                                    Writer out) throws IOException {
+        ChunkBuffer buffer = inFlight.peek().join();
+        inFlight.poll();
+        buffer.chars.writeTo(out);
+        buffer.chars.reset();
+        free.push(buffer);
+    }
+
+    /**
+     * Render one chunk of entities into a buffer (runs on the pool)
+     */
+    private static ChunkBuffer render(Report report, Format format, List<?> chunk, ChunkBuffer buffer) {
+        try {
+            for (Object entity : chunk) {
+                if (report == Report.COURSES) {
+                    Course course = (Course) entity;
+                    if (format == Format.JSONL) {
+                        RatingJson.writeCourseDetails(buffer.json, course, rank(course));
+                        buffer.json.newLine();
+                    } else {
+                        writeCourseRows(buffer, course);
+                    }
+                } else {
+                    Professor professor = (Professor) entity;
+                    if (format == Format.JSONL) {
+                        RatingJson.writeProfessorDetails(buffer.json, professor);
+                        buffer.json.newLine();
+                    } else {
+                        writeProfessorRows(buffer, professor);
+                    }
+                }
+            }
+            buffer.json.flush();    // Into the buffer's CharArrayWriter
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Professors of a course, highest average first (ties keep their order,
+     * like RatingSystem.getProfessorRankingInCourse, which would take the lock)
+     */
+    private static List<CourseProfessor> rank(Course course) {
+        List<CourseProfessor> ranking = new ArrayList<>(course.getProfessorList());
+        ranking.sort(Comparator.comparingDouble(CourseProfessor::getAverageRating).reversed());
+        return ranking;
+    }
+
+    private static void writeCourseRows(ChunkBuffer buffer, Course course) {
+        StringBuilder row = buffer.row;
+        List<CourseProfessor> ranking = rank(course);
+        if (ranking.isEmpty()) {
+            row.setLength(0);
+            appendCsv(row, course.getCourseId()).append(',');
+            appendCsv(row, course.getCourseName()).append(',');
+            row.append(RatingJson.round(course.getOverallAverageRating())).append(",,,,,\n");
+            buffer.chars.append(row);
+            return;
+        }
+
+        for (int i = 0; i < ranking.size(); i++) {
+            CourseProfessor cp = ranking.get(i);
+            row.setLength(0);
+            appendCsv(row, course.getCourseId()).append(',');
+            appendCsv(row, course.getCourseName()).append(',');
+            row.append(RatingJson.round(course.getOverallAverageRating())).append(',').append(i + 1).append(',');
+            appendCsv(row, cp.getProfessor().getName()).append(',');
+            appendPair(row, cp);
+            buffer.chars.append(row);
+        }
+    }
+
+    private static void writeProfessorRows(ChunkBuffer buffer, Professor professor) {
+        StringBuilder row = buffer.row;
+        for (CourseProfessor cp : professor.getTeaching()) {
+            row.setLength(0);
+            appendCsv(row, professor.getName()).append(',');
+            row.append(RatingJson.round(professor.getOverallAverageRating())).append(',');
+            appendCsv(row, cp.getCourse().getCourseId()).append(',');
+            appendCsv(row, cp.getCourse().getCourseName()).append(',');
+            appendPair(row, cp);
+            buffer.chars.append(row);
+        }
+    }
+
+    /**
+     * Append averageRating,ratingCount,comments and the line break
+     */
+    private static void appendPair(StringBuilder row, CourseProfessor cp) {
+        row.append(RatingJson.round(cp.getAverageRating())).append(',').append(cp.getRatingCount()).append(',');
+
+        int start = row.length();
+        boolean first = true;
+        for (Rating rating : cp.getRatings()) {
+            String comment = rating.getComment();
+            if (comment == null || comment.isEmpty()) {
+                continue;
+            }
+            if (!first) {
+                row.append(COMMENT_SEPARATOR);
+            }
+            row.append(comment);
+            first = false;
+        }
+        quoteFrom(row, start);
+        row.append('\n');
+    }
+
+    /**
+     * Append a text field, quoted if it contains a comma, a quote or a line break
+     */
+    private static StringBuilder appendCsv(StringBuilder row, String text) {
+        int start = row.length();
+        row.append(text);
+        quoteFrom(row, start);
+        return row;
+    }
+
+    /**
+     * Quote the field starting at a position if needed (RFC 4180: quotes are doubled)
+     */
+    private static void quoteFrom(StringBuilder row, int start) {
+        boolean needsQuotes = false;
+        for (int i = start; i < row.length() && !needsQuotes; i++) {
+            char c = row.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            return;
+        }
+
+        for (int i = row.length() - 1; i >= start; i--) {
+            if (row.charAt(i) == '"') {
+                row.insert(i, '"');
+            }
+        }
+        row.insert(start, '"').append('"');
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RollupGroup class: Running rating totals of a group of courses
+ * (e.g., all courses of a department), kept up to date by RatingRollup
+ * on every added or removed rating, so group queries never walk courses
+ */
+public class RollupGroup {
+    private String name;                                // Group name (e.g., "CPS" or "2000")
+    private int courseCount;                            // Courses in the group
+    private double ratingSum;                           // Sum of all rating scores in the group
+    private int ratingCount;                            // Number of ratings in the group
+    private Map<String, ProfessorTotal> professors;     // Professor name -> their totals in the group
+
+    /**
+     * ProfessorTotal class: Rating totals of one professor within a group
+     */
+    public static class ProfessorTotal {
+        private String name;        // Professor name
+        private double ratingSum;   // Sum of the professor's rating scores in the group
+        private int ratingCount;    // Number of the professor's ratings in the group
+
+        public ProfessorTotal(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getAverageRating() {
+            return ratingCount == 0 ? 0.0 : ratingSum / ratingCount;
+        }
+
+        public int getRatingCount() {
+            return ratingCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s - Average: %.2f (%d ratings)", name, getAverageRating(), ratingCount);
+        }
+    }
+
+    public RollupGroup(String name) {
+        this.name = name;
+        this.professors = new HashMap<>();
+    }
+
+    /**
+     * Copy of a group (query results must not change while the caller reads them)
+     */
+    RollupGroup(RollupGroup source) {
+        this(source.name);
+        addAll(source);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCourseCount() {
+        return courseCount;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : ratingSum / ratingCount;
+    }
+
+    /**
+     * Get the best rated professors of the group
+     * @param n maximum number of professors
+     * @return professors sorted by average rating from high to low
+     */
+    public List<ProfessorTotal> getTopProfessors(int n) {
+        List<ProfessorTotal> ranking = new ArrayList<>(professors.values());
+        ranking.sort((a, b) -> Double.compare(b.getAverageRating(), a.getAverageRating()));
+        return ranking.size() > n ? new ArrayList<>(ranking.subList(0, n)) : ranking;
+    }
+
+    /**
+     * Names of the professors with ratings in the group
+     */
+    Set<String> getProfessorNames() {
+        return professors.keySet();
+    }
+
+    void addCourses(int count) {
+        courseCount += count;
+    }
+
+    /**
+     * Add (positive) or take away (negative) ratings of a professor
+     * @param professorName professor name
+     * @param sum sum of the rating scores
+     * @param count number of ratings
+     */
+    void addRatings(String professorName, double sum, int count) {
+        ratingSum += sum;
+        ratingCount += count;
+
+        ProfessorTotal total = professors.computeIfAbsent(professorName, ProfessorTotal::new);
+        total.ratingSum += sum;
+        total.ratingCount += count;
+        if (total.ratingCount == 0) {
+            professors.remove(professorName);
+        }
+        if (ratingCount == 0) {
+            ratingSum = 0.0;    // No rounding error left behind
+        }
+    }
+
+    /**
+     * Add the totals of another group with the same name (e.g., from another shard)
+     */
+    void addAll(RollupGroup other) {
+        courseCount += other.courseCount;
+        for (ProfessorTotal total : other.professors.values()) {
+            addRatings(total.name, total.ratingSum, total.ratingCount);
+        }
+    }
+
+    /**
+     * Check if the group has neither courses nor ratings left
+     */
+    boolean isEmpty() {
+        return courseCount == 0 && ratingCount == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - Average: %.2f (%d ratings, %d courses)",
+                           name, getAverageRating(), ratingCount, courseCount);
+    }
+}
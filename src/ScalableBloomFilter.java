@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ScalableBloomFilter class: Set of 64-bit keys with false positives but no false negatives
+ * A Bloom filter needs about 1.44 * log2(1 / p) bits per key for a false-positive
+ * rate p, but its size must be fixed in advance. This one starts with a filter for
+ * initialCapacity keys and adds a filter twice as large whenever the newest one is
+ * full (Almeida et al., "Scalable Bloom Filters"). Each new filter gets half the
+ * error rate of the one before, so the total stays at about the configured rate
+ * however many keys are added: p/2 + p/4 + ... < p. The price is more bits per
+ * key than one filter of the final size (about 12 at p = 1% for a few stages,
+ * growing by ~1.4 per doubling).
+ *
+ * mightContain() is false for a key that was never added, and true with
+ * probability of about p for such a key. Not thread-safe
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH = 2;            // Capacity of each new filter relative to the last
+    private static final double TIGHTENING = 0.5;   // Error rate of each new filter relative to the last
+
+    private final double falsePositiveRate;         // Bound on the rate of all filters together
+    private final List<Stage> stages;               // Filters, oldest (smallest) first
+    private long size;                              // Keys added
+
+    /**
+     * Stage class: One fixed-size Bloom filter
+     */
+    private static class Stage {
+        final long[] words;     // Bit array
+        final long bits;        // Number of bits
+        final int hashes;       // Bits set per key
+        final long capacity;    // Keys it was sized for
+        final long seed;        // Makes the bit positions of the stages independent
+        long count;             // Keys added to it
+
+        Stage(long capacity, double errorRate, long seed) {
+            // k = log2(1 / p) rounded up; then the fewest bits giving p for that k: (1 - e^(-kn/m))^k = p
+            this.capacity = capacity;
+            this.hashes = Math.max(1, (int) Math.ceil(-Math.log(errorRate) / Math.log(2)));
+            this.bits = Math.max(64, (long) Math.ceil(-hashes * capacity / Math.log(1 - Math.pow(errorRate, 1.0 / hashes))));
+            this.words = new long[(int) ((bits + 63) >>> 6)];
+            this.seed = seed;
+        }
+
+        boolean contains(long key) {
+            long h1 = mix(key ^ seed);
+            long h2 = mix(h1) | 1;          // Odd step: the bit positions of a key do not repeat early
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long key) {
+            long h1 = mix(key ^ seed);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param initialCapacity keys the first filter is sized for
+     * @param falsePositiveRate bound on the false-positive rate (between 0 and 1)
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        this.falsePositiveRate = falsePositiveRate;
+        this.stages = new ArrayList<>();
+        stages.add(new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING), 0));
+    }
+
+    /**
+     * Check if a key may have been added
+     * @return false if it was certainly never added
+     */
+    public boolean mightContain(long key) {
+        for (int i = stages.size() - 1; i >= 0; i--) {     // Newest first: recent keys are the likeliest repeats
+            if (stages.get(i).contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a key (nothing changes if the filter may already contain it)
+     * @return true if the key was added, false if mightContain(key) was already true
+     */
+    public boolean put(long key) {
+        if (mightContain(key)) {
+            return false;
+        }
+
+        Stage last = stages.get(stages.size() - 1);
+        if (last.count >= last.capacity) {
+            double errorRate = falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, stages.size());
+            last = new Stage(last.capacity * GROWTH, errorRate, mix(stages.size()));
+            stages.add(last);
+        }
+        last.add(key);
+        size++;
+        return true;
+    }
+
+    /**
+     * Number of keys added
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Bits used by all filters together
+     */
+    public long getBitCount() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.bits;
+        }
+        return total;
+    }
+
+    /**
+     * Number of filters (grows by one each time the capacity doubles)
+     */
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Scramble the bits of a 64-bit value (SplitMix64 finalizer)
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,418 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ShardedRatingSystem class: Multi-core facade over several RatingSystem shards
+ * Courses are split across shards by courseId hash, each shard has its own
+ * AVL tree, maps and lock. Writes go straight to the owning shard; searches and
+ * rankings run on all shards in parallel and the partial results are merged
+ */
+public class ShardedRatingSystem {
+    private RatingSystem[] shards;                      // Shards, each owning a subset of courses
+    private ExecutorService executor;                   // Runs scatter-gather queries
+
+    /**
+     * Constructor
+     * @param shardCount number of shards (usually the number of cores)
+     */
+    public ShardedRatingSystem(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1: " + shardCount);
+        }
+
+        this.shards = new RatingSystem[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new RatingSystem();
+        }
+        this.executor = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "shard-query");
+            t.setDaemon(true);      // A missed shutdown() does not keep the JVM alive
+            return t;
+        });
+    }
+
+    /**
+     * Constructor: one shard per available core
+     */
+    public ShardedRatingSystem() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Find the shard owning a course
+     * @param courseId course ID
+     * @return owning shard
+     */
+    private RatingSystem shardFor(String courseId) {
+        return shards[Math.floorMod(courseId.hashCode(), shards.length)];
+    }
+
+    /**
+     * Add rating (goes to the shard owning the course)
+     */
+    public void addRating(String courseId, String courseName, String professorName,
+                          double score, String comment) {
+        if (courseId == null || courseId.trim().isEmpty()) {
+            System.out.println("Error: Course ID cannot be empty!");
+            return;
+        }
+        shardFor(courseId).addRating(courseId, courseName, professorName, score, comment);
+    }
+
+    /**
+     * Add rating without printing anything (goes to the shard owning the course)
+     * @return ADDED, or why it was not added (see RatingSystem.addRatingSilently)
+     */
+    public RatingSystem.AddResult addRatingSilently(String courseId, String courseName, String professorName,
+                                                    double score, String comment) {
+        if (courseId == null || courseId.trim().isEmpty()) {
+            return RatingSystem.AddResult.INVALID;
+        }
+        return shardFor(courseId).addRatingSilently(courseId, courseName, professorName, score, comment);
+    }
+
+    /**
+     * Delete a rating (only the shard owning the course is touched)
+     */
+    public boolean removeRating(String courseId, String professorName, Rating rating) {
+        return shardFor(courseId).removeRating(courseId, professorName, rating);
+    }
+
+    /**
+     * Delete a course with all its ratings (only the owning shard is touched)
+     */
+    public boolean removeCourse(String courseId) {
+        return shardFor(courseId).removeCourse(courseId);
+    }
+
+    /**
+     * Delete a professor from every shard they teach on
+     * @return true if any shard had the professor
+     */
+    public boolean removeProfessor(String name) {
+        boolean removed = false;
+        for (RatingSystem shard : shards) {
+            removed |= shard.removeProfessor(name);
+        }
+        return removed;
+    }
+
+    /**
+     * Load data from CSV file, routing every row to its owning shard
+     * Format: courseId,courseName,professorName,rating,[timestamp,]comment
+     * @param filename file name
+     */
+    public void loadFromFile(String filename) {
+        try (BufferedReader br = CompressedFiles.newReader(filename)) {
+            String line;
+            boolean firstLine = true;
+            int columns = 5;
+            int loaded = 0;
+            int skipped = 0;
+            int duplicates = 0;
+
+            while ((line = br.readLine()) != null) {
+                // Skip header
+                if (firstLine) {
+                    firstLine = false;
+                    columns = RatingSystem.hasTimestampColumn(line) ? 6 : 5;
+                    continue;
+                }
+
+                String[] parts = line.split(",", columns);
+                if (parts.length >= columns) {
+                    String courseId = parts[0].trim();
+                    long timestamp = columns == 6 ? Rating.parseTimestamp(parts[4].trim()) : 0;
+                    RatingSystem.AddResult result = shardFor(courseId).addRatingSilently(courseId, parts[1].trim(),
+                            parts[2].trim(), Double.parseDouble(parts[3].trim()), parts[columns - 1].trim(), timestamp);
+                    if (result == RatingSystem.AddResult.ADDED) {
+                        loaded++;
+                    } else if (result == RatingSystem.AddResult.DUPLICATE) {
+                        duplicates++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+
+            if (skipped > 0) {
+                System.out.println("Skipped " + skipped + " invalid rating(s)");
+            }
+            if (duplicates > 0) {
+                System.out.println("Dropped " + duplicates + " duplicate rating(s)");
+            }
+            System.out.println("Loaded " + loaded + " rating(s)");
+            System.out.println("Data loaded successfully from file: " + filename);
+        } catch (FileNotFoundException e) {
+            System.out.println("File not found: " + filename);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Rating format error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Save data of all shards to one CSV file
+     * Shards are written one after another, each under its own read lock (writes to
+     * the other shards go on meanwhile), so rows are sorted by course name within
+     * each shard's part of the file
+     * @param filename file name
+     * @return false if the file could not be written
+     */
+    public boolean saveToFile(String filename) {
+        PrintWriter pw = null;
+        try {
+            pw = new PrintWriter(CompressedFiles.newWriter(filename));
+            boolean withTimestamps = false;
+            for (RatingSystem shard : shards) {
+                withTimestamps |= shard.hasTimestamps();
+            }
+            pw.println(withTimestamps ? RatingSystem.CSV_HEADER_TIMESTAMP : RatingSystem.CSV_HEADER);
+
+            for (RatingSystem shard : shards) {
+                shard.writeRatings(pw, withTimestamps);
+            }
+
+            pw.close();
+            if (pw.checkError()) {
+                System.out.println("Error saving file: " + filename + " could not be written completely");
+                return false;
+            }
+            System.out.println("Data saved successfully to file: " + filename);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+            return false;
+        } finally {
+            if (pw != null) {
+                pw.close();
+            }
+        }
+    }
+
+    /**
+     * Search course by exact name (shards are asked in order; names are unique
+     * within a shard, not across shards)
+     * @return course, null if not found
+     */
+    public Course searchCourseByExactName(String courseName) {
+        for (RatingSystem shard : shards) {
+            Course course = shard.searchCourseByExactName(courseName);
+            if (course != null) {
+                return course;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Search course by ID (only the owning shard is asked)
+     */
+    public Course searchCourseById(String courseId) {
+        return shardFor(courseId).searchCourseById(courseId);
+    }
+
+    /**
+     * Search courses by name keyword on all shards in parallel
+     * @return matching courses sorted by name
+     */
+    public List<Course> searchCoursesByName(String keyword) {
+        return mergeSortedByName(scatter(shard -> shard.searchCoursesByName(keyword)));
+    }
+
+    /**
+     * Search courses by first letter on all shards in parallel
+     * @return matching courses sorted by name
+     */
+    public List<Course> searchCoursesByFirstLetter(char letter) {
+        return mergeSortedByName(scatter(shard -> shard.searchCoursesByFirstLetter(letter)));
+    }
+
+    /**
+     * Get all courses of all shards (sorted by name)
+     */
+    public List<Course> getCourses() {
+        return mergeSortedByName(scatter(RatingSystem::getCourses));
+    }
+
+    /**
+     * Get total course count
+     */
+    public int getCourseCount() {
+        int total = 0;
+        for (int count : scatter(RatingSystem::getCourseCount)) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Search professor by name
+     * A professor may teach courses on several shards, so the returned object
+     * is a merged view teaching the courses of every shard
+     * @return merged Professor object, null if not found
+     */
+    public Professor searchProfessorByName(String name) {
+        Map<String, Professor> merged = new HashMap<>();
+        for (RatingSystem shard : shards) {
+            shard.mergeProfessorsInto(merged, name);
+        }
+        return merged.get(name);
+    }
+
+    /**
+     * Get professor ranking within a course (only the owning shard is asked)
+     */
+    public List<CourseProfessor> getProfessorRankingInCourse(String courseId) {
+        return shardFor(courseId).getProfessorRankingInCourse(courseId);
+    }
+
+    /**
+     * Get overall professor ranking across all shards
+     * Professors are merged by name first, so averages cover every shard
+     * @return merged professors sorted by overall average rating from high to low
+     */
+    public List<Professor> getOverallProfessorRanking() {
+        Map<String, Professor> merged = new HashMap<>();
+        for (RatingSystem shard : shards) {
+            shard.mergeProfessorsInto(merged, null);
+        }
+
+        // Compute each average once, then sort (stable, like the insertion sort in RatingSystem)
+        List<Professor> professorList = new ArrayList<>(merged.values());
+        Map<Professor, Double> averages = new IdentityHashMap<>();
+        for (Professor professor : professorList) {
+            averages.put(professor, professor.getOverallAverageRating());
+        }
+        professorList.sort((a, b) -> Double.compare(averages.get(b), averages.get(a)));
+
+        return professorList;
+    }
+
+    /**
+     * Get trending professors across all shards
+     * Professors are merged by name first, their rating windows added together
+     * @see RatingSystem#getTrendingProfessors(int, int)
+     */
+    public List<ProfessorTrend> getTrendingProfessors(int recentDays, int minRatings) {
+        Map<String, Professor> merged = new HashMap<>();
+        for (RatingSystem shard : shards) {
+            shard.mergeProfessorsInto(merged, null);
+        }
+        return RatingSystem.computeTrends(merged.values(), recentDays, minRatings);
+    }
+
+    /**
+     * Get rating totals per group of courses across all shards
+     * Groups with the same name are added together (a department's courses may be on several shards)
+     * @see RatingSystem#getGroupRollups(RatingRollup.Key)
+     */
+    public List<RollupGroup> getGroupRollups(RatingRollup.Key key) {
+        Map<String, RollupGroup> merged = new HashMap<>();
+        for (RatingSystem shard : shards) {
+            shard.mergeRollupInto(key, merged);
+        }
+
+        List<RollupGroup> groups = new ArrayList<>(merged.values());
+        groups.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return groups;
+    }
+
+    /**
+     * Run a query on every shard in parallel and collect the partial results
+     * @param query query to run on one shard
+     * @return one result per shard, in shard order
+     */
+    private <T> List<T> scatter(ShardQuery<T> query) {
+        List<Callable<T>> tasks = new ArrayList<>();
+        for (RatingSystem shard : shards) {
+            tasks.add(() -> query.run(shard));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Query interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Query failed on a shard", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * K-way merge of per-shard course lists that are already sorted by name
+     * Uses the order of the shards' course indexes, which follows -Drating.collation
+     */
+    private List<Course> mergeSortedByName(List<List<Course>> partials) {
+        Comparator<Course> order = shards[0].getCourseOrder();
+        int total = 0;
+        for (List<Course> partial : partials) {
+            total += partial.size();
+        }
+        List<Course> merged = new ArrayList<>(total);
+
+        // Heap entries: {shard index, position in that shard's list}
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) ->
+                order.compare(partials.get(a[0]).get(a[1]), partials.get(b[0]).get(b[1])));
+        for (int i = 0; i < partials.size(); i++) {
+            if (!partials.get(i).isEmpty()) {
+                heap.add(new int[] {i, 0});
+            }
+        }
+
+        while (!heap.isEmpty()) {
+            int[] head = heap.poll();
+            List<Course> partial = partials.get(head[0]);
+            merged.add(partial.get(head[1]));
+            if (++head[1] < partial.size()) {
+                heap.add(head);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * Stop the query threads
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Number of duplicate ratings dropped by all shards (each shard has its own filter;
+     * duplicates always meet in the same shard, since the course ID picks it)
+     */
+    public long getDuplicatesDropped() {
+        long dropped = 0;
+        for (RatingSystem shard : shards) {
+            dropped += shard.getDuplicatesDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Get number of shards
+     */
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * A query that runs against a single shard
+     */
+    private interface ShardQuery<T> {
+        T run(RatingSystem shard);
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SpscRingBuffer class: Bounded lock-free queue between exactly two threads
+ * One producer thread calls offer(), one consumer thread calls poll(); neither
+ * ever blocks or takes a lock. Each side only writes its own counter and keeps a
+ * cached copy of the other side's counter, so the shared counters are read
+ * only when the cached view says the buffer is full (producer) or empty (consumer).
+ * A full buffer makes offer() fail, which is how callers apply backpressure
+ */
+public class SpscRingBuffer<E> {
+    private static final int HEAD = 0;          // Index of the consumer counter in counters
+    private static final int TAIL = 16;         // Index of the producer counter, 128 bytes away (no false sharing)
+
+    private final Object[] slots;               // Ring storage, length is a power of two
+    private final int mask;                     // slots.length - 1
+    private final AtomicLongArray counters;     // HEAD: next slot to read, TAIL: next slot to write
+    private long cachedHead;                    // Producer's last view of HEAD
+    private long cachedTail;                    // Consumer's last view of TAIL
+
+    /**
+     * Constructor
+     * @param capacity maximum number of queued elements (rounded up to a power of two)
+     */
+    public SpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        this.counters = new AtomicLongArray(TAIL + 16);
+    }
+
+    /**
+     * Add an element (producer thread only)
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        long tail = counters.getPlain(TAIL);
+        if (tail - cachedHead == slots.length) {
+            cachedHead = counters.getAcquire(HEAD);
+            if (tail - cachedHead == slots.length) {
+                return false;
+            }
+        }
+
+        slots[(int) tail & mask] = element;
+        counters.setRelease(TAIL, tail + 1);      // Publishes the slot to the consumer
+        return true;
+    }
+
+    /**
+     * Remove the oldest element (consumer thread only)
+     * @return element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = counters.getPlain(HEAD);
+        if (head == cachedTail) {
+            cachedTail = counters.getAcquire(TAIL);
+            if (head == cachedTail) {
+                return null;
+            }
+        }
+
+        int index = (int) head & mask;
+        E element = (E) slots[index];
+        slots[index] = null;
+        counters.setRelease(HEAD, head + 1);      // Hands the slot back to the producer
+        return element;
+    }
+
+    /**
+     * Number of queued elements (approximate while both threads are running)
+     */
+    public int size() {
+        return (int) (counters.getAcquire(TAIL) - counters.getAcquire(HEAD));
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
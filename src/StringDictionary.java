@@ -0,0 +1,112 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StringDictionary class: Concurrent string interning shared by several RatingSystems
+ * Datasets of different campuses repeat the same course titles, professor names
+ * and short comments ("Great professor!"); with a shared dictionary every distinct
+ * string is kept once in the heap instead of once per row and per dataset.
+ * Safe to use from many threads (loader, parser and tailer threads of all datasets).
+ *
+ * Only strings up to MAX_LENGTH characters are interned: long comments are rarely
+ * repeated word for word. Once the dictionary holds maxEntries strings, new strings
+ * are returned as they are, so its size is bounded. Strings stay in the dictionary
+ * when a dataset is unloaded (a reload will likely need them again)
+ */
+public class StringDictionary {
+    /** Longest string interned, -Drating.dictionaryMaxLength=<n> */
+    public static final int MAX_LENGTH = Integer.getInteger("rating.dictionaryMaxLength", 128);
+    /** Default most strings held, -Drating.dictionaryMaxEntries=<n> */
+    public static final int DEFAULT_MAX_ENTRIES = Integer.getInteger("rating.dictionaryMaxEntries", 1 << 20);
+
+    static final int STRING_BYTES = 40;         // Heap estimate per String besides its characters (object, array header)
+    private static final int ENTRY_BYTES = 48;  // Heap estimate per map entry (node and table slot)
+
+    private final ConcurrentHashMap<String, String> strings;
+    private final int maxEntries;
+    private final AtomicLong bytes = new AtomicLong();      // Estimated heap bytes of the dictionary
+    private final LongAdder lookups = new LongAdder();      // Strings passed to intern (not too long)
+    private final LongAdder hits = new LongAdder();         // Lookups answered with an existing string
+
+    public StringDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor
+     * @param maxEntries most distinct strings held
+     */
+    public StringDictionary(int maxEntries) {
+        this.strings = new ConcurrentHashMap<>(1024);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the shared copy of a string
+     * @return the equal string already in the dictionary, else text itself (added if there is room)
+     */
+    public String intern(String text) {
+        if (text == null || text.length() > MAX_LENGTH) {
+            return text;
+        }
+
+        lookups.increment();
+        String shared = strings.get(text);
+        if (shared != null) {
+            hits.increment();
+            return shared;
+        }
+        if (strings.size() >= maxEntries) {
+            return text;
+        }
+
+        shared = strings.putIfAbsent(text, text);
+        if (shared != null) {
+            hits.increment();       // Another thread added it first
+            return shared;
+        }
+        bytes.addAndGet(ENTRY_BYTES + STRING_BYTES + text.length());
+        return text;
+    }
+
+    /**
+     * Check if a string is the dictionary's own copy (its memory is counted by the dictionary)
+     */
+    public boolean isShared(String text) {
+        return text != null && text.length() <= MAX_LENGTH && strings.get(text) == text;
+    }
+
+    /**
+     * Number of distinct strings held
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Estimated heap bytes of the dictionary and its strings
+     */
+    public long estimateBytes() {
+        return bytes.get();
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Number of lookups that found the string already there (one copy saved each)
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public String toString() {
+        long lookupCount = getLookups();
+        return String.format("%d string(s), ~%.1f MB, %.1f%% of %d lookup(s) shared",
+                             size(), estimateBytes() / (1024.0 * 1024.0),
+                             lookupCount == 0 ? 0.0 : 100.0 * getHits() / lookupCount, lookupCount);
+    }
+}